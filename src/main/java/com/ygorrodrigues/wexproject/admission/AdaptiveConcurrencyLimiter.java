@@ -0,0 +1,104 @@
+package com.ygorrodrigues.wexproject.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * AIMD concurrency limit driven by observed latency.
+ *
+ * A request is admitted while fewer than {@code limit} requests are in flight. Every completed
+ * request is a sample: a fast sample while the limit is at least half used grows the limit by
+ * {@code 1 / limit} (about one per round trip), and a sample slower than the latency threshold,
+ * or one that failed, multiplies it by the backoff ratio. Only one backoff is applied per round
+ * trip; samples that started before the last backoff are ignored for decreases.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final Counter rejected;
+
+    // Guarded by this
+    private double limit;
+    private int inFlight;
+    private long lastBackoffNanos = Long.MIN_VALUE;
+
+    public AdaptiveConcurrencyLimiter(String name, MeterRegistry meterRegistry, int initialLimit, int minLimit,
+            int maxLimit, long latencyThresholdMs, double backoffRatio) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.backoffRatio = backoffRatio;
+
+        this.rejected = Counter.builder("admission.rejected")
+            .description("Requests shed by the concurrency limiter")
+            .tag("endpoint", name)
+            .register(meterRegistry);
+        Gauge.builder("admission.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+            .tag("endpoint", name)
+            .register(meterRegistry);
+        Gauge.builder("admission.in_flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+            .tag("endpoint", name)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Admits a request, or returns null when the limit is reached.
+     */
+    public Permit tryAcquire() {
+        synchronized (this) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return new Permit(System.nanoTime());
+            }
+        }
+        rejected.increment();
+        return null;
+    }
+
+    synchronized void onSample(long startNanos, long endNanos, boolean dropped) {
+        inFlight--;
+        if (dropped || endNanos - startNanos > latencyThresholdNanos) {
+            if (startNanos > lastBackoffNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastBackoffNanos = endNanos;
+            }
+        } else if ((inFlight + 1) * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public final class Permit {
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Returns the slot and records the request latency. {@code dropped} marks a request that
+         * failed because the service or its upstream is overloaded.
+         */
+        public void release(boolean dropped) {
+            if (released.compareAndSet(false, true)) {
+                onSample(startNanos, System.nanoTime(), dropped);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.ygorrodrigues.wexproject.admission;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sheds load in front of the conversion endpoints ({@code GET /purchase/{id}/exchange} and
+ * {@code POST /purchases/exchange}) and {@code POST /purchase}, each group with its own
+ * {@link AdaptiveConcurrencyLimiter}. A request over the limit is answered right
+ * away with 503 and {@code Retry-After} instead of queueing behind the upstream call. Responses
+ * with a 5xx status count as dropped and back the limit off.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    // Written before the request reaches Spring MVC, so the problem body is a constant
+    private static final String OVERLOADED_PROBLEM = "{\"type\":\"about:blank\",\"title\":\"Service overloaded\","
+        + "\"status\":503,\"detail\":\"Server is overloaded, please retry\"}";
+
+    private final boolean enabled;
+    private final AdaptiveConcurrencyLimiter exchangeLimiter;
+    private final AdaptiveConcurrencyLimiter purchaseLimiter;
+
+    public AdmissionControlFilter(
+            MeterRegistry meterRegistry,
+            @Value("${admission.enabled:true}") boolean enabled,
+            @Value("${admission.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${admission.exchange.initial-limit:20}") int exchangeInitialLimit,
+            @Value("${admission.exchange.min-limit:2}") int exchangeMinLimit,
+            @Value("${admission.exchange.max-limit:200}") int exchangeMaxLimit,
+            @Value("${admission.exchange.latency-threshold-ms:1000}") long exchangeLatencyThresholdMs,
+            @Value("${admission.purchase.initial-limit:50}") int purchaseInitialLimit,
+            @Value("${admission.purchase.min-limit:5}") int purchaseMinLimit,
+            @Value("${admission.purchase.max-limit:500}") int purchaseMaxLimit,
+            @Value("${admission.purchase.latency-threshold-ms:200}") long purchaseLatencyThresholdMs) {
+        this.enabled = enabled;
+        this.exchangeLimiter = new AdaptiveConcurrencyLimiter("exchange", meterRegistry,
+            exchangeInitialLimit, exchangeMinLimit, exchangeMaxLimit, exchangeLatencyThresholdMs, backoffRatio);
+        this.purchaseLimiter = new AdaptiveConcurrencyLimiter("purchase", meterRegistry,
+            purchaseInitialLimit, purchaseMinLimit, purchaseMaxLimit, purchaseLatencyThresholdMs, backoffRatio);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || limiterFor(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdaptiveConcurrencyLimiter limiter = limiterFor(request);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        if (permit == null) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+            response.getWriter().write(OVERLOADED_PROBLEM);
+            return;
+        }
+
+        boolean dropped = true;
+        try {
+            filterChain.doFilter(request, response);
+            dropped = response.getStatus() >= 500;
+        } finally {
+            permit.release(dropped);
+        }
+    }
+
+    AdaptiveConcurrencyLimiter limiterFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if ("GET".equals(request.getMethod()) && path.startsWith("/purchase/") && path.endsWith("/exchange")) {
+            return exchangeLimiter;
+        }
+        if ("POST".equals(request.getMethod()) && path.equals("/purchases/exchange")) {
+            return exchangeLimiter;
+        }
+        if ("POST".equals(request.getMethod()) && path.equals("/purchase")) {
+            return purchaseLimiter;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,33 @@
+package com.ygorrodrigues.wexproject.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Shared-secret check for the admin endpoints, which are only present when a property turns
+ * them on and then answer only requests carrying the configured token.
+ */
+final class AdminTokens {
+
+    static final String HEADER = "X-Admin-Token";
+
+    private AdminTokens() {
+    }
+
+    /**
+     * Fails startup when an admin endpoint is turned on without a token to check requests against.
+     */
+    static void requireConfigured(String token, String tokenProperty, String enabledProperty) {
+        if (token.isBlank()) {
+            throw new IllegalStateException(tokenProperty + " must be set when " + enabledProperty + " is true");
+        }
+    }
+
+    /**
+     * Compares in constant time, so the response time does not reveal how much of the token matched.
+     */
+    static boolean matches(String token, String requestToken) {
+        return requestToken != null && MessageDigest.isEqual(
+            requestToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+}
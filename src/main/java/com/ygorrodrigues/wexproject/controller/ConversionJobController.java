@@ -0,0 +1,58 @@
+package com.ygorrodrigues.wexproject.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ygorrodrigues.wexproject.models.ConversionJobStatus;
+import com.ygorrodrigues.wexproject.service.ConversionRecomputeService;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Starts and inspects conversion recomputes. Only present with
+ * {@code admin.conversions.enabled=true}, and every request must carry {@code admin.token} in the
+ * {@value AdminTokens#HEADER} header, since a recompute reads the whole purchases table.
+ */
+@RestController
+@ConditionalOnProperty(name = "admin.conversions.enabled", havingValue = "true")
+public class ConversionJobController {
+
+    @Autowired
+    private ConversionRecomputeService conversionRecomputeService;
+
+    @Value("${admin.token:}")
+    private String token;
+
+    @PostConstruct
+    void checkToken() {
+        AdminTokens.requireConfigured(token, "admin.token", "admin.conversions.enabled");
+    }
+
+    @PostMapping("/admin/conversions/recompute")
+    public ResponseEntity<ConversionJobStatus> recompute(
+            @RequestHeader(name = AdminTokens.HEADER, required = false) String requestToken,
+            @RequestParam("countryCurrency") String countryCurrency) {
+        if (!AdminTokens.matches(token, requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        conversionRecomputeService.submit(countryCurrency);
+        return ResponseEntity.accepted().body(conversionRecomputeService.status());
+    }
+
+    @GetMapping("/admin/conversions/recompute")
+    public ResponseEntity<ConversionJobStatus> status(@RequestHeader(name = AdminTokens.HEADER, required = false) String requestToken) {
+        if (!AdminTokens.matches(token, requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        ConversionJobStatus status = conversionRecomputeService.status();
+        return status == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(status);
+    }
+}
@@ -0,0 +1,45 @@
+package com.ygorrodrigues.wexproject.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ygorrodrigues.wexproject.models.CurrencyHeat;
+import com.ygorrodrigues.wexproject.service.CurrencyHeatTracker;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Lists the tracked currency heat. Only present with {@code admin.currency-heat.enabled=true},
+ * and every request must carry {@code admin.token} in the {@value AdminTokens#HEADER} header.
+ */
+@RestController
+@ConditionalOnProperty(name = "admin.currency-heat.enabled", havingValue = "true")
+public class CurrencyHeatController {
+
+    @Autowired
+    private CurrencyHeatTracker currencyHeatTracker;
+
+    @Value("${admin.token:}")
+    private String token;
+
+    @PostConstruct
+    void checkToken() {
+        AdminTokens.requireConfigured(token, "admin.token", "admin.currency-heat.enabled");
+    }
+
+    @GetMapping("/admin/currencies/heat")
+    public ResponseEntity<List<CurrencyHeat>> heat(@RequestHeader(name = AdminTokens.HEADER, required = false) String requestToken) {
+        if (!AdminTokens.matches(token, requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(currencyHeatTracker.table());
+    }
+}
@@ -0,0 +1,50 @@
+package com.ygorrodrigues.wexproject.controller;
+
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.ygorrodrigues.wexproject.service.ExportFormat;
+import com.ygorrodrigues.wexproject.service.PurchaseExportService;
+
+@RestController
+public class ExportController {
+
+    @Autowired
+    private PurchaseExportService purchaseExportService;
+
+    @GetMapping("/purchases/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(name = "format", defaultValue = "ndjson") String format,
+            @RequestParam(name = "afterId", required = false) Integer afterId,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (from != null && to != null && to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> purchaseExportService.export(exportFormat, afterId, from, to, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.mediaType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("purchases." + exportFormat.extension())
+                .build()
+                .toString())
+            .body(body);
+    }
+}
@@ -0,0 +1,117 @@
+package com.ygorrodrigues.wexproject.controller;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.ygorrodrigues.wexproject.models.RecordingStatus;
+import com.ygorrodrigues.wexproject.profiling.FlightRecorderService;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * On-demand Flight Recorder recordings. Only present with {@code profiling.jfr.enabled=true},
+ * and every request must carry {@code profiling.jfr.token} in the {@value #TOKEN_HEADER} header,
+ * since a dump shows what the process is doing in detail.
+ */
+@RestController
+@ConditionalOnProperty(name = "profiling.jfr.enabled", havingValue = "true")
+public class ProfilingController {
+
+    static final String TOKEN_HEADER = "X-Profiling-Token";
+
+    @Autowired
+    private FlightRecorderService flightRecorderService;
+
+    @Value("${profiling.jfr.token:}")
+    private String token;
+
+    @PostConstruct
+    void checkToken() {
+        AdminTokens.requireConfigured(token, "profiling.jfr.token", "profiling.jfr.enabled");
+    }
+
+    @PostMapping("/admin/profiling/recording")
+    public ResponseEntity<RecordingStatus> start(
+            @RequestHeader(name = TOKEN_HEADER, required = false) String requestToken,
+            @RequestParam(name = "maxAge", required = false) Duration maxAge,
+            @RequestParam(name = "maxSizeMb", required = false) Long maxSizeMb) {
+        if (!authorized(requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if ((maxAge != null && (maxAge.isNegative() || maxAge.isZero())) || (maxSizeMb != null && maxSizeMb <= 0)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(flightRecorderService.start(maxAge, maxSizeMb));
+    }
+
+    @DeleteMapping("/admin/profiling/recording")
+    public ResponseEntity<RecordingStatus> stop(@RequestHeader(name = TOKEN_HEADER, required = false) String requestToken) {
+        if (!authorized(requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.of(flightRecorderService.stop());
+    }
+
+    @GetMapping("/admin/profiling/recording")
+    public ResponseEntity<RecordingStatus> status(@RequestHeader(name = TOKEN_HEADER, required = false) String requestToken) {
+        if (!authorized(requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.of(flightRecorderService.status());
+    }
+
+    /**
+     * Streams a dump of the recording as a .jfr file, to be opened with JDK Mission Control or
+     * {@code jfr print}.
+     */
+    @GetMapping("/admin/profiling/recording/dump")
+    public ResponseEntity<StreamingResponseBody> dump(
+            @RequestHeader(name = TOKEN_HEADER, required = false) String requestToken) throws IOException {
+        if (!authorized(requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Optional<Path> dump = flightRecorderService.dump();
+        if (dump.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Path file = dump.get();
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .contentLength(Files.size(file))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(file.getFileName().toString())
+                .build()
+                .toString())
+            .body(body);
+    }
+
+    private boolean authorized(String requestToken) {
+        return AdminTokens.matches(token, requestToken);
+    }
+}
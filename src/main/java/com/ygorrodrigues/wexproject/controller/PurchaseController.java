@@ -1,48 +1,169 @@
 package com.ygorrodrigues.wexproject.controller;
 
-import com.ygorrodrigues.wexproject.exception.CurrencyNotFoundException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import com.ygorrodrigues.wexproject.exception.IdempotencyKeyReusedException;
+import com.ygorrodrigues.wexproject.handlers.Problems;
+import com.ygorrodrigues.wexproject.models.BatchExchangeRequest;
+import com.ygorrodrigues.wexproject.models.BatchExchangeResponse;
+import com.ygorrodrigues.wexproject.models.ConversionResult;
 import com.ygorrodrigues.wexproject.models.ExchangeRateResponse;
 import com.ygorrodrigues.wexproject.models.Purchase;
 import com.ygorrodrigues.wexproject.models.PurchaseRequest;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.service.BatchConversionService;
+import com.ygorrodrigues.wexproject.service.EagerConversionPipeline;
 import com.ygorrodrigues.wexproject.service.ExchangeRateService;
+import com.ygorrodrigues.wexproject.service.IdempotencyKeyStore;
 import com.ygorrodrigues.wexproject.service.PurchaseService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 public class PurchaseController {
     
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    
     @Autowired
     private PurchaseService purchaseService;
     
     @Autowired
     private ExchangeRateService exchangeRateService;
     
+    @Autowired
+    private BatchConversionService batchConversionService;
+    
+    @Autowired
+    private IdempotencyKeyStore idempotencyKeyStore;
+    
+    @Autowired
+    private EagerConversionPipeline eagerConversionPipeline;
+    
+    @Value("${http-cache.max-age-seconds:86400}")
+    private long cacheMaxAgeSeconds;
+    
+    /**
+     * Creates a purchase. With an {@code Idempotency-Key} header, a retry of the same request
+     * returns the purchase stored by the first one, marked with {@code Idempotent-Replayed: true},
+     * and concurrent requests with the key only insert once.
+     */
     @PostMapping("/purchase")
-    public ResponseEntity<Purchase> purchase(@Valid @RequestBody PurchaseRequest purchaseRequest) {
-        Purchase savedPurchase = purchaseService.processPurchase(purchaseRequest);
-        return ResponseEntity.ok(savedPurchase);
+    public ResponseEntity<?> purchase(@Valid @RequestBody PurchaseRequest purchaseRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(purchaseService.processPurchase(purchaseRequest));
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return Problems.badRequest("Invalid idempotency key",
+                IDEMPOTENCY_KEY + " must have between 1 and " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        
+        IdempotencyKeyStore.Outcome<Purchase> outcome;
+        try {
+            outcome = idempotencyKeyStore.execute(idempotencyKey, PurchaseFingerprint.of(purchaseRequest),
+                () -> purchaseService.processPurchase(purchaseRequest));
+        } catch (IdempotencyKeyReusedException e) {
+            return Problems.unprocessable("Idempotency key reused", e.getMessage());
+        }
+        return ResponseEntity.ok()
+            .header(IDEMPOTENT_REPLAYED, Boolean.toString(outcome.replayed()))
+            .body(outcome.result());
+    }
+    
+    @GetMapping("/purchase/{id}")
+    public ResponseEntity<Purchase> getPurchase(@PathVariable("id") Integer id, WebRequest webRequest) {
+        Purchase purchase = purchaseService.findById(id);
+        if (purchase == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        String etag = PurchaseEtags.forPurchase(purchase);
+        if (webRequest.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(cacheControl())
+            .body(purchase);
     }
     
     @GetMapping("/purchase/{id}/exchange")
     public ResponseEntity<?> getExchangeRate(
             @PathVariable("id") Integer id,
-            @RequestParam("countryCurrency") String countryCurrency) {
+            @RequestParam("countryCurrency") String countryCurrency,
+            WebRequest webRequest) {
         
-        Purchase purchase = purchaseService.findById(id);
+        PurchaseView purchase = purchaseService.findViewById(id);
         if (purchase == null) {
             return ResponseEntity.notFound().build();
         }
         
-        try {
-            ExchangeRateResponse response = exchangeRateService.calculateExchangeRate(countryCurrency, purchase);
-            return ResponseEntity.ok(response);
-        } catch (CurrencyNotFoundException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body("Error: " + e.getMessage());
+        // Currencies converted eagerly at creation are read back instead of converted again
+        ConversionResult result = eagerConversionPipeline.findPrecomputed(purchase, countryCurrency)
+            .map(ConversionResult::converted)
+            .orElseGet(() -> exchangeRateService.tryConvert(countryCurrency, purchase));
+        return switch (result) {
+            case ConversionResult.Converted converted -> conversion(purchase, countryCurrency, converted.response(), webRequest);
+            case ConversionResult.Failed failed -> Problems.conversionFailed(failed);
+        };
+    }
+    
+    /**
+     * Rates can be revised by a sync or a recompute, so the ETag covers the rate and caches have
+     * to revalidate before reusing a conversion. A match still skips serializing the body.
+     */
+    private ResponseEntity<ExchangeRateResponse> conversion(PurchaseView purchase, String countryCurrency,
+            ExchangeRateResponse response, WebRequest webRequest) {
+        String etag = PurchaseEtags.forExchange(purchase, countryCurrency, response.getExchangeRate());
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePublic())
+                .build();
+        }
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache().cachePublic())
+            .body(response);
+    }
+    
+    @PostMapping("/purchases/exchange")
+    public ResponseEntity<BatchExchangeResponse> convertPurchases(@Valid @RequestBody BatchExchangeRequest request) {
+        BatchExchangeResponse response = batchConversionService.convertAll(request.getCountryCurrency(), request.getIds());
+        return ResponseEntity.ok(response);
+    }
+    
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(etag)
+            .cacheControl(cacheControl())
+            .build();
+    }
+    
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(cacheMaxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+    }
+
+    
+    /**
+     * Fields that make two purchase requests the same, with the amount rounded as it is stored.
+     */
+    private record PurchaseFingerprint(String description, BigDecimal amount, LocalDate transactionDate) {
+        
+        private static PurchaseFingerprint of(PurchaseRequest request) {
+            return new PurchaseFingerprint(request.getDescription(),
+                request.getAmount().setScale(2, RoundingMode.HALF_UP), request.getTransactionDate());
         }
     }
 }
@@ -0,0 +1,59 @@
+package com.ygorrodrigues.wexproject.controller;
+
+import java.math.BigDecimal;
+
+import com.ygorrodrigues.wexproject.models.Purchase;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+
+/**
+ * Strong ETags for purchase reads, computed from the purchase fields instead of the response body,
+ * so a matching If-None-Match can be answered without serializing the response. Conversions also
+ * depend on the exchange rate, which a sync or a recompute can revise, so their tag includes it.
+ * Bump the version prefix whenever the response format changes.
+ */
+final class PurchaseEtags {
+
+    private static final String PURCHASE_VERSION = "p1-";
+    private static final String EXCHANGE_VERSION = "x2-";
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private PurchaseEtags() {
+    }
+
+    static String forPurchase(Purchase purchase) {
+        return PURCHASE_VERSION + Long.toHexString(fingerprint(PurchaseView.from(purchase)));
+    }
+
+    static String forExchange(PurchaseView purchase, String countryCurrency, BigDecimal exchangeRate) {
+        long hash = hash(fingerprint(purchase), countryCurrency);
+        BigDecimal rate = exchangeRate.stripTrailingZeros(); // 1.430000 read back from storage is 1.43
+        hash = hash(hash, rate.unscaledValue().longValue());
+        hash = hash(hash, rate.scale());
+        return EXCHANGE_VERSION + Long.toHexString(hash);
+    }
+
+    private static long fingerprint(PurchaseView purchase) {
+        long hash = hash(FNV_OFFSET_BASIS, purchase.id());
+        hash = hash(hash, purchase.description());
+        BigDecimal amount = purchase.amount();
+        hash = hash(hash, amount.unscaledValue().longValue());
+        hash = hash(hash, amount.scale());
+        return hash(hash, purchase.transactionDate().toEpochDay());
+    }
+
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return (hash ^ 0xff) * FNV_PRIME; // separator, so "ab"+"c" differs from "a"+"bc"
+    }
+
+    private static long hash(long hash, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash ^ (value & 0xff)) * FNV_PRIME;
+            value >>>= 8;
+        }
+        return hash;
+    }
+}
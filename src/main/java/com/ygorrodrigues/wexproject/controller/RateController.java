@@ -0,0 +1,49 @@
+package com.ygorrodrigues.wexproject.controller;
+
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ygorrodrigues.wexproject.handlers.Problems;
+import com.ygorrodrigues.wexproject.models.RateSeriesResponse;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateSeries;
+import com.ygorrodrigues.wexproject.service.ExchangeRateService;
+import com.ygorrodrigues.wexproject.service.UpstreamPriority;
+
+@RestController
+public class RateController {
+
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    /**
+     * Rates of a currency between {@code from} (default: one year before {@code to}) and
+     * {@code to} (default and latest: today), both inclusive. A currency without any known
+     * rate is a 404.
+     */
+    @GetMapping("/rates/{countryCurrency}")
+    public ResponseEntity<?> getRates(
+            @PathVariable("countryCurrency") String countryCurrency,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate today = LocalDate.now();
+        LocalDate end = to == null || to.isAfter(today) ? today : to;
+        LocalDate start = from == null ? end.minusYears(1) : from;
+        if (end.isBefore(start)) {
+            return Problems.badRequest("Invalid date range", "'from' must not be after 'to'");
+        }
+
+        ExchangeRateSeries series = exchangeRateService.getExchangeRateSeries(countryCurrency, start, end,
+            UpstreamPriority.INTERACTIVE);
+        if (series.isEmpty()) {
+            return Problems.notFound("Currency not found", "No exchange rates found for currency: " + countryCurrency);
+        }
+        return ResponseEntity.ok(new RateSeriesResponse(countryCurrency, start, end, series.range(start, end)));
+    }
+}
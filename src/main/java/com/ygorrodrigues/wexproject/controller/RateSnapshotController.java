@@ -0,0 +1,41 @@
+package com.ygorrodrigues.wexproject.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.ygorrodrigues.wexproject.models.RateSnapshot;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateStore;
+
+@RestController
+public class RateSnapshotController {
+
+    @Autowired
+    private ExchangeRateStore exchangeRateStore;
+
+    /**
+     * Rates changed after the {@code since} version tag, or every rate without one. The ETag is the
+     * version tag of the returned snapshot, so an up to date peer gets a 304.
+     */
+    @GetMapping("/internal/rates/snapshot")
+    public ResponseEntity<RateSnapshot> snapshot(
+            @RequestParam(name = "since", required = false) String since,
+            WebRequest webRequest) {
+        String etag = etag(exchangeRateStore.versionTag());
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        RateSnapshot snapshot = exchangeRateStore.snapshot(since);
+        return ResponseEntity.ok()
+            .eTag(etag(snapshot.versionTag()))
+            .body(snapshot);
+    }
+
+    private static String etag(String versionTag) {
+        return "\"" + versionTag + "\"";
+    }
+}
@@ -0,0 +1,30 @@
+package com.ygorrodrigues.wexproject.controller;
+
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ygorrodrigues.wexproject.models.PurchaseReport;
+import com.ygorrodrigues.wexproject.service.PurchaseReportService;
+
+@RestController
+public class ReportController {
+
+    @Autowired
+    private PurchaseReportService purchaseReportService;
+
+    @GetMapping("/purchases/report")
+    public ResponseEntity<PurchaseReport> report(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(purchaseReportService.summarize(from, to));
+    }
+}
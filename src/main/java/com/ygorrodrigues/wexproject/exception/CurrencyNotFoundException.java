@@ -1,12 +1,16 @@
 package com.ygorrodrigues.wexproject.exception;
 
+/**
+ * Thrown without a stack trace: it is an expected outcome of user input, and callers only
+ * ever read the message.
+ */
 public class CurrencyNotFoundException extends RuntimeException {
     
     public CurrencyNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
     
     public CurrencyNotFoundException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
 }
@@ -0,0 +1,13 @@
+package com.ygorrodrigues.wexproject.exception;
+
+/**
+ * Thrown without a stack trace: rejections happen in bursts under overload, when filling in
+ * stack traces costs the most.
+ */
+public class UpstreamRejectedException extends RuntimeException {
+    
+    public UpstreamRejectedException(String message) {
+        super(message, null, false, false);
+    }
+    
+}
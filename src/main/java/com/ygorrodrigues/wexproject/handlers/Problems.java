@@ -0,0 +1,53 @@
+package com.ygorrodrigues.wexproject.handlers;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+
+import com.ygorrodrigues.wexproject.models.ConversionResult;
+
+/**
+ * RFC 7807 {@code application/problem+json} error responses.
+ */
+public final class Problems {
+
+    private Problems() {
+    }
+
+    public static ResponseEntity<ProblemDetail> badRequest(String title, String detail) {
+        return ResponseEntity.of(problem(HttpStatus.BAD_REQUEST, title, detail)).build();
+    }
+
+    public static ResponseEntity<ProblemDetail> notFound(String title, String detail) {
+        return ResponseEntity.of(problem(HttpStatus.NOT_FOUND, title, detail)).build();
+    }
+
+    public static ResponseEntity<ProblemDetail> unprocessable(String title, String detail) {
+        return ResponseEntity.of(problem(HttpStatus.UNPROCESSABLE_ENTITY, title, detail)).build();
+    }
+
+    /**
+     * 503 with {@code Retry-After}, for requests turned away because the server or the Treasury
+     * API is overloaded.
+     */
+    public static ResponseEntity<ProblemDetail> overloaded(String detail) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(problem(HttpStatus.SERVICE_UNAVAILABLE, "Service overloaded", detail));
+    }
+
+    public static ResponseEntity<ProblemDetail> conversionFailed(ConversionResult.Failed failed) {
+        return switch (failed.failure()) {
+            case NO_RATE -> badRequest("Currency not convertible", failed.detail());
+            case UPSTREAM_FAILED -> badRequest("Exchange rate unavailable", failed.detail());
+            case UPSTREAM_BUSY -> overloaded(failed.detail());
+        };
+    }
+
+    private static ProblemDetail problem(HttpStatus status, String title, String detail) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(status, detail);
+        problem.setTitle(title);
+        return problem;
+    }
+}
@@ -0,0 +1,23 @@
+package com.ygorrodrigues.wexproject.handlers;
+
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import com.ygorrodrigues.wexproject.exception.CurrencyNotFoundException;
+import com.ygorrodrigues.wexproject.exception.UpstreamRejectedException;
+
+@ControllerAdvice
+public class UpstreamExceptionHandler {
+
+    @ExceptionHandler(UpstreamRejectedException.class)
+    public ResponseEntity<ProblemDetail> handleUpstreamRejected(UpstreamRejectedException ex) {
+        return Problems.overloaded(ex.getMessage());
+    }
+
+    @ExceptionHandler(CurrencyNotFoundException.class)
+    public ResponseEntity<ProblemDetail> handleCurrencyNotFound(CurrencyNotFoundException ex) {
+        return Problems.badRequest("Exchange rate unavailable", ex.getMessage());
+    }
+}
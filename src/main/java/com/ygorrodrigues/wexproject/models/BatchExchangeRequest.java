@@ -0,0 +1,27 @@
+package com.ygorrodrigues.wexproject.models;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchExchangeRequest {
+    
+    @NotEmpty(message = "At least one purchase id is required")
+    @Size(max = 1000, message = "At most 1000 purchase ids can be converted at once")
+    private List<@NotNull(message = "Purchase ids cannot be null") Integer> ids;
+    
+    @NotBlank(message = "Country currency is required")
+    private String countryCurrency;
+    
+}
@@ -0,0 +1,9 @@
+package com.ygorrodrigues.wexproject.models;
+
+import java.util.List;
+
+/**
+ * Results of a batch conversion, one per distinct requested id, in request order.
+ */
+public record BatchExchangeResponse(String countryCurrency, List<BatchExchangeResult> results) {
+}
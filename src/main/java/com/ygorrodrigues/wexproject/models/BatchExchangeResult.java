@@ -0,0 +1,18 @@
+package com.ygorrodrigues.wexproject.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome for one id of a batch conversion: either the conversion or an error message.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchExchangeResult(Integer id, ExchangeRateResponse conversion, String error) {
+
+    public static BatchExchangeResult converted(Integer id, ExchangeRateResponse conversion) {
+        return new BatchExchangeResult(id, conversion, null);
+    }
+
+    public static BatchExchangeResult failed(Integer id, String error) {
+        return new BatchExchangeResult(id, null, error);
+    }
+}
@@ -0,0 +1,47 @@
+package com.ygorrodrigues.wexproject.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Id;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Column;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Id range of purchases whose conversions into a currency were fully recomputed by the
+ * current recompute job, from the rates with the given fingerprint. Rows are written with
+ * JDBC; the entity only defines the table.
+ */
+@Entity
+@Table(name = "conversion_checkpoints",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"country_currency", "chunk_start"}))
+@Getter
+@NoArgsConstructor
+public class ConversionCheckpoint {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String countryCurrency;
+    
+    @Column(nullable = false)
+    private Integer chunkStart;
+    
+    @Column(nullable = false)
+    private Integer chunkSize;
+    
+    @Column(nullable = false)
+    private Long ratesFingerprint;
+    
+    @Column(nullable = false)
+    private Instant completedAt;
+    
+}
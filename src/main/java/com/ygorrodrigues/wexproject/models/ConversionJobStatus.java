@@ -0,0 +1,19 @@
+package com.ygorrodrigues.wexproject.models;
+
+import java.time.Instant;
+
+/**
+ * Progress of a conversion recompute job. {@code finishedAt} and {@code error} are null while it runs.
+ */
+public record ConversionJobStatus(
+        String countryCurrency,
+        String state,
+        int chunksTotal,
+        int chunksDone,
+        long rowsWritten,
+        long rowsSkipped,
+        double rowsPerSecond,
+        Instant startedAt,
+        Instant finishedAt,
+        String error) {
+}
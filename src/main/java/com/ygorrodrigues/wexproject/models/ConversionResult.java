@@ -0,0 +1,31 @@
+package com.ygorrodrigues.wexproject.models;
+
+/**
+ * Outcome of converting one purchase. Failures are values rather than exceptions, so requests
+ * for unknown currencies cost no stack trace on the conversion path.
+ */
+public sealed interface ConversionResult {
+
+    enum Failure {
+        /** The currency has no rate in the 6 months before the purchase. */
+        NO_RATE,
+        /** The Treasury API call failed. */
+        UPSTREAM_FAILED,
+        /** The upstream call waited too long for a permit of the request scheduler. */
+        UPSTREAM_BUSY
+    }
+
+    record Converted(ExchangeRateResponse response) implements ConversionResult {
+    }
+
+    record Failed(Failure failure, String detail) implements ConversionResult {
+    }
+
+    static ConversionResult converted(ExchangeRateResponse response) {
+        return new Converted(response);
+    }
+
+    static ConversionResult failed(Failure failure, String detail) {
+        return new Failed(failure, detail);
+    }
+}
@@ -0,0 +1,9 @@
+package com.ygorrodrigues.wexproject.models;
+
+import java.time.Instant;
+
+/**
+ * Decayed request count of a currency. {@code prefetchedAt} is null until its rates were prefetched.
+ */
+public record CurrencyHeat(String countryCurrency, double heat, Instant prefetchedAt) {
+}
@@ -1,11 +1,15 @@
 package com.ygorrodrigues.wexproject.models;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Table;
+import jakarta.persistence.Index;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
+import com.ygorrodrigues.wexproject.repository.PurchaseColumnStoreListener;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -15,7 +19,8 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "purchases")
+@EntityListeners(PurchaseColumnStoreListener.class)
+@Table(name = "purchases", indexes = @Index(name = "ix_purchases_transaction_date", columnList = "transaction_date"))
 @Getter
 @Builder
 @AllArgsConstructor
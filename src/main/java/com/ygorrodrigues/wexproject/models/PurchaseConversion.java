@@ -0,0 +1,52 @@
+package com.ygorrodrigues.wexproject.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Id;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Column;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Stored conversion of one purchase into one currency. Rows are written with JDBC by
+ * {@code PurchaseConversionRepository}; the entity only defines the table.
+ */
+@Entity
+@Table(name = "purchase_conversions",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"purchase_id", "country_currency"}))
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PurchaseConversion {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Integer purchaseId;
+    
+    @Column(nullable = false)
+    private String countryCurrency;
+    
+    @Column(nullable = false, precision = 19, scale = 6)
+    private BigDecimal exchangeRate;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal convertedAmount;
+    
+    @Column(nullable = false)
+    private Instant computedAt;
+    
+}
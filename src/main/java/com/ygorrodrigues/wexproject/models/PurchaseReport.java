@@ -0,0 +1,10 @@
+package com.ygorrodrigues.wexproject.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Aggregate of the purchases made between two dates, inclusive. {@code maxAmount} is null when there are none.
+ */
+public record PurchaseReport(LocalDate from, LocalDate to, long count, BigDecimal totalAmount, BigDecimal maxAmount) {
+}
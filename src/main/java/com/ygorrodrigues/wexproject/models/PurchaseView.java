@@ -0,0 +1,15 @@
+package com.ygorrodrigues.wexproject.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only copy of a purchase row, used on read paths that don't need a managed entity.
+ */
+public record PurchaseView(Integer id, String description, BigDecimal amount, LocalDate transactionDate) {
+
+    public static PurchaseView from(Purchase purchase) {
+        return new PurchaseView(purchase.getId(), purchase.getDescription(), purchase.getAmount(), purchase.getTransactionDate());
+    }
+
+}
@@ -0,0 +1,10 @@
+package com.ygorrodrigues.wexproject.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One published exchange rate of a currency.
+ */
+public record RatePoint(LocalDate recordDate, BigDecimal exchangeRate) {
+}
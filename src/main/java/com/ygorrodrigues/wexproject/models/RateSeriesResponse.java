@@ -0,0 +1,10 @@
+package com.ygorrodrigues.wexproject.models;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Rates of a currency recorded between two dates, inclusive, oldest first.
+ */
+public record RateSeriesResponse(String countryCurrency, LocalDate from, LocalDate to, List<RatePoint> rates) {
+}
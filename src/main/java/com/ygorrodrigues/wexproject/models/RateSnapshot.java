@@ -0,0 +1,28 @@
+package com.ygorrodrigues.wexproject.models;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Exchange rates and coverage windows of one instance, either all of them ({@code full}) or only
+ * those changed after the version a peer asked from. {@code version} is the store version the
+ * snapshot was taken at; {@link #versionTag()} is what a peer sends back on its next pull.
+ */
+public record RateSnapshot(String storeId, long version, boolean full, List<Rate> rates, List<Coverage> coverage) {
+
+    public record Rate(String countryCurrency, LocalDate recordDate, BigDecimal exchangeRate) {
+    }
+
+    public record Coverage(String countryCurrency, LocalDate from, LocalDate to, Instant fetchedAt) {
+    }
+
+    public String versionTag() {
+        return versionTag(storeId, version);
+    }
+
+    public static String versionTag(String storeId, long version) {
+        return storeId + ":" + version;
+    }
+}
@@ -0,0 +1,17 @@
+package com.ygorrodrigues.wexproject.models;
+
+import java.time.Instant;
+
+/**
+ * State of the on-demand Flight Recorder recording. {@code state} is one of the
+ * {@code jdk.jfr.RecordingState} names and {@code sizeBytes} is what a dump would hold.
+ */
+public record RecordingStatus(
+        String state,
+        String settings,
+        Instant startedAt,
+        long maxAgeSeconds,
+        long maxSizeBytes,
+        long eventThresholdMillis,
+        long sizeBytes) {
+}
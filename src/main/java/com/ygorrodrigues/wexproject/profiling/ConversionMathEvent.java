@@ -0,0 +1,20 @@
+package com.ygorrodrigues.wexproject.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for converting a purchase amount once its rate is known.
+ */
+@Name("com.ygorrodrigues.wexproject.ConversionMath")
+@Label("Conversion Math")
+@Category({"WEX Project", "Conversion"})
+@Description("Conversion of a purchase amount and construction of the response")
+public class ConversionMathEvent extends Event {
+
+    @Label("Currency")
+    public String countryCurrency;
+}
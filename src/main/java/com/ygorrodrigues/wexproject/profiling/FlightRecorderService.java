@@ -0,0 +1,160 @@
+package com.ygorrodrigues.wexproject.profiling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.ygorrodrigues.wexproject.models.RecordingStatus;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * One continuous Flight Recorder recording that is started, stopped and dumped on demand.
+ *
+ * The recording uses the JDK settings named by {@code profiling.jfr.settings} ({@code default}
+ * costs around 1% of throughput, {@code profile} more) plus the application events of this
+ * package, and keeps at most the last {@code max-age} and {@code max-size-mb} of data on disk,
+ * so it can be left running. A stopped recording keeps its data until the next one starts.
+ *
+ * The JDK events that copy the environment, the system properties, the JVM arguments and the
+ * command lines of other processes are turned off whatever the settings say, so a dump does not
+ * carry the datasource password or other secrets passed that way.
+ */
+@Service
+@ConditionalOnProperty(name = "profiling.jfr.enabled", havingValue = "true")
+public class FlightRecorderService {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorderService.class);
+    private static final List<Class<? extends Event>> EVENTS =
+        List.of(PurchaseStorageEvent.class, RateLookupEvent.class, ConversionMathEvent.class);
+    private static final List<String> SECRET_EVENTS = List.of(
+        "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation", "jdk.SystemProcess");
+
+    private final String settings;
+    private final Configuration configuration;
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+    private final Duration eventThreshold;
+    private final Path dumpDirectory;
+
+    private Recording recording; // guarded by this
+    private Instant startedAt; // guarded by this
+    private Duration recordingMaxAge; // guarded by this
+    private long recordingMaxSizeBytes; // guarded by this
+
+    public FlightRecorderService(
+            @Value("${profiling.jfr.settings:default}") String settings,
+            @Value("${profiling.jfr.max-age:PT30M}") Duration maxAge,
+            @Value("${profiling.jfr.max-size-mb:256}") long maxSizeMb,
+            @Value("${profiling.jfr.event-threshold:PT0S}") Duration eventThreshold,
+            @Value("${profiling.jfr.dump-directory:}") String dumpDirectory) throws IOException, ParseException {
+        this.settings = settings;
+        this.configuration = Configuration.getConfiguration(settings);
+        this.maxAge = maxAge;
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.eventThreshold = eventThreshold;
+        this.dumpDirectory = Path.of(dumpDirectory.isBlank() ? System.getProperty("java.io.tmpdir") : dumpDirectory);
+    }
+
+    /**
+     * Starts a recording, keeping the requested age and size within the configured maximums.
+     * A running recording is left as it is.
+     */
+    public synchronized RecordingStatus start(Duration requestedMaxAge, Long requestedMaxSizeMb) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return status().orElseThrow();
+        }
+        close();
+
+        Recording started = new Recording(configuration);
+        started.setName("wexproject");
+        started.setToDisk(true);
+        recordingMaxAge = requestedMaxAge == null || requestedMaxAge.compareTo(maxAge) > 0 ? maxAge : requestedMaxAge;
+        recordingMaxSizeBytes = requestedMaxSizeMb == null ? maxSizeBytes : Math.min(maxSizeBytes, requestedMaxSizeMb * 1024 * 1024);
+        started.setMaxAge(recordingMaxAge);
+        started.setMaxSize(recordingMaxSizeBytes);
+        for (Class<? extends Event> event : EVENTS) {
+            started.enable(event).withThreshold(eventThreshold);
+        }
+        for (String event : SECRET_EVENTS) {
+            started.disable(event);
+        }
+        started.start();
+        recording = started;
+        startedAt = Instant.now();
+        log.info("Flight recording started with {} settings, keeping at most {} and {} bytes",
+            settings, recordingMaxAge, recordingMaxSizeBytes);
+        return status().orElseThrow();
+    }
+
+    /**
+     * Stops the running recording, keeping its data for {@link #dump()}. Empty when no recording
+     * was started.
+     */
+    public synchronized Optional<RecordingStatus> stop() {
+        if (recording == null) {
+            return Optional.empty();
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("Flight recording stopped");
+        }
+        return status();
+    }
+
+    public synchronized Optional<RecordingStatus> status() {
+        if (recording == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new RecordingStatus(
+            recording.getState().name(),
+            settings,
+            startedAt,
+            recordingMaxAge.toSeconds(),
+            recordingMaxSizeBytes,
+            eventThreshold.toMillis(),
+            recording.getSize()));
+    }
+
+    /**
+     * Writes the data of the current recording to a new file in the dump directory, or empty when
+     * no recording was started. The caller deletes the file.
+     */
+    public synchronized Optional<Path> dump() throws IOException {
+        if (recording == null) {
+            return Optional.empty();
+        }
+        Files.createDirectories(dumpDirectory);
+        Path file = Files.createTempFile(dumpDirectory, "wexproject-", ".jfr");
+        try {
+            recording.dump(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return Optional.of(file);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.ygorrodrigues.wexproject.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one purchase save or lookup. The duration covers the database call
+ * and, for lookups that miss the table, the archive read.
+ */
+@Name("com.ygorrodrigues.wexproject.PurchaseStorage")
+@Label("Purchase Storage")
+@Category({"WEX Project", "Purchases"})
+@Description("Purchase saved to or read from the database")
+public class PurchaseStorageEvent extends Event {
+
+    public static final String SAVE = "save";
+    public static final String FIND = "find";
+    public static final String FIND_VIEW = "find_view";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Purchase Id")
+    public int purchaseId;
+
+    @Label("Found")
+    public boolean found;
+}
@@ -0,0 +1,35 @@
+package com.ygorrodrigues.wexproject.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one exchange rate lookup, with where the rate came from: the
+ * in-memory store, a batched upstream query or a single upstream request.
+ */
+@Name("com.ygorrodrigues.wexproject.RateLookup")
+@Label("Rate Lookup")
+@Category({"WEX Project", "Conversion"})
+@Description("Exchange rate lookup for a purchase date")
+public class RateLookupEvent extends Event {
+
+    public static final String STORE = "store";
+    public static final String BATCHED = "batched";
+    public static final String UPSTREAM = "upstream";
+
+    @Label("Currency")
+    public String countryCurrency;
+
+    @Label("Priority")
+    public String priority;
+
+    @Label("Source")
+    @Description("store when the rate was answered from memory, batched or upstream when the Treasury API was called")
+    public String source;
+
+    @Label("Found")
+    public boolean found;
+}
@@ -0,0 +1,323 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+
+/**
+ * Immutable file of archived purchases, sorted by id.
+ *
+ * Rows are grouped in blocks of {@link #BLOCK_ROWS} and each block is deflated on its own. A
+ * sparse index at the end of the file has one entry per block with its id range, transaction
+ * date range and position, and is read into memory when the segment is opened. A lookup by id
+ * inflates one block, and a scan skips the blocks outside its id and date range.
+ *
+ * Layout: the blocks, then the index (per block: first id, last id, min and max epoch day, row
+ * count, offset, length), then a footer with the index offset, block count, row count and a
+ * magic number. Rows are an int id, an int epoch day, a long amount in cents and the
+ * description in modified UTF-8.
+ */
+final class ArchiveSegment implements Closeable {
+
+    static final int BLOCK_ROWS = 256;
+
+    private static final int MAGIC = 0x50415243;
+    private static final int INDEX_ENTRY_BYTES = 5 * Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int FOOTER_BYTES = Long.BYTES + 3 * Integer.BYTES;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int rows;
+    private final int[] firstIds;
+    private final int[] lastIds;
+    private final int[] minDays;
+    private final int[] maxDays;
+    private final int[] rowCounts;
+    private final long[] offsets;
+    private final int[] lengths;
+
+    private ArchiveSegment(Path file, FileChannel channel, int blocks, int rows, ByteBuffer index) {
+        this.file = file;
+        this.channel = channel;
+        this.rows = rows;
+        this.firstIds = new int[blocks];
+        this.lastIds = new int[blocks];
+        this.minDays = new int[blocks];
+        this.maxDays = new int[blocks];
+        this.rowCounts = new int[blocks];
+        this.offsets = new long[blocks];
+        this.lengths = new int[blocks];
+        for (int b = 0; b < blocks; b++) {
+            firstIds[b] = index.getInt();
+            lastIds[b] = index.getInt();
+            minDays[b] = index.getInt();
+            maxDays[b] = index.getInt();
+            rowCounts[b] = index.getInt();
+            offsets[b] = index.getLong();
+            lengths[b] = index.getInt();
+        }
+    }
+
+    /**
+     * Writes the purchases, which must be sorted by id without duplicates, to a new segment
+     * file. The file is written under a temporary name, forced to disk and then renamed, so a
+     * segment file is either complete or absent.
+     */
+    static ArchiveSegment write(Path file, List<PurchaseView> purchases) throws IOException {
+        if (purchases.isEmpty()) {
+            throw new IllegalArgumentException("A segment needs at least one purchase");
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        int blocks = (purchases.size() + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        ByteBuffer index = ByteBuffer.allocate(blocks * INDEX_ENTRY_BYTES + FOOTER_BYTES);
+        try (FileChannel out = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long offset = 0;
+            Integer previousId = null;
+            for (int start = 0; start < purchases.size(); start += BLOCK_ROWS) {
+                List<PurchaseView> block = purchases.subList(start, Math.min(start + BLOCK_ROWS, purchases.size()));
+                int minDay = Integer.MAX_VALUE;
+                int maxDay = Integer.MIN_VALUE;
+                for (PurchaseView purchase : block) {
+                    if (previousId != null && purchase.id() <= previousId) {
+                        throw new IllegalArgumentException("Purchases are not sorted by id at id " + purchase.id());
+                    }
+                    previousId = purchase.id();
+                    int day = (int) purchase.transactionDate().toEpochDay();
+                    minDay = Math.min(minDay, day);
+                    maxDay = Math.max(maxDay, day);
+                }
+                byte[] compressed = compress(block);
+                writeFully(out, ByteBuffer.wrap(compressed));
+                index.putInt(block.get(0).id())
+                    .putInt(block.get(block.size() - 1).id())
+                    .putInt(minDay)
+                    .putInt(maxDay)
+                    .putInt(block.size())
+                    .putLong(offset)
+                    .putInt(compressed.length);
+                offset += compressed.length;
+            }
+            index.putLong(offset).putInt(blocks).putInt(purchases.size()).putInt(MAGIC);
+            writeFully(out, index.flip());
+            out.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        return open(file);
+    }
+
+    static ArchiveSegment open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < FOOTER_BYTES) {
+                throw new IOException("Not an archive segment: " + file);
+            }
+            ByteBuffer footer = read(channel, size - FOOTER_BYTES, FOOTER_BYTES);
+            long indexOffset = footer.getLong();
+            int blocks = footer.getInt();
+            int rows = footer.getInt();
+            if (footer.getInt() != MAGIC || indexOffset + (long) blocks * INDEX_ENTRY_BYTES + FOOTER_BYTES != size) {
+                throw new IOException("Not an archive segment: " + file);
+            }
+            return new ArchiveSegment(file, channel, blocks, rows, read(channel, indexOffset, blocks * INDEX_ENTRY_BYTES));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    int firstId() {
+        return firstIds[0];
+    }
+
+    int lastId() {
+        return lastIds[lastIds.length - 1];
+    }
+
+    Optional<PurchaseView> find(int id) {
+        if (id < firstId() || id > lastId()) {
+            return Optional.empty();
+        }
+        int block = firstBlockEndingAtOrAfter(id);
+        if (firstIds[block] > id) {
+            return Optional.empty();
+        }
+        for (PurchaseView purchase : readBlock(block)) {
+            if (purchase.id() == id) {
+                return Optional.of(purchase);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Purchases with an id above {@code afterId} and a transaction date between the epoch days,
+     * inclusive, in id order. Blocks are read as the cursor reaches them.
+     */
+    Iterator<PurchaseView> cursor(int afterId, int fromDay, int toDay) {
+        return new Cursor(afterId, fromDay, toDay);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Index of the first block whose last id is at least {@code id}, or the block count.
+     */
+    private int firstBlockEndingAtOrAfter(int id) {
+        int low = 0;
+        int high = lastIds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (lastIds[middle] < id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private List<PurchaseView> readBlock(int block) {
+        List<PurchaseView> purchases = new ArrayList<>(rowCounts[block]);
+        Inflater inflater = new Inflater();
+        try (DataInputStream data = new DataInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(read(channel, offsets[block], lengths[block]).array()), inflater))) {
+            for (int i = 0; i < rowCounts[block]; i++) {
+                int id = data.readInt();
+                int epochDay = data.readInt();
+                long cents = data.readLong();
+                purchases.add(new PurchaseView(id, data.readUTF(), BigDecimal.valueOf(cents, 2), LocalDate.ofEpochDay(epochDay)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read block " + block + " of " + file, e);
+        } finally {
+            inflater.end();
+        }
+        return purchases;
+    }
+
+    private static byte[] compress(List<PurchaseView> block) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream data = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            for (PurchaseView purchase : block) {
+                data.writeInt(purchase.id());
+                data.writeInt((int) purchase.transactionDate().toEpochDay());
+                data.writeLong(purchase.amount().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+                data.writeUTF(purchase.description());
+            }
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Archive segment ends before position " + (position + length));
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private final class Cursor implements Iterator<PurchaseView> {
+        private final int afterId;
+        private final int fromDay;
+        private final int toDay;
+        private int block;
+        private List<PurchaseView> rowsOfBlock = List.of();
+        private int row;
+        private PurchaseView next;
+
+        private Cursor(int afterId, int fromDay, int toDay) {
+            this.afterId = afterId;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.block = afterId == Integer.MAX_VALUE ? lastIds.length : firstBlockEndingAtOrAfter(afterId + 1);
+            this.next = advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public PurchaseView next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            PurchaseView current = next;
+            next = advance();
+            return current;
+        }
+
+        private PurchaseView advance() {
+            while (true) {
+                while (row < rowsOfBlock.size()) {
+                    PurchaseView purchase = rowsOfBlock.get(row++);
+                    int day = (int) purchase.transactionDate().toEpochDay();
+                    if (purchase.id() > afterId && day >= fromDay && day <= toDay) {
+                        return purchase;
+                    }
+                }
+                while (block < lastIds.length && (maxDays[block] < fromDay || minDays[block] > toDay)) {
+                    block++;
+                }
+                if (block == lastIds.length) {
+                    return null;
+                }
+                rowsOfBlock = readBlock(block++);
+                row = 0;
+            }
+        }
+    }
+}
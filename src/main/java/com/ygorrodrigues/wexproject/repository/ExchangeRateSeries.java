@@ -0,0 +1,156 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+
+import com.ygorrodrigues.wexproject.models.RatePoint;
+
+/**
+ * Immutable rates of one currency in parallel arrays sorted by record date (as epoch days).
+ * Safe to share between threads; lookups and range scans are binary searches over the dates.
+ * Changes produce a new series. Each rate also carries the {@link ExchangeRateStore} version
+ * that last changed it (0 for series built with {@link #of}).
+ */
+public final class ExchangeRateSeries {
+
+    static final ExchangeRateSeries EMPTY = new ExchangeRateSeries(new int[0], new BigDecimal[0], new long[0]);
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int[] epochDays;
+    private final BigDecimal[] rates;
+    private final long[] versions;
+
+    private ExchangeRateSeries(int[] epochDays, BigDecimal[] rates, long[] versions) {
+        this.epochDays = epochDays;
+        this.rates = rates;
+        this.versions = versions;
+    }
+
+    /**
+     * Copies rates keyed by record date as epoch days.
+     */
+    public static ExchangeRateSeries of(NavigableMap<Integer, BigDecimal> series) {
+        if (series.isEmpty()) {
+            return EMPTY;
+        }
+        int[] epochDays = new int[series.size()];
+        BigDecimal[] rates = new BigDecimal[series.size()];
+        int i = 0;
+        for (Map.Entry<Integer, BigDecimal> entry : series.entrySet()) {
+            epochDays[i] = entry.getKey();
+            rates[i++] = entry.getValue();
+        }
+        return new ExchangeRateSeries(epochDays, rates, new long[epochDays.length]);
+    }
+
+    /**
+     * Latest rate recorded between {@code from} and {@code to}, both inclusive.
+     */
+    public Optional<BigDecimal> findLatest(LocalDate from, LocalDate to) {
+        int index = floorIndex((int) to.toEpochDay());
+        if (index < 0 || epochDays[index] < from.toEpochDay()) {
+            return Optional.empty();
+        }
+        return Optional.of(rates[index]);
+    }
+
+    /**
+     * Rates recorded between {@code from} and {@code to}, both inclusive, oldest first.
+     */
+    public List<RatePoint> range(LocalDate from, LocalDate to) {
+        int start = floorIndex((int) from.toEpochDay() - 1) + 1;
+        int end = floorIndex((int) to.toEpochDay());
+        List<RatePoint> points = new ArrayList<>(Math.max(0, end - start + 1));
+        for (int i = start; i <= end; i++) {
+            points.add(new RatePoint(LocalDate.ofEpochDay(epochDays[i]), rates[i]));
+        }
+        return points;
+    }
+
+    /**
+     * Hash of the record dates and rates, equal for series holding the same rates whatever store
+     * versions they carry. A rate that only differs in scale (1.250 vs 1.25) hashes the same.
+     */
+    public long fingerprint() {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < epochDays.length; i++) {
+            BigDecimal rate = rates[i].stripTrailingZeros();
+            hash = (hash ^ epochDays[i]) * FNV_PRIME;
+            hash = (hash ^ rate.unscaledValue().longValue()) * FNV_PRIME;
+            hash = (hash ^ rate.scale()) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    public boolean isEmpty() {
+        return epochDays.length == 0;
+    }
+
+    public int size() {
+        return epochDays.length;
+    }
+
+    int epochDayAt(int index) {
+        return epochDays[index];
+    }
+
+    BigDecimal rateAt(int index) {
+        return rates[index];
+    }
+
+    long versionAt(int index) {
+        return versions[index];
+    }
+
+    /**
+     * Rate recorded on exactly that day, or null.
+     */
+    BigDecimal rateOn(int epochDay) {
+        int index = Arrays.binarySearch(epochDays, epochDay);
+        return index >= 0 ? rates[index] : null;
+    }
+
+    /**
+     * Copy of this series with the rate of the day set, inserted in date order if it is new.
+     */
+    ExchangeRateSeries with(int epochDay, BigDecimal rate, long version) {
+        int index = Arrays.binarySearch(epochDays, epochDay);
+        if (index >= 0) {
+            BigDecimal[] replacedRates = rates.clone();
+            long[] replacedVersions = versions.clone();
+            replacedRates[index] = rate;
+            replacedVersions[index] = version;
+            return new ExchangeRateSeries(epochDays, replacedRates, replacedVersions);
+        }
+        int insertAt = -index - 1;
+        int[] days = new int[epochDays.length + 1];
+        BigDecimal[] values = new BigDecimal[rates.length + 1];
+        long[] changedAt = new long[versions.length + 1];
+        System.arraycopy(epochDays, 0, days, 0, insertAt);
+        System.arraycopy(rates, 0, values, 0, insertAt);
+        System.arraycopy(versions, 0, changedAt, 0, insertAt);
+        days[insertAt] = epochDay;
+        values[insertAt] = rate;
+        changedAt[insertAt] = version;
+        System.arraycopy(epochDays, insertAt, days, insertAt + 1, epochDays.length - insertAt);
+        System.arraycopy(rates, insertAt, values, insertAt + 1, rates.length - insertAt);
+        System.arraycopy(versions, insertAt, changedAt, insertAt + 1, versions.length - insertAt);
+        return new ExchangeRateSeries(days, values, changedAt);
+    }
+
+    /**
+     * Index of the last record date on or before the day, or -1.
+     */
+    private int floorIndex(int epochDay) {
+        int index = Arrays.binarySearch(epochDays, epochDay);
+        return index >= 0 ? index : -index - 2;
+    }
+}
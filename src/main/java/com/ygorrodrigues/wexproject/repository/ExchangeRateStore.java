@@ -0,0 +1,186 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Repository;
+
+import com.ygorrodrigues.wexproject.models.RateSnapshot;
+
+/**
+ * In-memory copy of the Treasury exchange rates, keyed by country currency and record date
+ * (as epoch days). Filled by the background sync, the prefetcher and on-demand fetches.
+ *
+ * Each currency is held as an immutable {@link ExchangeRateSeries} that is replaced on every
+ * change, so readers get a consistent sorted snapshot without copying. Writes are rare (a sync
+ * or a fetch), reads happen on every lookup.
+ *
+ * A currency can also have coverage windows: record date ranges for which the store is known to
+ * hold every published rate, as of the time the window was fetched.
+ *
+ * Writes are serialized on the store and every change gets the next store version, so a peer can
+ * ask for only the rates and windows changed since the version it last saw. Versions restart
+ * with a new store id whenever the instance starts.
+ */
+@Repository
+public class ExchangeRateStore {
+
+    public enum UpsertResult { INSERTED, REVISED, UNCHANGED }
+
+    private static final int MAX_WINDOWS_PER_CURRENCY = 4;
+
+    private final Map<String, ExchangeRateSeries> rates = new ConcurrentHashMap<>();
+    private final Map<String, List<Coverage>> coverage = new ConcurrentHashMap<>();
+    private final String storeId = UUID.randomUUID().toString();
+    private long version; // guarded by this
+
+    /**
+     * Stores a rate, replacing the previous value for the same currency and date.
+     * A value that only differs in scale (1.250 vs 1.25) is not treated as a revision.
+     */
+    public synchronized UpsertResult upsert(String countryCurrency, int recordEpochDay, BigDecimal rate) {
+        ExchangeRateSeries current = series(countryCurrency);
+        BigDecimal previous = current.rateOn(recordEpochDay);
+        if (previous != null && previous.compareTo(rate) == 0) {
+            return UpsertResult.UNCHANGED;
+        }
+        rates.put(countryCurrency, current.with(recordEpochDay, rate, ++version));
+        return previous == null ? UpsertResult.INSERTED : UpsertResult.REVISED;
+    }
+
+    /**
+     * Latest rate recorded between {@code from} and {@code to}, both inclusive.
+     */
+    public Optional<BigDecimal> findLatest(String countryCurrency, LocalDate from, LocalDate to) {
+        return series(countryCurrency).findLatest(from, to);
+    }
+
+    /**
+     * Current rates of one currency, empty when the currency is unknown.
+     */
+    public ExchangeRateSeries series(String countryCurrency) {
+        return rates.getOrDefault(countryCurrency, ExchangeRateSeries.EMPTY);
+    }
+
+    public Set<String> currencies() {
+        return rates.keySet();
+    }
+
+    /**
+     * Records that every rate of the currency between {@code from} and {@code to} was stored as of
+     * {@code fetchedAt}. Windows inside the new one are dropped, and only the most recently fetched
+     * windows of a currency are kept. Nothing changes if a window fetched at the same time or later
+     * already contains the range.
+     */
+    public synchronized void markCovered(String countryCurrency, LocalDate from, LocalDate to, Instant fetchedAt) {
+        int fromEpochDay = (int) from.toEpochDay();
+        int toEpochDay = (int) to.toEpochDay();
+        List<Coverage> windows = coverage.getOrDefault(countryCurrency, List.of());
+        for (Coverage existing : windows) {
+            if (existing.contains(fromEpochDay, toEpochDay) && !existing.fetchedAt().isBefore(fetchedAt)) {
+                return;
+            }
+        }
+
+        Coverage window = new Coverage(fromEpochDay, toEpochDay, fetchedAt, ++version);
+        List<Coverage> kept = new ArrayList<>();
+        kept.add(window);
+        for (Coverage existing : windows) {
+            if (!window.contains(existing.fromEpochDay(), existing.toEpochDay())) {
+                kept.add(existing);
+            }
+        }
+        kept.sort(Comparator.comparing(Coverage::fetchedAt).reversed());
+        coverage.put(countryCurrency, List.copyOf(kept.subList(0, Math.min(MAX_WINDOWS_PER_CURRENCY, kept.size()))));
+    }
+
+    /**
+     * Whether a window of the currency fetched after {@code freshAfter} contains {@code from..to}.
+     */
+    public boolean isCovered(String countryCurrency, LocalDate from, LocalDate to, Instant freshAfter) {
+        List<Coverage> windows = coverage.get(countryCurrency);
+        if (windows == null) {
+            return false;
+        }
+        for (Coverage window : windows) {
+            if (window.fetchedAt().isAfter(freshAfter) && window.contains((int) from.toEpochDay(), (int) to.toEpochDay())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return rates.values().stream().mapToInt(ExchangeRateSeries::size).sum();
+    }
+
+    /**
+     * Tag of the current store version, as sent back by peers asking for changes.
+     */
+    public synchronized String versionTag() {
+        return RateSnapshot.versionTag(storeId, version);
+    }
+
+    /**
+     * Rates and coverage windows changed after the version in {@code sinceTag}, or all of them when
+     * the tag is missing, unknown, or from a previous run of this store.
+     */
+    public synchronized RateSnapshot snapshot(String sinceTag) {
+        long since = sinceVersion(sinceTag);
+        boolean full = since < 0;
+        long after = full ? 0 : since;
+
+        List<RateSnapshot.Rate> changedRates = new ArrayList<>();
+        rates.forEach((countryCurrency, series) -> {
+            for (int i = 0; i < series.size(); i++) {
+                if (series.versionAt(i) > after) {
+                    changedRates.add(new RateSnapshot.Rate(countryCurrency,
+                        LocalDate.ofEpochDay(series.epochDayAt(i)), series.rateAt(i)));
+                }
+            }
+        });
+        List<RateSnapshot.Coverage> changedWindows = new ArrayList<>();
+        coverage.forEach((countryCurrency, windows) -> {
+            for (Coverage window : windows) {
+                if (window.version() > after) {
+                    changedWindows.add(new RateSnapshot.Coverage(countryCurrency,
+                        LocalDate.ofEpochDay(window.fromEpochDay()), LocalDate.ofEpochDay(window.toEpochDay()),
+                        window.fetchedAt()));
+                }
+            }
+        });
+        return new RateSnapshot(storeId, version, full, changedRates, changedWindows);
+    }
+
+    private long sinceVersion(String sinceTag) {
+        if (sinceTag == null) {
+            return -1;
+        }
+        int separator = sinceTag.lastIndexOf(':');
+        if (separator < 0 || !sinceTag.substring(0, separator).equals(storeId)) {
+            return -1;
+        }
+        try {
+            long since = Long.parseLong(sinceTag.substring(separator + 1));
+            return since >= 0 && since <= version ? since : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private record Coverage(int fromEpochDay, int toEpochDay, Instant fetchedAt, long version) {
+
+        private boolean contains(int from, int to) {
+            return fromEpochDay <= from && toEpochDay >= to;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+
+/**
+ * Merges cursors that are each in id order into one cursor in id order.
+ */
+final class MergedCursor implements Iterator<PurchaseView> {
+
+    private final PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparingInt((Head head) -> head.purchase.id()));
+
+    MergedCursor(List<Iterator<PurchaseView>> cursors) {
+        for (Iterator<PurchaseView> cursor : cursors) {
+            if (cursor.hasNext()) {
+                heads.add(new Head(cursor.next(), cursor));
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public PurchaseView next() {
+        Head head = heads.poll();
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+        if (head.cursor.hasNext()) {
+            heads.add(new Head(head.cursor.next(), head.cursor));
+        }
+        return head.purchase;
+    }
+
+    private record Head(PurchaseView purchase, Iterator<PurchaseView> cursor) {
+    }
+}
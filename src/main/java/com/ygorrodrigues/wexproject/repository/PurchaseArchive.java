@@ -0,0 +1,231 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import com.ygorrodrigues.wexproject.models.PurchaseReport;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Cold tier of the purchases table: purchases moved out of the database by the archiver, kept
+ * in immutable {@link ArchiveSegment} files under {@code purchase.archive.directory}.
+ *
+ * Each archiver pass writes one or more new segments; segments are never modified, so their id
+ * ranges can overlap when an older purchase ages out after newer ones were archived. Reads look
+ * at every segment whose id range contains the id, and scans merge the segments back into id
+ * order. Holds no segments while {@code purchase.archive.enabled} is false.
+ */
+@Repository
+public class PurchaseArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseArchive.class);
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final boolean enabled;
+    private final Path directory;
+
+    private final Object writeLock = new Object();
+    private volatile List<ArchiveSegment> segments = List.of(); // in the order they were written
+    private int nextSequence = 1; // guarded by writeLock
+
+    public PurchaseArchive(
+            @Value("${purchase.archive.enabled:false}") boolean enabled,
+            @Value("${purchase.archive.directory:./data/archive}") String directory) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+                    Files.delete(entry); // a write that did not finish; its rows are still in the table
+                } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                    files.add(entry);
+                }
+            }
+        }
+        files.sort(Comparator.comparing(path -> path.getFileName().toString()));
+
+        List<ArchiveSegment> opened = new ArrayList<>();
+        long rows = 0;
+        for (Path file : files) {
+            ArchiveSegment segment = ArchiveSegment.open(file);
+            opened.add(segment);
+            rows += segment.rows();
+        }
+        synchronized (writeLock) {
+            segments = List.copyOf(opened);
+            nextSequence = files.isEmpty() ? 1 : sequenceOf(files.get(files.size() - 1)) + 1;
+        }
+        log.info("Opened {} archive segments with {} purchases from {}", opened.size(), rows, directory);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (ArchiveSegment segment : segments) {
+            segment.close();
+        }
+    }
+
+    /**
+     * Writes the purchases, sorted by id, to a new segment. The segment is on disk and visible
+     * to reads when this returns, so the rows can then be deleted from the table.
+     */
+    public void append(List<PurchaseView> purchases) {
+        if (!enabled) {
+            throw new IllegalStateException("The purchase archive is disabled");
+        }
+        synchronized (writeLock) {
+            Path file = directory.resolve(String.format("segment-%08d%s", nextSequence, SEGMENT_SUFFIX));
+            try {
+                ArchiveSegment segment = ArchiveSegment.write(file, purchases);
+                nextSequence++;
+                List<ArchiveSegment> grown = new ArrayList<>(segments);
+                grown.add(segment);
+                segments = List.copyOf(grown);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to write archive segment " + file, e);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    public Optional<PurchaseView> findById(int id) {
+        for (ArchiveSegment segment : segments) {
+            Optional<PurchaseView> purchase = segment.find(id);
+            if (purchase.isPresent()) {
+                return purchase;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Archived purchases with an id above {@code afterId} and a transaction date between
+     * {@code from} and {@code to}, inclusive, in id order.
+     */
+    public Iterator<PurchaseView> cursor(int afterId, LocalDate from, LocalDate to) {
+        return cursor(afterId, (int) from.toEpochDay(), (int) to.toEpochDay());
+    }
+
+    /**
+     * Every archived purchase with an id above {@code afterId}, in id order.
+     */
+    public Iterator<PurchaseView> cursor(int afterId) {
+        return cursor(afterId, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Ids of the purchases in the last written segment.
+     */
+    public List<Integer> newestSegmentIds() {
+        List<ArchiveSegment> current = segments;
+        if (current.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> ids = new ArrayList<>();
+        current.get(current.size() - 1).cursor(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE)
+            .forEachRemaining(purchase -> ids.add(purchase.id()));
+        return ids;
+    }
+
+    /**
+     * Lowest and highest archived id, or empty when nothing is archived.
+     */
+    public Optional<int[]> idBounds() {
+        List<ArchiveSegment> current = segments;
+        if (current.isEmpty()) {
+            return Optional.empty();
+        }
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (ArchiveSegment segment : current) {
+            min = Math.min(min, segment.firstId());
+            max = Math.max(max, segment.lastId());
+        }
+        return Optional.of(new int[] {min, max});
+    }
+
+    public long rows() {
+        long rows = 0;
+        for (ArchiveSegment segment : segments) {
+            rows += segment.rows();
+        }
+        return rows;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Count, total and largest amount of the archived purchases made between {@code from} and
+     * {@code to}, inclusive, reading only the blocks whose dates overlap the range.
+     */
+    public PurchaseReport summarize(LocalDate from, LocalDate to) {
+        long count = 0;
+        long totalCents = 0;
+        long maxCents = Long.MIN_VALUE;
+        for (ArchiveSegment segment : segments) {
+            Iterator<PurchaseView> purchases = segment.cursor(Integer.MIN_VALUE, (int) from.toEpochDay(), (int) to.toEpochDay());
+            while (purchases.hasNext()) {
+                long cents = purchases.next().amount().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+                count++;
+                totalCents += cents;
+                maxCents = Math.max(maxCents, cents);
+            }
+        }
+        return new PurchaseReport(from, to, count,
+            BigDecimal.valueOf(totalCents, 2),
+            count == 0 ? null : BigDecimal.valueOf(maxCents, 2));
+    }
+
+    private Iterator<PurchaseView> cursor(int afterId, int fromDay, int toDay) {
+        List<ArchiveSegment> current = segments;
+        if (current.size() == 1) {
+            return current.get(0).cursor(afterId, fromDay, toDay);
+        }
+        List<Iterator<PurchaseView>> cursors = new ArrayList<>(current.size());
+        for (ArchiveSegment segment : current) {
+            if (segment.lastId() > afterId) {
+                cursors.add(segment.cursor(afterId, fromDay, toDay));
+            }
+        }
+        return new MergedCursor(cursors);
+    }
+
+    private static int sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring("segment-".length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
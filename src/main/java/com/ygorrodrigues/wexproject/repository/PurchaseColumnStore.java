@@ -0,0 +1,174 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.ygorrodrigues.wexproject.models.PurchaseReport;
+
+/**
+ * Optional off-heap, column oriented copy of the purchases table for aggregations.
+ *
+ * Rows are stored in fixed size chunks of direct buffers: int id, long amount in cents,
+ * int transaction date as epoch days and an int code into a description dictionary. A scan
+ * reads the primitive columns in place and allocates nothing per row.
+ *
+ * Writes come from {@link PurchaseColumnStoreListener} after each insert commits, and the
+ * existing rows, including the archived ones, are loaded once the application is ready. A single
+ * writer appends under the store lock; readers only look at rows below the published size.
+ */
+@Repository
+@ConditionalOnProperty(name = "purchase.column-store.enabled", havingValue = "true")
+public class PurchaseColumnStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseColumnStore.class);
+
+    static final int CHUNK_ROWS = 1 << 16;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PurchaseArchive purchaseArchive;
+
+    private final Object writeLock = new Object();
+    private final Map<String, Integer> descriptionCodes = new HashMap<>();
+    private final List<String> descriptions = new ArrayList<>();
+    private final BitSet storedIds = new BitSet();
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int size;
+
+    public PurchaseColumnStore(JdbcTemplate jdbcTemplate, PurchaseArchive purchaseArchive) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.purchaseArchive = purchaseArchive;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        jdbcTemplate.query("SELECT id, description, amount, transaction_date FROM purchases", rs -> {
+            append(rs.getInt(1), rs.getString(2), rs.getBigDecimal(3), rs.getDate(4).toLocalDate());
+        });
+        // A purchase can be archived and still in the table: during a move, and after a crash until
+        // the archiver's next pass. The table row is loaded first and the archived copy is skipped.
+        purchaseArchive.cursor(0).forEachRemaining(purchase -> {
+            if (!contains(purchase.id())) {
+                append(purchase.id(), purchase.description(), purchase.amount(), purchase.transactionDate());
+            }
+        });
+        log.info("Loaded {} purchases into the column store in {} ms", size, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Adds a purchase, ignoring ids that are already stored.
+     */
+    public void append(int id, String description, BigDecimal amount, LocalDate transactionDate) {
+        long cents = amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        synchronized (writeLock) {
+            if (storedIds.get(id)) {
+                return;
+            }
+            int row = size;
+            Chunk chunk = chunkFor(row);
+            int index = row & (CHUNK_ROWS - 1);
+            chunk.ids.putInt(index * Integer.BYTES, id);
+            chunk.cents.putLong(index * Long.BYTES, cents);
+            chunk.epochDays.putInt(index * Integer.BYTES, (int) transactionDate.toEpochDay());
+            chunk.descriptionCodes.putInt(index * Integer.BYTES, encode(description));
+            storedIds.set(id);
+            size = row + 1; // volatile write publishes the row to readers
+        }
+    }
+
+    /**
+     * Count, total and largest amount of the purchases made between {@code from} and {@code to}, inclusive.
+     */
+    public PurchaseReport summarize(LocalDate from, LocalDate to) {
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        int rows = size;
+        Chunk[] snapshot = chunks;
+
+        long count = 0;
+        long totalCents = 0;
+        long maxCents = Long.MIN_VALUE;
+        for (int c = 0; c * CHUNK_ROWS < rows; c++) {
+            Chunk chunk = snapshot[c];
+            int limit = Math.min(CHUNK_ROWS, rows - c * CHUNK_ROWS);
+            for (int i = 0; i < limit; i++) {
+                int day = chunk.epochDays.getInt(i * Integer.BYTES);
+                if (day >= fromDay && day <= toDay) {
+                    long cents = chunk.cents.getLong(i * Long.BYTES);
+                    count++;
+                    totalCents += cents;
+                    maxCents = Math.max(maxCents, cents);
+                }
+            }
+        }
+        return new PurchaseReport(from, to, count,
+            BigDecimal.valueOf(totalCents, 2),
+            count == 0 ? null : BigDecimal.valueOf(maxCents, 2));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    boolean contains(int id) {
+        synchronized (writeLock) {
+            return storedIds.get(id);
+        }
+    }
+
+    public int distinctDescriptions() {
+        synchronized (writeLock) {
+            return descriptions.size();
+        }
+    }
+
+    private Chunk chunkFor(int row) {
+        int chunkIndex = row / CHUNK_ROWS;
+        Chunk[] current = chunks;
+        if (chunkIndex < current.length) {
+            return current[chunkIndex];
+        }
+        Chunk[] grown = Arrays.copyOf(current, chunkIndex + 1);
+        grown[chunkIndex] = new Chunk();
+        chunks = grown;
+        return grown[chunkIndex];
+    }
+
+    private int encode(String description) {
+        Integer code = descriptionCodes.get(description);
+        if (code == null) {
+            code = descriptions.size();
+            descriptions.add(description);
+            descriptionCodes.put(description, code);
+        }
+        return code;
+    }
+
+    private static final class Chunk {
+        private final ByteBuffer ids = column(Integer.BYTES);
+        private final ByteBuffer cents = column(Long.BYTES);
+        private final ByteBuffer epochDays = column(Integer.BYTES);
+        private final ByteBuffer descriptionCodes = column(Integer.BYTES);
+
+        private static ByteBuffer column(int width) {
+            return ByteBuffer.allocateDirect(CHUNK_ROWS * width).order(ByteOrder.nativeOrder());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ygorrodrigues.wexproject.models.Purchase;
+
+import jakarta.persistence.PostPersist;
+
+/**
+ * JPA entity listener that copies every persisted purchase into the {@link PurchaseColumnStore},
+ * once the surrounding transaction commits. Does nothing when the column store is disabled.
+ */
+@Component
+public class PurchaseColumnStoreListener {
+
+    private final ObjectProvider<PurchaseColumnStore> columnStore;
+
+    public PurchaseColumnStoreListener(ObjectProvider<PurchaseColumnStore> columnStore) {
+        this.columnStore = columnStore;
+    }
+
+    @PostPersist
+    public void afterPersist(Purchase purchase) {
+        PurchaseColumnStore store = columnStore.getIfAvailable();
+        if (store == null) {
+            return;
+        }
+        Runnable append = () -> store.append(purchase.getId(), purchase.getDescription(), purchase.getAmount(), purchase.getTransactionDate());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append.run();
+                }
+            });
+        } else {
+            append.run();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.ygorrodrigues.wexproject.models.PurchaseConversion;
+
+/**
+ * JDBC access to the stored conversions and the checkpoints of the recompute job.
+ * Writes are H2 {@code MERGE ... KEY} statements, so replaying a batch is harmless.
+ */
+@Repository
+public class PurchaseConversionRepository {
+
+    private static final String UPSERT =
+        "MERGE INTO purchase_conversions (purchase_id, country_currency, exchange_rate, converted_amount, computed_at) " +
+        "KEY (purchase_id, country_currency) VALUES (?, ?, ?, ?, ?)";
+    private static final String FIND =
+        "SELECT exchange_rate, converted_amount, computed_at FROM purchase_conversions " +
+        "WHERE purchase_id = ? AND country_currency = ?";
+    private static final String CONVERTED_CURRENCIES =
+        "SELECT DISTINCT country_currency FROM purchase_conversions";
+    private static final String COMPLETED_CHUNKS =
+        "SELECT chunk_start FROM conversion_checkpoints WHERE country_currency = ? AND chunk_size = ? AND rates_fingerprint = ?";
+    private static final String MARK_CHUNK =
+        "MERGE INTO conversion_checkpoints (country_currency, chunk_start, chunk_size, rates_fingerprint, completed_at) " +
+        "KEY (country_currency, chunk_start) VALUES (?, ?, ?, ?, ?)";
+    private static final String CLEAR_CHECKPOINTS =
+        "DELETE FROM conversion_checkpoints WHERE country_currency = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PurchaseConversionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts or replaces the conversions as one JDBC batch.
+     */
+    public void upsertAll(List<PurchaseConversion> conversions) {
+        if (conversions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT, conversions, conversions.size(), (ps, conversion) -> {
+            ps.setInt(1, conversion.getPurchaseId());
+            ps.setString(2, conversion.getCountryCurrency());
+            ps.setBigDecimal(3, conversion.getExchangeRate());
+            ps.setBigDecimal(4, conversion.getConvertedAmount());
+            ps.setTimestamp(5, Timestamp.from(conversion.getComputedAt()));
+        });
+    }
+
+    /**
+     * Stored conversion of the purchase into the currency, found through the unique
+     * (purchase_id, country_currency) index.
+     */
+    public Optional<PurchaseConversion> find(int purchaseId, String countryCurrency) {
+        List<PurchaseConversion> rows = jdbcTemplate.query(FIND, (rs, rowNum) -> PurchaseConversion.builder()
+            .purchaseId(purchaseId)
+            .countryCurrency(countryCurrency)
+            .exchangeRate(rs.getBigDecimal(1))
+            .convertedAmount(rs.getBigDecimal(2))
+            .computedAt(rs.getTimestamp(3).toInstant())
+            .build(), purchaseId, countryCurrency);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    public Set<String> convertedCurrencies() {
+        return new HashSet<>(jdbcTemplate.queryForList(CONVERTED_CURRENCIES, String.class));
+    }
+
+    /**
+     * Start ids of the chunks already recomputed for the currency with the given chunk size, from
+     * the rates with the given {@link ExchangeRateSeries#fingerprint()}.
+     */
+    public Set<Integer> completedChunks(String countryCurrency, int chunkSize, long ratesFingerprint) {
+        return new HashSet<>(jdbcTemplate.queryForList(COMPLETED_CHUNKS, Integer.class, countryCurrency, chunkSize, ratesFingerprint));
+    }
+
+    public void markChunkCompleted(String countryCurrency, int chunkStart, int chunkSize, long ratesFingerprint) {
+        jdbcTemplate.update(MARK_CHUNK, countryCurrency, chunkStart, chunkSize, ratesFingerprint, Timestamp.from(Instant.now()));
+    }
+
+    public void clearCheckpoints(String countryCurrency) {
+        jdbcTemplate.update(CLEAR_CHECKPOINTS, countryCurrency);
+    }
+}
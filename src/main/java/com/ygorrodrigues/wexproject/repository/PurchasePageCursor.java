@@ -0,0 +1,61 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+
+/**
+ * Purchases of one database with an id above {@code afterId} and a transaction date in the
+ * range, in id order. Reads keyset pages of {@code pageSize} rows after the last id returned,
+ * so at most one page is held in memory whatever the driver does with fetch sizes.
+ */
+final class PurchasePageCursor implements Iterator<PurchaseView> {
+
+    private static final String EXPORT_PAGE =
+        "SELECT id, description, amount, transaction_date FROM purchases " +
+        "WHERE id > ? AND transaction_date BETWEEN ? AND ? ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Date from;
+    private final Date to;
+    private final int pageSize;
+    private int afterId;
+    private Iterator<PurchaseView> page = Collections.emptyIterator();
+    private boolean lastPage;
+
+    PurchasePageCursor(JdbcTemplate jdbcTemplate, int afterId, LocalDate from, LocalDate to, int pageSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.afterId = afterId;
+        this.from = Date.valueOf(from);
+        this.to = Date.valueOf(to);
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext() && !lastPage) {
+            List<PurchaseView> rows = jdbcTemplate.query(EXPORT_PAGE, PurchaseReadRepository.ROW_MAPPER, afterId, from, to, pageSize);
+            lastPage = rows.size() < pageSize;
+            if (!rows.isEmpty()) {
+                afterId = rows.get(rows.size() - 1).id();
+            }
+            page = rows.iterator();
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public PurchaseView next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+}
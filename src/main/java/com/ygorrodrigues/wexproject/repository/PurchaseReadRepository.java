@@ -0,0 +1,256 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import java.sql.Date;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.ygorrodrigues.wexproject.models.PurchaseReport;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+
+/**
+ * Plain JDBC reads of the purchases table straight into {@link PurchaseView} records, skipping
+ * the persistence context, entity snapshots and dirty checking of the JPA repository.
+ * The SQL text is constant so H2 reuses the parsed statement from its per-session query cache.
+ *
+ * Every read also covers the purchases moved to the {@link PurchaseArchive}: lookups by id fall
+ * back to the archive, and scans merge archived rows into id order. While the archiver moves a
+ * segment, its rows are briefly in both places, and after a crash they stay there until the
+ * archiver's next pass; scans and summaries then keep the table row.
+ *
+ * When {@link PurchaseShards} is enabled the purchases live in the shards instead, and every
+ * read is answered by them.
+ */
+@Repository
+public class PurchaseReadRepository {
+
+    private static final String FIND_BY_ID =
+        "SELECT id, description, amount, transaction_date FROM purchases WHERE id = ?";
+    private static final String FIND_BY_IDS =
+        "SELECT id, description, amount, transaction_date FROM purchases WHERE id = ANY(?)";
+    private static final String FIND_BY_ID_RANGE =
+        "SELECT id, description, amount, transaction_date FROM purchases WHERE id >= ? AND id < ? ORDER BY id";
+    private static final String ID_BOUNDS =
+        "SELECT MIN(id), MAX(id) FROM purchases";
+    private static final String FIND_STORED_BEFORE =
+        "SELECT id, description, amount, transaction_date FROM purchases WHERE transaction_date < ? ORDER BY id LIMIT ?";
+    private static final String SUMMARIZE =
+        "SELECT COUNT(*), COALESCE(SUM(amount), 0), MAX(amount) FROM purchases WHERE transaction_date BETWEEN ? AND ?";
+    private static final String STORED_IDS_IN_RANGE =
+        "SELECT id FROM purchases WHERE transaction_date BETWEEN ? AND ? AND id BETWEEN ? AND ? ORDER BY id";
+
+    static final RowMapper<PurchaseView> ROW_MAPPER = (rs, rowNum) -> {
+        Date transactionDate = rs.getDate(4);
+        return new PurchaseView(
+            rs.getInt(1),
+            rs.getString(2),
+            rs.getBigDecimal(3),
+            transactionDate == null ? null : transactionDate.toLocalDate());
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PurchaseArchive purchaseArchive;
+    private final PurchaseShards purchaseShards;
+
+    public PurchaseReadRepository(JdbcTemplate jdbcTemplate, PurchaseArchive purchaseArchive, PurchaseShards purchaseShards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.purchaseArchive = purchaseArchive;
+        this.purchaseShards = purchaseShards;
+    }
+
+    public Optional<PurchaseView> findById(int id) {
+        if (purchaseShards.isEnabled()) {
+            return purchaseShards.findById(id);
+        }
+        List<PurchaseView> rows = jdbcTemplate.query(FIND_BY_ID, ROW_MAPPER, id);
+        return rows.isEmpty() ? purchaseArchive.findById(id) : Optional.of(rows.get(0));
+    }
+
+    /**
+     * Purchases with any of the given ids, in no particular order. The ids are bound as one
+     * array parameter, so the statement text is the same for any number of ids.
+     */
+    public List<PurchaseView> findByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        if (purchaseShards.isEnabled()) {
+            return purchaseShards.findByIds(ids);
+        }
+        List<PurchaseView> rows = jdbcTemplate.query(FIND_BY_IDS, ROW_MAPPER, (Object) ids.toArray(new Integer[0]));
+        if (rows.size() == ids.size() || purchaseArchive.isEmpty()) {
+            return rows;
+        }
+        Set<Integer> found = new HashSet<>();
+        rows.forEach(row -> found.add(row.id()));
+        List<PurchaseView> all = new ArrayList<>(rows);
+        for (Integer id : ids) {
+            if (found.add(id)) {
+                purchaseArchive.findById(id).ifPresent(all::add);
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Purchases with {@code fromId <= id < toId}, in id order.
+     */
+    public List<PurchaseView> findByIdRange(int fromId, int toId) {
+        if (purchaseShards.isEnabled()) {
+            return purchaseShards.findByIdRange(fromId, toId);
+        }
+        List<PurchaseView> rows = jdbcTemplate.query(FIND_BY_ID_RANGE, ROW_MAPPER, fromId, toId);
+        if (purchaseArchive.isEmpty()) {
+            return rows;
+        }
+        List<PurchaseView> merged = new ArrayList<>(rows.size());
+        Iterator<PurchaseView> archived = purchaseArchive.cursor(fromId - 1);
+        PurchaseView next = archived.hasNext() ? archived.next() : null;
+        for (PurchaseView row : rows) {
+            while (next != null && next.id() <= row.id()) {
+                if (next.id() < row.id()) {
+                    merged.add(next);
+                }
+                next = archived.hasNext() ? archived.next() : null;
+            }
+            merged.add(row);
+        }
+        while (next != null && next.id() < toId) {
+            merged.add(next);
+            next = archived.hasNext() ? archived.next() : null;
+        }
+        return merged;
+    }
+
+    /**
+     * Passes every purchase with an id above {@code afterId} and a transaction date between
+     * {@code from} and {@code to} to the consumer, in id order. The table is read in keyset pages
+     * of {@code fetchSize} rows, so only the current page is held in memory.
+     */
+    public void forEachPurchase(int afterId, LocalDate from, LocalDate to, int fetchSize, Consumer<PurchaseView> consumer) {
+        if (purchaseShards.isEnabled()) {
+            purchaseShards.forEachPurchase(afterId, from, to, fetchSize, consumer);
+            return;
+        }
+        Iterator<PurchaseView> stored = new PurchasePageCursor(jdbcTemplate, afterId, from, to, fetchSize);
+        Iterator<PurchaseView> archived = purchaseArchive.cursor(afterId, from, to);
+        PurchaseView next = archived.hasNext() ? archived.next() : null;
+        while (stored.hasNext()) {
+            PurchaseView row = stored.next();
+            while (next != null && next.id() <= row.id()) {
+                if (next.id() < row.id()) {
+                    consumer.accept(next);
+                }
+                next = archived.hasNext() ? archived.next() : null;
+            }
+            consumer.accept(row);
+        }
+        for (PurchaseView purchase = next; purchase != null; purchase = archived.hasNext() ? archived.next() : null) {
+            consumer.accept(purchase);
+        }
+    }
+
+    /**
+     * Lowest and highest purchase id, or empty when there are no purchases.
+     */
+    public Optional<int[]> idBounds() {
+        if (purchaseShards.isEnabled()) {
+            return purchaseShards.idBounds();
+        }
+        Optional<int[]> stored = Optional.ofNullable(jdbcTemplate.queryForObject(ID_BOUNDS, (rs, rowNum) -> {
+            int min = rs.getInt(1);
+            return rs.wasNull() ? null : new int[] {min, rs.getInt(2)};
+        }));
+        Optional<int[]> archived = purchaseArchive.idBounds();
+        if (stored.isEmpty() || archived.isEmpty()) {
+            return stored.isPresent() ? stored : archived;
+        }
+        return Optional.of(new int[] {
+            Math.min(stored.get()[0], archived.get()[0]),
+            Math.max(stored.get()[1], archived.get()[1])});
+    }
+
+    /**
+     * Id ranges that together hold every purchase, as {@code {min, max}} pairs in id order that
+     * do not overlap. Without shards this is the single range of {@link #idBounds()}.
+     */
+    public List<int[]> idRanges() {
+        if (purchaseShards.isEnabled()) {
+            return purchaseShards.idRanges();
+        }
+        return idBounds().map(bounds -> List.of(bounds)).orElse(List.of());
+    }
+
+    /**
+     * Up to {@code limit} purchases still in the table with a transaction date before
+     * {@code before}, in id order. Used by the archiver; does not look at the archive.
+     */
+    public List<PurchaseView> findStoredBefore(LocalDate before, int limit) {
+        return jdbcTemplate.query(FIND_STORED_BEFORE, ROW_MAPPER, Date.valueOf(before), limit);
+    }
+
+    public PurchaseReport summarize(LocalDate from, LocalDate to) {
+        if (purchaseShards.isEnabled()) {
+            return purchaseShards.summarize(from, to);
+        }
+        PurchaseReport stored = jdbcTemplate.queryForObject(SUMMARIZE,
+            (rs, rowNum) -> new PurchaseReport(from, to, rs.getLong(1), rs.getBigDecimal(2), rs.getBigDecimal(3)),
+            Date.valueOf(from), Date.valueOf(to));
+        if (purchaseArchive.isEmpty()) {
+            return stored;
+        }
+        PurchaseReport archived = summarizeArchived(from, to);
+        BigDecimal maxAmount = stored.maxAmount() == null ? archived.maxAmount()
+            : archived.maxAmount() == null ? stored.maxAmount()
+            : stored.maxAmount().max(archived.maxAmount());
+        return new PurchaseReport(from, to, stored.count() + archived.count(),
+            stored.totalAmount().add(archived.totalAmount()), maxAmount);
+    }
+
+    /**
+     * Summary of the archived purchases made between {@code from} and {@code to} that are not
+     * also in the table. Walks the table ids in the archive's id range alongside the archive
+     * cursor, both in id order, and leaves out the archived rows whose id is still stored.
+     */
+    private PurchaseReport summarizeArchived(LocalDate from, LocalDate to) {
+        int[] bounds = purchaseArchive.idBounds().orElseThrow();
+        Iterator<PurchaseView> archived = purchaseArchive.cursor(bounds[0] - 1, from, to);
+        PurchaseView[] next = {archived.hasNext() ? archived.next() : null};
+        long[] totals = {0, 0, Long.MIN_VALUE}; // count, total cents, max cents
+        jdbcTemplate.query(STORED_IDS_IN_RANGE, (RowCallbackHandler) rs -> {
+            int storedId = rs.getInt(1);
+            while (next[0] != null && next[0].id() <= storedId) {
+                if (next[0].id() < storedId) {
+                    add(totals, next[0].amount());
+                }
+                next[0] = archived.hasNext() ? archived.next() : null;
+            }
+        }, Date.valueOf(from), Date.valueOf(to), bounds[0], bounds[1]);
+        for (PurchaseView purchase = next[0]; purchase != null; purchase = archived.hasNext() ? archived.next() : null) {
+            add(totals, purchase.amount());
+        }
+        return new PurchaseReport(from, to, totals[0],
+            BigDecimal.valueOf(totals[1], 2),
+            totals[0] == 0 ? null : BigDecimal.valueOf(totals[2], 2));
+    }
+
+    private static void add(long[] totals, BigDecimal amount) {
+        long cents = amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        totals[0]++;
+        totals[1] += cents;
+        totals[2] = Math.max(totals[2], cents);
+    }
+}
@@ -0,0 +1,366 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import com.ygorrodrigues.wexproject.models.PurchaseReport;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Purchases spread over the databases of {@code purchase.sharding.urls} instead of the main
+ * datasource, so inserts and table size are no longer limited by one embedded database.
+ *
+ * Every shard allocates the ids of its own purchases from an identity column that only yields
+ * ids the shard owns, so the owner of an id is known without asking the shards. In {@code hash}
+ * mode shard {@code i} of {@code n} owns the ids with {@code (id - 1) mod n == i}; in
+ * {@code range} mode it owns the {@code i}-th of {@code n} equal blocks of the positive ids.
+ * New purchases go to the shards in turn. Lookups by id go to the owning shard only, while range
+ * scans, exports and aggregations run on every shard in parallel and are merged back into id
+ * order. Each shard records its position and the layout, and startup fails when the shard count
+ * or mode no longer match, since existing ids would then be routed to the wrong shard.
+ *
+ * The purchase archive and the column store read the main datasource, so they cannot be enabled
+ * together with sharding. Holds no shards while {@code purchase.sharding.enabled} is false.
+ */
+@Repository
+public class PurchaseShards {
+
+    public enum Mode { HASH, RANGE }
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseShards.class);
+
+    private static final String CREATE_LAYOUT =
+        "CREATE TABLE IF NOT EXISTS purchase_shard (" +
+        "shard_index INTEGER NOT NULL, shard_count INTEGER NOT NULL, mode VARCHAR(16) NOT NULL)";
+    private static final String FIND_LAYOUT =
+        "SELECT shard_index, shard_count, mode FROM purchase_shard";
+    private static final String INSERT_LAYOUT =
+        "INSERT INTO purchase_shard (shard_index, shard_count, mode) VALUES (?, ?, ?)";
+    private static final String CREATE_PURCHASES =
+        "CREATE TABLE IF NOT EXISTS purchases (" +
+        "id INTEGER GENERATED BY DEFAULT AS IDENTITY (START WITH %d INCREMENT BY %d) PRIMARY KEY, " +
+        "description VARCHAR(255) NOT NULL, " +
+        "amount NUMERIC(19, 2) NOT NULL, " +
+        "transaction_date DATE NOT NULL, " +
+        "CONSTRAINT ck_purchases_shard CHECK (%s))";
+    private static final String CREATE_DATE_INDEX =
+        "CREATE INDEX IF NOT EXISTS ix_purchases_transaction_date ON purchases (transaction_date)";
+
+    private static final String INSERT =
+        "INSERT INTO purchases (description, amount, transaction_date) VALUES (?, ?, ?)";
+    private static final String FIND_BY_ID =
+        "SELECT id, description, amount, transaction_date FROM purchases WHERE id = ?";
+    private static final String FIND_BY_IDS =
+        "SELECT id, description, amount, transaction_date FROM purchases WHERE id = ANY(?)";
+    private static final String FIND_BY_ID_RANGE =
+        "SELECT id, description, amount, transaction_date FROM purchases WHERE id >= ? AND id < ? ORDER BY id";
+    private static final String ID_BOUNDS =
+        "SELECT MIN(id), MAX(id) FROM purchases";
+    private static final String SUMMARIZE =
+        "SELECT COUNT(*), COALESCE(SUM(amount), 0), MAX(amount) FROM purchases WHERE transaction_date BETWEEN ? AND ?";
+
+    private final Mode mode;
+    private final List<DataSource> dataSources;
+    private final List<JdbcTemplate> shards;
+    private final int rangeSize;
+    private final ExecutorService fanOut;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    @Autowired
+    public PurchaseShards(
+            @Value("${purchase.sharding.enabled:false}") boolean enabled,
+            @Value("${purchase.sharding.mode:hash}") String mode,
+            @Value("${purchase.sharding.urls:}") String urls,
+            @Value("${purchase.sharding.pool-size:8}") int poolSize,
+            @Value("${spring.datasource.username:sa}") String username,
+            @Value("${spring.datasource.password:}") String password,
+            @Value("${purchase.archive.enabled:false}") boolean archiveEnabled,
+            @Value("${purchase.column-store.enabled:false}") boolean columnStoreEnabled) {
+        this(Mode.valueOf(mode.trim().toUpperCase()),
+            enabled ? dataSources(urls, poolSize, username, password) : List.of(),
+            poolSize);
+        if (enabled && (archiveEnabled || columnStoreEnabled)) {
+            close();
+            throw new IllegalStateException("Purchase sharding cannot be enabled together with the purchase archive or the column store");
+        }
+    }
+
+    PurchaseShards(Mode mode, List<DataSource> dataSources, int poolSize) {
+        this.mode = mode;
+        this.dataSources = List.copyOf(dataSources);
+        this.shards = dataSources.stream().map(JdbcTemplate::new).toList();
+        this.rangeSize = shards.isEmpty() ? 0 : Integer.MAX_VALUE / shards.size();
+        this.fanOut = shards.isEmpty() ? null
+            : Executors.newFixedThreadPool(shards.size() * poolSize, Thread.ofPlatform().name("purchase-shard-", 0).daemon().factory());
+        try {
+            for (int shard = 0; shard < shards.size(); shard++) {
+                createSchema(shard);
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        if (!shards.isEmpty()) {
+            log.info("Storing purchases in {} shards by {}", shards.size(), mode.name().toLowerCase());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (fanOut != null) {
+            fanOut.shutdownNow();
+        }
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof HikariDataSource pool) {
+                pool.close();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return !shards.isEmpty();
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Index of the shard that owns the id.
+     */
+    public int shardOf(int id) {
+        if (mode == Mode.HASH) {
+            return Math.floorMod(id - 1, shards.size());
+        }
+        return Math.max(0, Math.min(shards.size() - 1, (id - 1) / rangeSize));
+    }
+
+    /**
+     * Inserts a purchase into the next shard in turn, which assigns it an id it owns.
+     */
+    public PurchaseView insert(String description, BigDecimal amount, LocalDate transactionDate) {
+        int shard = Math.floorMod(nextShard.getAndIncrement(), shards.size());
+        KeyHolder keys = new GeneratedKeyHolder();
+        shards.get(shard).update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT, new String[] {"ID"});
+            statement.setString(1, description);
+            statement.setBigDecimal(2, amount);
+            statement.setDate(3, Date.valueOf(transactionDate));
+            return statement;
+        }, keys);
+        return new PurchaseView(keys.getKey().intValue(), description, amount, transactionDate);
+    }
+
+    public Optional<PurchaseView> findById(int id) {
+        List<PurchaseView> rows = shards.get(shardOf(id)).query(FIND_BY_ID, PurchaseReadRepository.ROW_MAPPER, id);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    /**
+     * Purchases with any of the given ids, in no particular order. Each shard is only asked
+     * for the ids it owns.
+     */
+    public List<PurchaseView> findByIds(Collection<Integer> ids) {
+        List<List<Integer>> owned = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            owned.add(new ArrayList<>());
+        }
+        for (Integer id : ids) {
+            owned.get(shardOf(id)).add(id);
+        }
+        List<PurchaseView> found = new ArrayList<>(ids.size());
+        fanOut(shard -> owned.get(shard).isEmpty()
+                ? List.<PurchaseView>of()
+                : shards.get(shard).query(FIND_BY_IDS, PurchaseReadRepository.ROW_MAPPER, (Object) owned.get(shard).toArray(new Integer[0])))
+            .forEach(found::addAll);
+        return found;
+    }
+
+    /**
+     * Purchases with {@code fromId <= id < toId}, in id order. In range mode only the shards
+     * whose id block overlaps the range are queried.
+     */
+    public List<PurchaseView> findByIdRange(int fromId, int toId) {
+        if (fromId >= toId) {
+            return List.of();
+        }
+        int firstShard = mode == Mode.RANGE ? shardOf(fromId) : 0;
+        int lastShard = mode == Mode.RANGE ? shardOf(toId - 1) : shards.size() - 1;
+        List<List<PurchaseView>> rows = fanOut(shard -> shard < firstShard || shard > lastShard
+            ? List.<PurchaseView>of()
+            : shards.get(shard).query(FIND_BY_ID_RANGE, PurchaseReadRepository.ROW_MAPPER, fromId, toId));
+        List<PurchaseView> merged = new ArrayList<>(rows.stream().mapToInt(List::size).sum());
+        new MergedCursor(rows.stream().map(List::iterator).toList()).forEachRemaining(merged::add);
+        return merged;
+    }
+
+    /**
+     * Passes the matching purchases of every shard to the consumer in id order. Each shard is
+     * read in pages of {@code fetchSize} rows after the last id it returned, and the first pages
+     * are fetched in parallel.
+     */
+    public void forEachPurchase(int afterId, LocalDate from, LocalDate to, int fetchSize, Consumer<PurchaseView> consumer) {
+        List<PurchasePageCursor> cursors = new ArrayList<>(shards.size());
+        for (JdbcTemplate shard : shards) {
+            cursors.add(new PurchasePageCursor(shard, afterId, from, to, fetchSize));
+        }
+        fanOut(shard -> cursors.get(shard).hasNext());
+        new MergedCursor(Collections.unmodifiableList(cursors)).forEachRemaining(consumer);
+    }
+
+    /**
+     * Lowest and highest purchase id over all shards, or empty when there are no purchases.
+     */
+    public Optional<int[]> idBounds() {
+        List<int[]> ranges = idRanges();
+        return ranges.isEmpty() ? Optional.empty()
+            : Optional.of(new int[] {ranges.get(0)[0], ranges.get(ranges.size() - 1)[1]});
+    }
+
+    /**
+     * Lowest and highest id of each shard as {@code {min, max}} pairs, in id order, with
+     * overlapping pairs merged. In range mode that is one pair per non-empty shard, leaving out
+     * the unused ids between the shards' blocks; in hash mode the shards interleave and give one.
+     */
+    public List<int[]> idRanges() {
+        List<int[]> bounds = new ArrayList<>(shards.size());
+        for (int[] shardBounds : fanOut(shard -> shards.get(shard).queryForObject(ID_BOUNDS, (rs, rowNum) -> {
+                int min = rs.getInt(1);
+                return rs.wasNull() ? null : new int[] {min, rs.getInt(2)};
+            }))) {
+            if (shardBounds != null) {
+                bounds.add(shardBounds);
+            }
+        }
+        bounds.sort(Comparator.comparingInt(range -> range[0]));
+        List<int[]> ranges = new ArrayList<>(bounds.size());
+        for (int[] range : bounds) {
+            int[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && range[0] <= last[1]) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                ranges.add(range);
+            }
+        }
+        return ranges;
+    }
+
+    public PurchaseReport summarize(LocalDate from, LocalDate to) {
+        long count = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        BigDecimal max = null;
+        for (PurchaseReport report : fanOut(shard -> shards.get(shard).queryForObject(SUMMARIZE,
+                (rs, rowNum) -> new PurchaseReport(from, to, rs.getLong(1), rs.getBigDecimal(2), rs.getBigDecimal(3)),
+                Date.valueOf(from), Date.valueOf(to)))) {
+            count += report.count();
+            total = total.add(report.totalAmount());
+            if (report.maxAmount() != null) {
+                max = max == null ? report.maxAmount() : max.max(report.maxAmount());
+            }
+        }
+        return new PurchaseReport(from, to, count, total, max);
+    }
+
+    /**
+     * Runs the query on every shard, in parallel when there is more than one, and returns the
+     * results in shard order.
+     */
+    private <T> List<T> fanOut(IntFunction<T> query) {
+        if (shards.size() == 1) {
+            return Collections.singletonList(query.apply(0));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            int index = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(index), fanOut));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    private void createSchema(int shard) {
+        JdbcTemplate jdbcTemplate = shards.get(shard);
+        String layout = shard + "/" + shards.size() + "/" + mode.name();
+        jdbcTemplate.execute(CREATE_LAYOUT);
+        List<String> stored = jdbcTemplate.query(FIND_LAYOUT,
+            (rs, rowNum) -> rs.getInt(1) + "/" + rs.getInt(2) + "/" + rs.getString(3));
+        if (stored.isEmpty()) {
+            jdbcTemplate.update(INSERT_LAYOUT, shard, shards.size(), mode.name());
+        } else if (!stored.get(0).equals(layout)) {
+            throw new IllegalStateException("Purchase shard " + shard + " was created as shard/count/mode " + stored.get(0) +
+                ", not " + layout + "; the shard count and mode cannot change once purchases are stored");
+        }
+
+        if (mode == Mode.HASH) {
+            jdbcTemplate.execute(String.format(CREATE_PURCHASES, shard + 1, shards.size(),
+                "MOD(id - 1, " + shards.size() + ") = " + shard));
+        } else {
+            int first = shard * rangeSize + 1;
+            int last = first + rangeSize - 1;
+            jdbcTemplate.execute(String.format(CREATE_PURCHASES, first, 1, "id BETWEEN " + first + " AND " + last));
+        }
+        jdbcTemplate.execute(CREATE_DATE_INDEX);
+    }
+
+    private static List<DataSource> dataSources(String urls, int poolSize, String username, String password) {
+        List<String> jdbcUrls = Arrays.stream(urls.split(","))
+            .map(String::trim)
+            .filter(url -> !url.isEmpty())
+            .toList();
+        if (jdbcUrls.isEmpty()) {
+            throw new IllegalStateException("purchase.sharding.urls must list the JDBC url of every shard");
+        }
+        List<DataSource> dataSources = new ArrayList<>(jdbcUrls.size());
+        for (int shard = 0; shard < jdbcUrls.size(); shard++) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("purchase-shard-" + shard);
+            config.setJdbcUrl(jdbcUrls.get(shard));
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(poolSize);
+            dataSources.add(new HikariDataSource(config));
+        }
+        return dataSources;
+    }
+}
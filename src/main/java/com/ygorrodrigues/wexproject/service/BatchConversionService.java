@@ -0,0 +1,83 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.ygorrodrigues.wexproject.exception.CurrencyNotFoundException;
+import com.ygorrodrigues.wexproject.exception.UpstreamRejectedException;
+import com.ygorrodrigues.wexproject.models.BatchExchangeResponse;
+import com.ygorrodrigues.wexproject.models.BatchExchangeResult;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateSeries;
+import com.ygorrodrigues.wexproject.repository.PurchaseReadRepository;
+import com.ygorrodrigues.wexproject.timing.RequestTimings;
+
+@Service
+public class BatchConversionService {
+    
+    @Autowired
+    private PurchaseReadRepository purchaseReadRepository;
+    
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    /**
+     * Converts many purchases to one currency. The purchases are loaded with a single query and
+     * the rates covering all of their windows with a single series request; each distinct
+     * transaction date is then resolved once against that series.
+     */
+    public BatchExchangeResponse convertAll(String countryCurrency, List<Integer> ids) {
+        Set<Integer> distinctIds = new LinkedHashSet<>(ids);
+        
+        long dbStart = RequestTimings.begin();
+        Map<Integer, PurchaseView> purchases = new HashMap<>();
+        for (PurchaseView purchase : purchaseReadRepository.findByIds(distinctIds)) {
+            purchases.put(purchase.id(), purchase);
+        }
+        RequestTimings.end("db", dbStart);
+        
+        ExchangeRateSeries series = purchases.isEmpty() ? null : loadSeries(countryCurrency, purchases.values());
+        Map<LocalDate, Optional<BigDecimal>> ratesByDate = new HashMap<>();
+        List<BatchExchangeResult> results = new ArrayList<>(distinctIds.size());
+        for (Integer id : distinctIds) {
+            PurchaseView purchase = purchases.get(id);
+            if (purchase == null) {
+                results.add(BatchExchangeResult.failed(id, "Purchase not found"));
+                continue;
+            }
+            Optional<BigDecimal> rate = ratesByDate.computeIfAbsent(purchase.transactionDate(),
+                date -> series.findLatest(ExchangeRateService.earliestRateDate(date), date));
+            results.add(rate
+                .map(r -> BatchExchangeResult.converted(id, ExchangeRateService.toResponse(countryCurrency, purchase, r)))
+                .orElseGet(() -> BatchExchangeResult.failed(id, "Purchase cannot be converted to the target currency: " + countryCurrency)));
+        }
+        return new BatchExchangeResponse(countryCurrency, results);
+    }
+    
+    private ExchangeRateSeries loadSeries(String countryCurrency, Iterable<PurchaseView> purchases) {
+        LocalDate earliest = LocalDate.MAX;
+        LocalDate latest = LocalDate.MIN;
+        for (PurchaseView purchase : purchases) {
+            earliest = purchase.transactionDate().isBefore(earliest) ? purchase.transactionDate() : earliest;
+            latest = purchase.transactionDate().isAfter(latest) ? purchase.transactionDate() : latest;
+        }
+        try {
+            return exchangeRateService.getExchangeRateSeries(countryCurrency,
+                ExchangeRateService.earliestRateDate(earliest), latest, UpstreamPriority.INTERACTIVE);
+        } catch (UpstreamRejectedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CurrencyNotFoundException("Unable to fetch exchange rate for currency: " + countryCurrency, e);
+        }
+    }
+}
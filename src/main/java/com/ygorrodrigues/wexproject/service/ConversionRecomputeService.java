@@ -0,0 +1,322 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.ygorrodrigues.wexproject.exception.CurrencyNotFoundException;
+import com.ygorrodrigues.wexproject.models.ConversionJobStatus;
+import com.ygorrodrigues.wexproject.models.PurchaseConversion;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateSeries;
+import com.ygorrodrigues.wexproject.repository.PurchaseConversionRepository;
+import com.ygorrodrigues.wexproject.repository.PurchaseReadRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Recomputes the stored conversions of every purchase into one currency.
+ *
+ * The purchases table is split into id ranges of {@code conversion.recompute.chunk-size} ids,
+ * aligned to multiples of the chunk size so they stay stable as purchases are added. Chunks run
+ * on a fork/join pool and all of them resolve rates from the same immutable
+ * {@link ExchangeRateSeries} snapshot of the currency's full history. Each chunk writes its
+ * conversions in JDBC batches and then records a checkpoint tagged with the fingerprint of that
+ * snapshot, so a job that fails is resumed from the chunks it had not finished. A job started
+ * after the rates were revised has another fingerprint and recomputes every chunk.
+ * Checkpoints are cleared once a job completes.
+ *
+ * Jobs run one at a time on a background thread; they are started from the admin endpoint or
+ * when a sync revises rates of a currency that already has stored conversions.
+ */
+@Service
+public class ConversionRecomputeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversionRecomputeService.class);
+
+    private final PurchaseReadRepository purchaseReadRepository;
+    private final PurchaseConversionRepository purchaseConversionRepository;
+    private final ExchangeRateService exchangeRateService;
+    private final int chunkSize;
+    private final int batchSize;
+    private final LocalDate backfillFrom;
+
+    private final ForkJoinPool pool;
+    private final ExecutorService jobRunner;
+    private final Counter rowsWritten;
+    private final Counter rowsSkipped;
+    private final Timer jobTimer;
+
+    private final Set<String> queued = new HashSet<>(); // guarded by this
+    private volatile Progress running;
+    private volatile ConversionJobStatus lastStatus;
+
+    public ConversionRecomputeService(
+            PurchaseReadRepository purchaseReadRepository,
+            PurchaseConversionRepository purchaseConversionRepository,
+            ExchangeRateService exchangeRateService,
+            MeterRegistry meterRegistry,
+            @Value("${conversion.recompute.parallelism:4}") int parallelism,
+            @Value("${conversion.recompute.chunk-size:10000}") int chunkSize,
+            @Value("${conversion.recompute.batch-size:500}") int batchSize,
+            @Value("${exchange-rate.sync.initial-from:2001-01-01}") String backfillFrom) {
+        this.purchaseReadRepository = purchaseReadRepository;
+        this.purchaseConversionRepository = purchaseConversionRepository;
+        this.exchangeRateService = exchangeRateService;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.backfillFrom = LocalDate.parse(backfillFrom);
+
+        this.pool = new ForkJoinPool(parallelism);
+        this.jobRunner = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("conversion-recompute").daemon().factory());
+        this.rowsWritten = rowsCounter(meterRegistry, "written");
+        this.rowsSkipped = rowsCounter(meterRegistry, "skipped");
+        this.jobTimer = Timer.builder("conversion.recompute.duration").register(meterRegistry);
+    }
+
+    /**
+     * Queues a recompute job for the currency unless one is already waiting to run.
+     */
+    public synchronized boolean submit(String countryCurrency) {
+        if (!queued.add(countryCurrency)) {
+            return false;
+        }
+        jobRunner.execute(() -> {
+            synchronized (this) {
+                queued.remove(countryCurrency); // revisions arriving from now on queue another pass
+            }
+            try {
+                recompute(countryCurrency);
+            } catch (RuntimeException e) {
+                log.warn("Conversion recompute for {} failed: {}", countryCurrency, e.getMessage());
+            }
+        });
+        return true;
+    }
+
+    @EventListener
+    public void onRatesRevised(ExchangeRatesRevisedEvent event) {
+        Set<String> converted = purchaseConversionRepository.convertedCurrencies();
+        for (String countryCurrency : event.countryCurrencies()) {
+            if (converted.contains(countryCurrency)) {
+                submit(countryCurrency);
+            }
+        }
+    }
+
+    /**
+     * The running job, or the last finished one, or null before the first job.
+     */
+    public ConversionJobStatus status() {
+        Progress progress = running;
+        return progress != null ? progress.snapshot("RUNNING", null) : lastStatus;
+    }
+
+    /**
+     * Runs a recompute job on the calling thread, resuming from existing checkpoints.
+     */
+    public ConversionJobStatus recompute(String countryCurrency) {
+        Progress progress = new Progress(countryCurrency);
+        running = progress;
+        try {
+            ExchangeRateSeries series = loadSeries(countryCurrency);
+            long ratesFingerprint = series.fingerprint();
+            int[] chunks = pendingChunks(countryCurrency, ratesFingerprint, progress);
+            pool.invoke(new ChunkTask(countryCurrency, series, ratesFingerprint, chunks, 0, chunks.length, progress));
+            purchaseConversionRepository.clearCheckpoints(countryCurrency);
+
+            ConversionJobStatus status = progress.snapshot("COMPLETED", null);
+            log.info("Recomputed {} conversions into {} ({} without a rate) at {} rows/s",
+                status.rowsWritten(), countryCurrency, status.rowsSkipped(), Math.round(status.rowsPerSecond()));
+            return finish(status, progress);
+        } catch (RuntimeException e) {
+            finish(progress.snapshot("FAILED", e.getMessage()), progress);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobRunner.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    private ConversionJobStatus finish(ConversionJobStatus status, Progress progress) {
+        lastStatus = status;
+        running = null;
+        jobTimer.record(System.nanoTime() - progress.startNanos, TimeUnit.NANOSECONDS);
+        return status;
+    }
+
+    /**
+     * Rates snapshot for the job, backfilled from the Treasury API on the bulk lane when the
+     * store does not hold the currency's full history.
+     */
+    private ExchangeRateSeries loadSeries(String countryCurrency) {
+        ExchangeRateSeries series = exchangeRateService.getExchangeRateSeries(countryCurrency, backfillFrom, LocalDate.now(),
+            UpstreamPriority.BULK_SYNC);
+        if (series.isEmpty()) {
+            throw new CurrencyNotFoundException("No exchange rates found for " + countryCurrency);
+        }
+        return series;
+    }
+
+    /**
+     * Starts of the chunks that cover the purchase ids and are not checkpointed yet. Only the
+     * chunks inside the ranges of {@link PurchaseReadRepository#idRanges()} are walked, so the
+     * unused ids between the shards' id blocks in range mode cost nothing.
+     */
+    private int[] pendingChunks(String countryCurrency, long ratesFingerprint, Progress progress) {
+        List<int[]> ranges = purchaseReadRepository.idRanges();
+        if (ranges.isEmpty()) {
+            return new int[0];
+        }
+        Set<Integer> completed = purchaseConversionRepository.completedChunks(countryCurrency, chunkSize, ratesFingerprint);
+        List<Integer> pending = new ArrayList<>();
+        int total = 0;
+        long next = Long.MIN_VALUE; // first chunk start not walked yet, as two ranges can share a chunk
+        for (int[] range : ranges) {
+            for (long start = Math.max(next, Math.floorDiv(range[0], chunkSize) * (long) chunkSize); start <= range[1]; start += chunkSize) {
+                total++;
+                if (!completed.contains((int) start)) {
+                    pending.add((int) start);
+                }
+                next = start + chunkSize;
+            }
+        }
+        progress.chunksTotal = total;
+        progress.chunksDone.set(total - pending.size());
+        return pending.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void processChunk(String countryCurrency, ExchangeRateSeries series, long ratesFingerprint, int chunkStart,
+            Progress progress) {
+        int chunkEnd = (int) Math.min(Integer.MAX_VALUE, (long) chunkStart + chunkSize);
+        Instant computedAt = Instant.now();
+        List<PurchaseConversion> batch = new ArrayList<>(batchSize);
+        long skipped = 0;
+        for (PurchaseView purchase : purchaseReadRepository.findByIdRange(chunkStart, chunkEnd)) {
+            LocalDate transactionDate = purchase.transactionDate();
+            Optional<BigDecimal> rate = series.findLatest(ExchangeRateService.earliestRateDate(transactionDate), transactionDate);
+            if (rate.isEmpty()) {
+                skipped++;
+                continue;
+            }
+            batch.add(PurchaseConversion.builder()
+                .purchaseId(purchase.id())
+                .countryCurrency(countryCurrency)
+                .exchangeRate(rate.get())
+                .convertedAmount(ExchangeRateService.convertAmount(purchase.amount(), rate.get()))
+                .computedAt(computedAt)
+                .build());
+            if (batch.size() == batchSize) {
+                flush(batch, progress);
+            }
+        }
+        flush(batch, progress);
+        purchaseConversionRepository.markChunkCompleted(countryCurrency, chunkStart, chunkSize, ratesFingerprint);
+        rowsSkipped.increment(skipped);
+        progress.rowsSkipped.addAndGet(skipped);
+        progress.chunksDone.incrementAndGet();
+    }
+
+    private void flush(List<PurchaseConversion> batch, Progress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        purchaseConversionRepository.upsertAll(batch);
+        rowsWritten.increment(batch.size());
+        progress.rowsWritten.addAndGet(batch.size());
+        batch.clear();
+    }
+
+    private static Counter rowsCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("conversion.recompute.rows")
+            .description("Purchases processed by conversion recompute jobs")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Splits the pending chunks in halves until a single chunk is left.
+     */
+    private final class ChunkTask extends RecursiveAction {
+        private final String countryCurrency;
+        private final ExchangeRateSeries series;
+        private final long ratesFingerprint;
+        private final int[] chunks;
+        private final int from;
+        private final int to;
+        private final Progress progress;
+
+        private ChunkTask(String countryCurrency, ExchangeRateSeries series, long ratesFingerprint, int[] chunks, int from, int to,
+                Progress progress) {
+            this.countryCurrency = countryCurrency;
+            this.series = series;
+            this.ratesFingerprint = ratesFingerprint;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) {
+                    processChunk(countryCurrency, series, ratesFingerprint, chunks[from], progress);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                new ChunkTask(countryCurrency, series, ratesFingerprint, chunks, from, middle, progress),
+                new ChunkTask(countryCurrency, series, ratesFingerprint, chunks, middle, to, progress));
+        }
+    }
+
+    private static final class Progress {
+        private final String countryCurrency;
+        private final Instant startedAt = Instant.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicInteger chunksDone = new AtomicInteger();
+        private final AtomicLong rowsWritten = new AtomicLong();
+        private final AtomicLong rowsSkipped = new AtomicLong();
+        private volatile int chunksTotal;
+
+        private Progress(String countryCurrency) {
+            this.countryCurrency = countryCurrency;
+        }
+
+        private ConversionJobStatus snapshot(String state, String error) {
+            long written = rowsWritten.get();
+            long skipped = rowsSkipped.get();
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            return new ConversionJobStatus(countryCurrency, state, chunksTotal, chunksDone.get(), written, skipped,
+                seconds > 0 ? (written + skipped) / seconds : 0,
+                startedAt, "RUNNING".equals(state) ? null : Instant.now(), error);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ygorrodrigues.wexproject.models.CurrencyHeat;
+
+/**
+ * Request frequency per currency as an exponentially decaying count: every lookup adds one,
+ * and the count halves every {@code exchange-rate.prefetch.heat-half-life-ms}. At most
+ * {@code exchange-rate.prefetch.max-tracked} currencies are kept; the coldest are dropped first.
+ * Going over the limit drops a tenth of the table at once, so the ranking needed to find the
+ * coldest runs once every {@code max-tracked / 10} new currencies rather than on each of them.
+ */
+@Component
+public class CurrencyHeatTracker {
+
+    private final double decayPerNano;
+    private final int maxTracked;
+    private final int keptAfterTrim;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    public CurrencyHeatTracker(
+            @Value("${exchange-rate.prefetch.heat-half-life-ms:3600000}") long halfLifeMs,
+            @Value("${exchange-rate.prefetch.max-tracked:1000}") int maxTracked) {
+        this.decayPerNano = Math.log(2) / TimeUnit.MILLISECONDS.toNanos(halfLifeMs);
+        this.maxTracked = maxTracked;
+        this.keptAfterTrim = maxTracked - maxTracked / 10;
+    }
+
+    public void record(String countryCurrency) {
+        if (countryCurrency == null) {
+            return;
+        }
+        entries.computeIfAbsent(countryCurrency, key -> new Entry()).hit(System.nanoTime());
+        if (entries.size() > maxTracked) {
+            trim();
+        }
+    }
+
+    public void markPrefetched(String countryCurrency, Instant prefetchedAt) {
+        Entry entry = entries.get(countryCurrency);
+        if (entry != null) {
+            entry.prefetchedAt = prefetchedAt;
+        }
+    }
+
+    /**
+     * The {@code limit} hottest currencies, hottest first.
+     */
+    public List<CurrencyHeat> top(int limit) {
+        return table().stream().limit(limit).toList();
+    }
+
+    /**
+     * Every tracked currency, hottest first.
+     */
+    public List<CurrencyHeat> table() {
+        long now = System.nanoTime();
+        return entries.entrySet().stream()
+            .map(e -> new CurrencyHeat(e.getKey(), e.getValue().heat(now), e.getValue().prefetchedAt))
+            .sorted(Comparator.comparingDouble(CurrencyHeat::heat).reversed())
+            .toList();
+    }
+
+    /**
+     * Drops the coldest currencies down to {@code keptAfterTrim}. A request arriving while another
+     * one trims doesn't wait for it.
+     */
+    private void trim() {
+        if (!trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<CurrencyHeat> table = table();
+            for (int i = keptAfterTrim; i < table.size(); i++) {
+                entries.remove(table.get(i).countryCurrency());
+            }
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    private final class Entry {
+        // Guarded by this
+        private double heat;
+        private long updatedNanos = System.nanoTime();
+        private volatile Instant prefetchedAt;
+
+        private synchronized void hit(long now) {
+            heat = decay(now) + 1;
+            updatedNanos = now;
+        }
+
+        private synchronized double heat(long now) {
+            return decay(now);
+        }
+
+        private double decay(long now) {
+            return heat * Math.exp(-decayPerNano * Math.max(0, now - updatedNanos));
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ygorrodrigues.wexproject.models.ExchangeRateResponse;
+import com.ygorrodrigues.wexproject.models.PurchaseConversion;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateSeries;
+import com.ygorrodrigues.wexproject.repository.PurchaseConversionRepository;
+import com.ygorrodrigues.wexproject.timing.RequestTimings;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Converts new purchases into the currencies of {@code conversion.eager.currencies} in the
+ * background, so exchange reads for those currencies are answered from the stored conversions.
+ *
+ * Purchases are published once their insert has committed and wait in a queue of at most
+ * {@code queue-capacity} entries; when it is full the purchase is dropped and its reads fall back
+ * to converting on request. A single worker takes up to {@code batch-size} purchases at a time,
+ * waiting at most {@code max-delay-ms} for a batch to fill, and splits the batch into rate
+ * windows no wider than {@code max-span-days}, as {@link RateLookupBatcher} does. Each window
+ * loads the rates of each currency once, on the prefetch lane, and the whole batch is written
+ * with one JDBC batch. Revised rates are applied to the stored conversions by
+ * {@link ConversionRecomputeService}.
+ *
+ * Does nothing while {@code conversion.eager.enabled} is false.
+ */
+@Service
+public class EagerConversionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(EagerConversionPipeline.class);
+
+    private final PurchaseConversionRepository purchaseConversionRepository;
+    private final ExchangeRateService exchangeRateService;
+    private final boolean enabled;
+    private final List<String> currencies;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final int maxSpanDays;
+
+    private final BlockingQueue<Pending> queue;
+    private final Counter published;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter skipped;
+    private final Counter failed;
+    private final Counter readHits;
+    private final Counter readMisses;
+    private final DistributionSummary batchSizes;
+    private final Timer lag;
+
+    private Thread worker;
+
+    public EagerConversionPipeline(
+            PurchaseConversionRepository purchaseConversionRepository,
+            ExchangeRateService exchangeRateService,
+            MeterRegistry meterRegistry,
+            @Value("${conversion.eager.enabled:false}") boolean enabled,
+            @Value("${conversion.eager.currencies:}") String currencies,
+            @Value("${conversion.eager.queue-capacity:10000}") int queueCapacity,
+            @Value("${conversion.eager.batch-size:500}") int batchSize,
+            @Value("${conversion.eager.max-delay-ms:50}") long maxDelayMs,
+            @Value("${conversion.eager.max-span-days:400}") int maxSpanDays) {
+        this.purchaseConversionRepository = purchaseConversionRepository;
+        this.exchangeRateService = exchangeRateService;
+        this.currencies = Arrays.stream(currencies.split(","))
+            .map(String::trim)
+            .filter(currency -> !currency.isEmpty())
+            .toList();
+        this.enabled = enabled && !this.currencies.isEmpty();
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.maxSpanDays = maxSpanDays;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.published = purchasesCounter(meterRegistry, "published");
+        this.dropped = purchasesCounter(meterRegistry, "dropped");
+        this.written = conversionsCounter(meterRegistry, "written");
+        this.skipped = conversionsCounter(meterRegistry, "skipped");
+        this.failed = conversionsCounter(meterRegistry, "failed");
+        this.readHits = readsCounter(meterRegistry, "hit");
+        this.readMisses = readsCounter(meterRegistry, "miss");
+        this.batchSizes = DistributionSummary.builder("conversion.eager.batch.size")
+            .description("Purchases converted together by the eager conversion worker")
+            .register(meterRegistry);
+        this.lag = Timer.builder("conversion.eager.lag")
+            .description("Time from a purchase being published to its conversions being stored")
+            .register(meterRegistry);
+        Gauge.builder("conversion.eager.queue", queue, BlockingQueue::size)
+            .description("Purchases waiting for eager conversion")
+            .register(meterRegistry);
+        Gauge.builder("conversion.eager.oldest_pending_seconds", this, EagerConversionPipeline::oldestPendingSeconds)
+            .description("Age of the oldest purchase waiting for eager conversion")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        worker = Thread.ofPlatform().name("eager-conversion").daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    processNextBatch(TimeUnit.SECONDS.toNanos(1));
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    log.warn("Eager conversion batch failed: {}", e.getMessage());
+                }
+            }
+        });
+        log.info("Eager conversion into {} started", currencies);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Queues a newly inserted purchase for conversion, after the surrounding transaction commits
+     * when there is one.
+     */
+    public void publish(PurchaseView purchase) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(purchase);
+                }
+            });
+        } else {
+            enqueue(purchase);
+        }
+    }
+
+    /**
+     * Stored conversion of the purchase, or empty when the currency is not converted eagerly or
+     * the purchase was not converted yet.
+     */
+    public Optional<ExchangeRateResponse> findPrecomputed(PurchaseView purchase, String countryCurrency) {
+        if (!enabled || !currencies.contains(countryCurrency)) {
+            return Optional.empty();
+        }
+        long start = RequestTimings.begin();
+        Optional<PurchaseConversion> conversion;
+        try {
+            conversion = purchaseConversionRepository.find(purchase.id(), countryCurrency);
+        } finally {
+            RequestTimings.end("db", start);
+        }
+        (conversion.isPresent() ? readHits : readMisses).increment();
+        return conversion.map(stored -> new ExchangeRateResponse(
+            purchase.id(),
+            purchase.description(),
+            purchase.transactionDate(),
+            purchase.amount(),
+            "USD",
+            stored.getConvertedAmount(),
+            countryCurrency,
+            ExchangeRateService.responseRate(stored.getExchangeRate())));
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * Waits up to {@code waitNanos} for a purchase, then converts it together with whatever
+     * arrives within {@code max-delay-ms}, up to {@code batch-size} purchases. Returns the number
+     * of purchases processed.
+     */
+    int processNextBatch(long waitNanos) throws InterruptedException {
+        Pending first = queue.poll(waitNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return 0;
+        }
+        List<Pending> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        long lingerUntil = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = lingerUntil - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        convert(batch);
+        return batch.size();
+    }
+
+    private void enqueue(PurchaseView purchase) {
+        if (queue.offer(new Pending(purchase, System.nanoTime()))) {
+            published.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private void convert(List<Pending> batch) {
+        batchSizes.record(batch.size());
+        Instant computedAt = Instant.now();
+        List<PurchaseConversion> conversions = new ArrayList<>(batch.size() * currencies.size());
+        batch.sort(Comparator.comparing(Pending::transactionDate));
+        int start = 0;
+        for (int i = 1; i <= batch.size(); i++) {
+            if (i == batch.size() || ChronoUnit.DAYS.between(batch.get(start).earliestRateDate(), batch.get(i).transactionDate()) > maxSpanDays) {
+                convertWindow(batch.subList(start, i), computedAt, conversions);
+                start = i;
+            }
+        }
+
+        try {
+            purchaseConversionRepository.upsertAll(conversions);
+            written.increment(conversions.size());
+        } catch (RuntimeException e) {
+            failed.increment(conversions.size());
+            throw e;
+        } finally {
+            long now = System.nanoTime();
+            for (Pending pending : batch) {
+                lag.record(now - pending.enqueuedNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Converts purchases sorted by date, loading the rates of each currency once for the range
+     * every purchase of the window needs.
+     */
+    private void convertWindow(List<Pending> window, Instant computedAt, List<PurchaseConversion> conversions) {
+        LocalDate from = window.get(0).earliestRateDate();
+        LocalDate to = window.get(window.size() - 1).transactionDate();
+        for (String currency : currencies) {
+            ExchangeRateSeries series;
+            try {
+                series = exchangeRateService.getExchangeRateSeries(currency, from, to, UpstreamPriority.PREFETCH);
+            } catch (RuntimeException e) {
+                failed.increment(window.size());
+                log.warn("Eager conversion into {} of {} purchases failed: {}", currency, window.size(), e.getMessage());
+                continue;
+            }
+            for (Pending pending : window) {
+                PurchaseView purchase = pending.purchase();
+                Optional<BigDecimal> rate = series.findLatest(pending.earliestRateDate(), purchase.transactionDate());
+                if (rate.isEmpty()) {
+                    skipped.increment();
+                    continue;
+                }
+                conversions.add(PurchaseConversion.builder()
+                    .purchaseId(purchase.id())
+                    .countryCurrency(currency)
+                    .exchangeRate(rate.get())
+                    .convertedAmount(ExchangeRateService.convertAmount(purchase.amount(), rate.get()))
+                    .computedAt(computedAt)
+                    .build());
+            }
+        }
+    }
+
+    private double oldestPendingSeconds() {
+        Pending oldest = queue.peek();
+        return oldest == null ? 0 : (System.nanoTime() - oldest.enqueuedNanos()) / 1e9;
+    }
+
+    private static Counter purchasesCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("conversion.eager.purchases")
+            .description("Purchases offered to the eager conversion queue")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private static Counter conversionsCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("conversion.eager.conversions")
+            .description("Conversions computed by the eager conversion worker")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private static Counter readsCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("conversion.eager.reads")
+            .description("Exchange reads of eagerly converted currencies")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private record Pending(PurchaseView purchase, long enqueuedNanos) {
+        LocalDate transactionDate() {
+            return purchase.transactionDate();
+        }
+
+        LocalDate earliestRateDate() {
+            return ExchangeRateService.earliestRateDate(purchase.transactionDate());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.ygorrodrigues.wexproject.service;
+
+/**
+ * Receives exchange rate rows decoded by {@link ExchangeRateStreamDecoder}.
+ * The rate is given as an unscaled value plus scale (same meaning as
+ * {@link java.math.BigDecimal#valueOf(long, int)}) and the record date as epoch days.
+ */
+@FunctionalInterface
+public interface ExchangeRateConsumer {
+
+    void accept(String countryCurrency, long unscaledRate, int scale, int recordEpochDay);
+
+}
@@ -0,0 +1,116 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ygorrodrigues.wexproject.models.CurrencyHeat;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateStore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps the recent rates of the hottest currencies in {@link ExchangeRateStore}.
+ *
+ * Every tick looks at the top {@code exchange-rate.prefetch.top-n} currencies of the
+ * {@link CurrencyHeatTracker} and fetches the last {@code window-days} of rates, on the prefetch
+ * lane, for those that were never fetched or whose window is older than {@code refresh-ahead}
+ * of its ttl, so a hot currency is refreshed before lookups stop being served from the store.
+ * Currencies whose window is already freshly covered in the store, by the sync or by a peer, are
+ * left alone.
+ */
+@Component
+@ConditionalOnProperty(name = "exchange-rate.prefetch.enabled", havingValue = "true")
+public class ExchangeRatePrefetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ExchangeRatePrefetcher.class);
+
+    private final ExchangeRateService exchangeRateService;
+    private final ExchangeRateStore exchangeRateStore;
+    private final CurrencyHeatTracker heatTracker;
+    private final int topN;
+    private final double minHeat;
+    private final int windowDays;
+    private final Duration refreshAfter;
+
+    private final Counter refreshed;
+    private final Counter failed;
+
+    public ExchangeRatePrefetcher(
+            ExchangeRateService exchangeRateService,
+            ExchangeRateStore exchangeRateStore,
+            CurrencyHeatTracker heatTracker,
+            MeterRegistry meterRegistry,
+            @Value("${exchange-rate.prefetch.top-n:12}") int topN,
+            @Value("${exchange-rate.prefetch.min-heat:2}") double minHeat,
+            @Value("${exchange-rate.prefetch.window-days:400}") int windowDays,
+            @Value("${exchange-rate.prefetch.ttl-ms:21600000}") long ttlMs,
+            @Value("${exchange-rate.prefetch.refresh-ahead:0.8}") double refreshAhead) {
+        this.exchangeRateService = exchangeRateService;
+        this.exchangeRateStore = exchangeRateStore;
+        this.heatTracker = heatTracker;
+        this.topN = topN;
+        this.minHeat = minHeat;
+        this.windowDays = windowDays;
+        this.refreshAfter = Duration.ofMillis((long) (ttlMs * refreshAhead));
+
+        this.refreshed = Counter.builder("exchange_rate.prefetch").tag("result", "refreshed").register(meterRegistry);
+        this.failed = Counter.builder("exchange_rate.prefetch").tag("result", "failed").register(meterRegistry);
+    }
+
+    @Scheduled(
+        initialDelayString = "${exchange-rate.prefetch.interval:PT1M}",
+        fixedDelayString = "${exchange-rate.prefetch.interval:PT1M}")
+    public void scheduledPrefetch() {
+        prefetch();
+    }
+
+    /**
+     * Refreshes the hot currencies that are due and returns how many were refreshed.
+     */
+    public int prefetch() {
+        Instant now = Instant.now();
+        LocalDate today = LocalDate.now();
+        int count = 0;
+        for (CurrencyHeat currency : heatTracker.top(topN)) {
+            if (currency.heat() < minHeat) {
+                break;
+            }
+            if (currency.prefetchedAt() != null && currency.prefetchedAt().plus(refreshAfter).isAfter(now)) {
+                continue;
+            }
+            if (exchangeRateStore.isCovered(currency.countryCurrency(), today.minusDays(windowDays), today, now.minus(refreshAfter))) {
+                continue;
+            }
+            try {
+                refresh(currency.countryCurrency());
+                refreshed.increment();
+                count++;
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.warn("Prefetching rates for {} failed: {}", currency.countryCurrency(), e.getMessage());
+            }
+        }
+        return count;
+    }
+
+    private void refresh(String countryCurrency) {
+        Instant fetchedAt = Instant.now();
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(windowDays);
+        exchangeRateService.fetchCurrencyRates(countryCurrency, from, to, UpstreamPriority.PREFETCH,
+            (currency, unscaledRate, scale, recordEpochDay) ->
+                exchangeRateStore.upsert(currency, recordEpochDay, BigDecimal.valueOf(unscaledRate, scale)));
+        exchangeRateStore.markCovered(countryCurrency, from, to, fetchedAt);
+        heatTracker.markPrefetched(countryCurrency, fetchedAt);
+    }
+}
@@ -0,0 +1,177 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.ygorrodrigues.wexproject.models.RateSnapshot;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateStore;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateStore.UpsertResult;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Pulls exchange rates from peer instances into {@link ExchangeRateStore}.
+ *
+ * Every tick asks each peer in {@code exchange-rate.replication.peers} for the changes since the
+ * version tag last applied from it; the tags kept per peer act as a version vector. A peer that
+ * has nothing new answers 304, and a peer that restarted answers with a full snapshot. Coverage
+ * windows are copied with their original fetch time, so replicated rates go stale as they would
+ * have on the instance that fetched them.
+ *
+ * With one instance running the sync and the others pulling from it, the fleet makes one set of
+ * upstream calls instead of one per instance.
+ */
+@Service
+@ConditionalOnProperty(name = "exchange-rate.replication.enabled", havingValue = "true")
+public class ExchangeRateReplicator {
+
+    public enum PullResult { FULL, DELTA, NOT_MODIFIED }
+
+    private static final Logger log = LoggerFactory.getLogger(ExchangeRateReplicator.class);
+    private static final String SNAPSHOT_PATH = "/internal/rates/snapshot";
+
+    private final ExchangeRateStore exchangeRateStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RestTemplate restTemplate;
+    private final List<String> peers;
+
+    private final Map<PullResult, Counter> pulls = new ConcurrentHashMap<>();
+    private final Counter failures;
+    private final Counter rowsReceived;
+    private final Map<String, String> peerVersions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ExchangeRateReplicator(
+            ExchangeRateStore exchangeRateStore,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${exchange-rate.replication.peers:}") String peers,
+            @Value("${exchange-rate.replication.connect-timeout:PT2S}") Duration connectTimeout,
+            @Value("${exchange-rate.replication.read-timeout:PT10S}") Duration readTimeout) {
+        this(exchangeRateStore, eventPublisher, meterRegistry, peers, timeoutRestTemplate(connectTimeout, readTimeout));
+    }
+
+    /**
+     * Pulls run on the shared scheduler, so a peer that accepts the connection and never answers
+     * must not hold it past the read timeout.
+     */
+    private static RestTemplate timeoutRestTemplate(Duration connectTimeout, Duration readTimeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeout);
+        requestFactory.setReadTimeout(readTimeout);
+        return new RestTemplate(requestFactory);
+    }
+
+    ExchangeRateReplicator(
+            ExchangeRateStore exchangeRateStore,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            String peers,
+            RestTemplate restTemplate) {
+        this.exchangeRateStore = exchangeRateStore;
+        this.eventPublisher = eventPublisher;
+        this.restTemplate = restTemplate;
+        this.peers = Arrays.stream(peers.split(","))
+            .map(String::trim)
+            .filter(peer -> !peer.isEmpty())
+            .toList();
+
+        for (PullResult result : PullResult.values()) {
+            pulls.put(result, Counter.builder("exchange_rate.replication.pulls")
+                .tag("result", result.name().toLowerCase())
+                .register(meterRegistry));
+        }
+        this.failures = Counter.builder("exchange_rate.replication.pulls").tag("result", "failed").register(meterRegistry);
+        this.rowsReceived = Counter.builder("exchange_rate.replication.rows").register(meterRegistry);
+    }
+
+    @Scheduled(
+        initialDelayString = "${exchange-rate.replication.initial-delay:PT2S}",
+        fixedDelayString = "${exchange-rate.replication.interval:PT30S}")
+    public void scheduledPull() {
+        for (String peer : peers) {
+            try {
+                pull(peer);
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Pulling exchange rates from {} failed, keeping version {}: {}",
+                    peer, peerVersions.get(peer), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Applies the changes a peer has since the last pull from it.
+     */
+    public synchronized PullResult pull(String peer) {
+        String since = peerVersions.get(peer);
+        UriComponentsBuilder uri = UriComponentsBuilder.fromUriString(peer).path(SNAPSHOT_PATH);
+        HttpHeaders headers = new HttpHeaders();
+        if (since != null) {
+            uri.queryParam("since", since);
+            headers.setIfNoneMatch("\"" + since + "\"");
+        }
+
+        ResponseEntity<RateSnapshot> response = restTemplate.exchange(uri.build().toUri(), HttpMethod.GET,
+            new HttpEntity<>(headers), RateSnapshot.class);
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) || response.getBody() == null) {
+            pulls.get(PullResult.NOT_MODIFIED).increment();
+            return PullResult.NOT_MODIFIED;
+        }
+
+        RateSnapshot snapshot = response.getBody();
+        Set<String> revised = new HashSet<>();
+        for (RateSnapshot.Rate rate : snapshot.rates()) {
+            UpsertResult result = exchangeRateStore.upsert(rate.countryCurrency(),
+                (int) rate.recordDate().toEpochDay(), rate.exchangeRate());
+            if (result == UpsertResult.REVISED) {
+                revised.add(rate.countryCurrency());
+            }
+        }
+        // Windows only after their rates, so a lookup never trusts a window whose rates are missing
+        for (RateSnapshot.Coverage window : snapshot.coverage()) {
+            exchangeRateStore.markCovered(window.countryCurrency(), window.from(), window.to(), window.fetchedAt());
+        }
+        peerVersions.put(peer, snapshot.versionTag());
+
+        PullResult result = snapshot.full() ? PullResult.FULL : PullResult.DELTA;
+        pulls.get(result).increment();
+        rowsReceived.increment(snapshot.rates().size());
+        log.debug("Applied {} snapshot from {}: {} rates, {} windows, version {}",
+            result, peer, snapshot.rates().size(), snapshot.coverage().size(), snapshot.versionTag());
+        if (!revised.isEmpty()) {
+            eventPublisher.publishEvent(new ExchangeRatesRevisedEvent(revised));
+        }
+        return result;
+    }
+
+    /**
+     * Version tag last applied from each peer.
+     */
+    public Map<String, String> peerVersions() {
+        return Map.copyOf(peerVersions);
+    }
+}
@@ -2,81 +2,438 @@ package com.ygorrodrigues.wexproject.service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import com.ygorrodrigues.wexproject.exception.CurrencyNotFoundException;
+import com.ygorrodrigues.wexproject.exception.UpstreamRejectedException;
+import com.ygorrodrigues.wexproject.models.ConversionResult;
 import com.ygorrodrigues.wexproject.models.ExchangeRateApiResponse;
 import com.ygorrodrigues.wexproject.models.ExchangeRateData;
 import com.ygorrodrigues.wexproject.models.ExchangeRateResponse;
 import com.ygorrodrigues.wexproject.models.Purchase;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.profiling.ConversionMathEvent;
+import com.ygorrodrigues.wexproject.profiling.RateLookupEvent;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateSeries;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateStore;
+import com.ygorrodrigues.wexproject.timing.RequestTimings;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 @Service
 public class ExchangeRateService {
     
     private final RestTemplate restTemplate;
+    private final ExchangeRateStreamDecoder decoder;
+    private static final Logger log = LoggerFactory.getLogger(ExchangeRateService.class);
     private static final String EXCHANGE_RATE_API_URL = "https://api.fiscaldata.treasury.gov/services/api/fiscal_service/v1/accounting/od/rates_of_exchange";
+    private static final String EXCHANGE_RATE_FIELDS = "country_currency_desc,exchange_rate,record_date";
+    private static final int SERIES_PAGE_SIZE = 1000;
+    
+    @Autowired
+    private UpstreamRequestScheduler upstreamRequestScheduler;
+    
+    @Autowired
+    private HedgedRequestExecutor hedgedRequestExecutor;
+    
+    @Autowired
+    private ExchangeRateStore exchangeRateStore;
+    
+    @Autowired
+    private CurrencyHeatTracker heatTracker;
+    
+    @Value("${exchange-rate.prefetch.ttl-ms:21600000}")
+    private long prefetchTtlMs;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${exchange-rate.batching.enabled:false}")
+    private boolean batchingEnabled;
+    
+    @Value("${exchange-rate.batching.window-ms:5}")
+    private long batchWindowMs;
+    
+    @Value("${exchange-rate.batching.max-size:50}")
+    private int batchMaxSize;
+    
+    @Value("${exchange-rate.batching.max-span-days:400}")
+    private int batchMaxSpanDays;
+
+    @Value("${exchange-rate.batching.max-concurrent:10}")
+    private int batchMaxConcurrent;
+    
+    @Value("${upstream.connect-timeout:PT5S}")
+    private Duration connectTimeout;
+    
+    @Value("${upstream.read-timeout:PT30S}")
+    private Duration readTimeout;
+    
+    private RateLookupBatcher lookupBatcher;
     
     public ExchangeRateService() {
         this.restTemplate = new RestTemplate();
+        this.decoder = new ExchangeRateStreamDecoder();
+    }
+    
+    /**
+     * An interrupt does not abort a blocking read, so the timeouts are what bounds a hung call,
+     * including the losing attempt of a hedged request.
+     */
+    @PostConstruct
+    void configureTimeouts() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeout);
+        requestFactory.setReadTimeout(readTimeout);
+        restTemplate.setRequestFactory(requestFactory);
+    }
+    
+    @PostConstruct
+    void startBatching() {
+        if (batchingEnabled) {
+            lookupBatcher = new RateLookupBatcher(this::loadBatch, meterRegistry, batchWindowMs, batchMaxSize, batchMaxSpanDays,
+                batchMaxConcurrent);
+        }
+    }
+    
+    @PreDestroy
+    void stopBatching() {
+        if (lookupBatcher != null) {
+            lookupBatcher.shutdown();
+        }
     }
 
     public ExchangeRateResponse calculateExchangeRate(String countryCurrency, Purchase purchase) {
+        return convert(countryCurrency, purchase == null ? null : PurchaseView.from(purchase));
+    }
+    
+    public ExchangeRateResponse convert(String countryCurrency, PurchaseView purchase) {
+        if (purchase == null) {
+            throw new CurrencyNotFoundException("Unable to fetch exchange rate for currency: " + countryCurrency);
+        }
+        return switch (tryConvert(countryCurrency, purchase)) {
+            case ConversionResult.Converted converted -> converted.response();
+            case ConversionResult.Failed failed when failed.failure() == ConversionResult.Failure.UPSTREAM_BUSY ->
+                throw new UpstreamRejectedException(failed.detail());
+            case ConversionResult.Failed failed -> throw new CurrencyNotFoundException(failed.detail());
+        };
+    }
+    
+    /**
+     * Converts a purchase for an interactive request. A currency without a usable rate or a
+     * failed upstream call is returned as a {@link ConversionResult.Failed} instead of thrown.
+     */
+    public ConversionResult tryConvert(String countryCurrency, PurchaseView purchase) {
+        Optional<BigDecimal> exchangeRate;
         try {
-            BigDecimal exchangeRate = getExchangeRate(countryCurrency, purchase.getTransactionDate());
-            BigDecimal convertedAmount = purchase.getAmount().multiply(exchangeRate)
-                .setScale(2, RoundingMode.HALF_UP); // Round to 2 decimal places (cents)
-            
-            return new ExchangeRateResponse(
-                purchase.getId(),
-                purchase.getDescription(),
-                purchase.getTransactionDate(),
-                purchase.getAmount(),
-                "USD",
-                convertedAmount,
-                countryCurrency,
-                exchangeRate
-            );
-        } catch (CurrencyNotFoundException e) {
-            throw new CurrencyNotFoundException("Purchase cannot be converted to the target currency: " + countryCurrency);
+            exchangeRate = findExchangeRate(countryCurrency, purchase.transactionDate(), UpstreamPriority.INTERACTIVE);
+        } catch (UpstreamRejectedException e) {
+            return ConversionResult.failed(ConversionResult.Failure.UPSTREAM_BUSY, e.getMessage());
         } catch (Exception e) {
-            throw new CurrencyNotFoundException("Unable to fetch exchange rate for currency: " + countryCurrency);
+            log.warn("Error fetching exchange rate for {}: {}", countryCurrency, e.getMessage());
+            return ConversionResult.failed(ConversionResult.Failure.UPSTREAM_FAILED,
+                "Unable to fetch exchange rate for currency: " + countryCurrency);
+        }
+        if (exchangeRate.isEmpty()) {
+            return ConversionResult.failed(ConversionResult.Failure.NO_RATE,
+                "Purchase cannot be converted to the target currency: " + countryCurrency);
         }
+        
+        ConversionMathEvent mathEvent = new ConversionMathEvent();
+        mathEvent.begin();
+        long mathStart = RequestTimings.begin();
+        ExchangeRateResponse response = toResponse(countryCurrency, purchase, exchangeRate.get());
+        RequestTimings.end("math", mathStart);
+        mathEvent.countryCurrency = countryCurrency;
+        mathEvent.commit();
+        return ConversionResult.converted(response);
+    }
+    
+    public static ExchangeRateResponse toResponse(String countryCurrency, PurchaseView purchase, BigDecimal exchangeRate) {
+        return new ExchangeRateResponse(
+            purchase.id(),
+            purchase.description(),
+            purchase.transactionDate(),
+            purchase.amount(),
+            "USD",
+            convertAmount(purchase.amount(), exchangeRate),
+            countryCurrency,
+            responseRate(exchangeRate)
+        );
+    }
+
+    /**
+     * The rate as responses show it, without trailing zeros: the Treasury may send 1.430 and the
+     * precomputed conversions read back 1.430000, and both answers must carry the same body as
+     * their shared ETag. Whole rates keep scale 0 rather than turning into 1E+1.
+     */
+    public static BigDecimal responseRate(BigDecimal exchangeRate) {
+        BigDecimal rate = exchangeRate.stripTrailingZeros();
+        return rate.scale() < 0 ? rate.setScale(0) : rate;
+    }
+    
+    public static BigDecimal convertAmount(BigDecimal amount, BigDecimal exchangeRate) {
+        return amount.multiply(exchangeRate)
+            .setScale(2, RoundingMode.HALF_UP); // Round to 2 decimal places (cents)
+    }
+    
+    /**
+     * First day whose rates can be used for a purchase: the rate must be equal to or up to
+     * 6 months before the purchase date.
+     */
+    public static LocalDate earliestRateDate(LocalDate transactionDate) {
+        return transactionDate.minusMonths(6);
     }
     
     public BigDecimal getExchangeRate(String countryCurrency, LocalDate transactionDate) {
+        return getExchangeRate(countryCurrency, transactionDate, UpstreamPriority.INTERACTIVE);
+    }
+    
+    public BigDecimal getExchangeRate(String countryCurrency, LocalDate transactionDate, UpstreamPriority priority) {
         try {
-            LocalDate sixMonthsBefore = transactionDate.minusMonths(6);
-            
-            String url = EXCHANGE_RATE_API_URL + 
-                "?fields=country_currency_desc,exchange_rate,record_date" +
-                "&filter=country_currency_desc:eq:" + countryCurrency +
-                ",record_date:gte:" + sixMonthsBefore.toString() +
-                ",record_date:lte:" + transactionDate.toString() +
-                "&sort=-record_date" +
-                "&page[size]=1" + // Only need the first result, since it is ordered
-                "&page[number]=1";
-            
-            ResponseEntity<ExchangeRateApiResponse> response = restTemplate.getForEntity(url, ExchangeRateApiResponse.class);
-            
-            return Optional.ofNullable(response.getBody())
-                .map(ExchangeRateApiResponse::getData)
-                .filter(data -> data != null && !data.isEmpty())
-                .map(data -> data.get(0))
-                .map(ExchangeRateData::getExchangeRate)
-                .map(BigDecimal::new)
+            return findExchangeRate(countryCurrency, transactionDate, priority)
                 .orElseThrow(() -> new CurrencyNotFoundException("Exchange rate data not found for currency: " + countryCurrency));
-        } catch (CurrencyNotFoundException e) {
-            // Re-throw currency not found exceptions
+        } catch (CurrencyNotFoundException | UpstreamRejectedException e) {
+            // Re-throw currency not found and queue timeout exceptions
             throw e;
         } catch (Exception e) {
             // Log error and throw wrapped exception for other errors
-            System.err.println("Error fetching exchange rate: " + e.getMessage());
+            log.warn("Error fetching exchange rate for {}: {}", countryCurrency, e.getMessage());
             throw new CurrencyNotFoundException("Unable to fetch exchange rate for currency: " + countryCurrency, e);
         }
     }
+    
+    /**
+     * Latest rate recorded in the 6 months up to the transaction date, or empty when there is
+     * none. Upstream failures are thrown.
+     */
+    private Optional<BigDecimal> findExchangeRate(String countryCurrency, LocalDate transactionDate, UpstreamPriority priority) {
+        RateLookupEvent event = new RateLookupEvent();
+        event.begin();
+        try {
+            Optional<BigDecimal> rate = findExchangeRate(countryCurrency, transactionDate, priority, event);
+            event.found = rate.isPresent();
+            if (rate.isPresent() || !exchangeRateStore.series(countryCurrency).isEmpty()) {
+                recordHeat(countryCurrency, priority);
+            }
+            return rate;
+        } finally {
+            event.countryCurrency = countryCurrency;
+            event.priority = priority.name();
+            event.commit();
+        }
+    }
+    
+    private Optional<BigDecimal> findExchangeRate(String countryCurrency, LocalDate transactionDate, UpstreamPriority priority,
+            RateLookupEvent event) {
+        LocalDate sixMonthsBefore = earliestRateDate(transactionDate);
+        
+        // Prefetched windows hold every rate of the currency, so a miss there is a real miss
+        Instant freshAfter = Instant.now().minusMillis(prefetchTtlMs);
+        if (exchangeRateStore.isCovered(countryCurrency, sixMonthsBefore, transactionDate, freshAfter)) {
+            event.source = RateLookupEvent.STORE;
+            return exchangeRateStore.findLatest(countryCurrency, sixMonthsBefore, transactionDate);
+        }
+        
+        // Names with a comma cannot be listed in an in:(...) filter, they are looked up on their own
+        if (lookupBatcher != null && priority == UpstreamPriority.INTERACTIVE && countryCurrency.indexOf(',') < 0) {
+            event.source = RateLookupEvent.BATCHED;
+            return lookupBatched(countryCurrency, transactionDate);
+        }
+        
+        event.source = RateLookupEvent.UPSTREAM;
+        
+        String url = buildUrl(
+            "country_currency_desc:eq:" + countryCurrency +
+            ",record_date:gte:" + sixMonthsBefore.toString() +
+            ",record_date:lte:" + transactionDate.toString(),
+            "-record_date",
+            1, // Only need the first result, since it is ordered
+            1);
+        
+        Supplier<ResponseEntity<ExchangeRateApiResponse>> fetch = () -> upstreamRequestScheduler.execute(priority,
+            () -> restTemplate.getForEntity(url, ExchangeRateApiResponse.class));
+        // Only interactive lookups are hedged, background traffic can wait for a slow answer
+        long upstreamStart = RequestTimings.begin();
+        ResponseEntity<ExchangeRateApiResponse> response;
+        try {
+            response = priority == UpstreamPriority.INTERACTIVE
+                ? hedgedRequestExecutor.execute(fetch)
+                : fetch.get();
+        } finally {
+            RequestTimings.end("upstream", upstreamStart);
+        }
+        
+        return Optional.ofNullable(response.getBody())
+            .map(ExchangeRateApiResponse::getData)
+            .filter(data -> data != null && !data.isEmpty())
+            .map(data -> data.get(0))
+            .map(ExchangeRateData::getExchangeRate)
+            .map(BigDecimal::new);
+    }
+
+    private Optional<BigDecimal> lookupBatched(String countryCurrency, LocalDate transactionDate) {
+        long upstreamStart = RequestTimings.begin();
+        try {
+            return lookupBatcher.lookup(countryCurrency, transactionDate).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            RequestTimings.end("upstream", upstreamStart);
+        }
+    }
+    
+    /**
+     * Loads a batch of lookups with one query for all of its currencies. Currencies that have
+     * rates in the range are added to the store and recorded as covered.
+     */
+    Map<String, ExchangeRateSeries> loadBatch(Set<String> countryCurrencies, LocalDate from, LocalDate to) {
+        Instant fetchedAt = Instant.now();
+        String filter = "country_currency_desc:in:(" + String.join(",", countryCurrencies) + ")" +
+            ",record_date:gte:" + from.toString() +
+            ",record_date:lte:" + to.toString();
+        // Each attempt collects into its own map, so a hedge never writes next to the first attempt
+        Map<String, TreeMap<Integer, BigDecimal>> rates = hedgedRequestExecutor.execute(() -> {
+            Map<String, TreeMap<Integer, BigDecimal>> attempt = new HashMap<>();
+            fetchRates(filter, UpstreamPriority.INTERACTIVE, (currency, unscaledRate, scale, recordEpochDay) ->
+                attempt.computeIfAbsent(currency, key -> new TreeMap<>()).put(recordEpochDay, BigDecimal.valueOf(unscaledRate, scale)));
+            return attempt;
+        });
+        
+        Map<String, ExchangeRateSeries> loaded = new HashMap<>();
+        rates.forEach((currency, series) -> {
+            series.forEach((recordEpochDay, rate) -> exchangeRateStore.upsert(currency, recordEpochDay, rate));
+            exchangeRateStore.markCovered(currency, from, to, fetchedAt);
+            loaded.put(currency, ExchangeRateSeries.of(series));
+        });
+        return loaded;
+    }
+
+    /**
+     * Rates of the currency, complete at least between {@code from} and {@code to}. Served from
+     * the store when a fresh window covers the range; otherwise the range is fetched with one
+     * paged request, added to the store and recorded as a covered window. A currency that has no
+     * rates in the store or in the response is not recorded, so unknown names don't pile up
+     * coverage windows; its empty series is returned.
+     */
+    public ExchangeRateSeries getExchangeRateSeries(String countryCurrency, LocalDate from, LocalDate to, UpstreamPriority priority) {
+        if (exchangeRateStore.isCovered(countryCurrency, from, to, Instant.now().minusMillis(prefetchTtlMs))) {
+            ExchangeRateSeries series = exchangeRateStore.series(countryCurrency);
+            if (!series.isEmpty()) {
+                recordHeat(countryCurrency, priority);
+            }
+            return series;
+        }
+        
+        Instant fetchedAt = Instant.now();
+        long upstreamStart = RequestTimings.begin();
+        try {
+            fetchCurrencyRates(countryCurrency, from, to, priority,
+                (currency, unscaledRate, scale, recordEpochDay) ->
+                    exchangeRateStore.upsert(currency, recordEpochDay, BigDecimal.valueOf(unscaledRate, scale)));
+        } finally {
+            RequestTimings.end("upstream", upstreamStart);
+        }
+        ExchangeRateSeries series = exchangeRateStore.series(countryCurrency);
+        if (series.isEmpty()) {
+            return series;
+        }
+        exchangeRateStore.markCovered(countryCurrency, from, to, fetchedAt);
+        recordHeat(countryCurrency, priority);
+        return series;
+    }
+    
+    /**
+     * Counts an interactive lookup of a currency the store knows, once it has been answered, so
+     * requests for made-up currencies don't fill the heat table.
+     */
+    private void recordHeat(String countryCurrency, UpstreamPriority priority) {
+        if (priority == UpstreamPriority.INTERACTIVE) {
+            heatTracker.record(countryCurrency);
+        }
+    }
+
+    /**
+     * Streams one page of the rates recorded on or after {@code fromDate}, oldest first,
+     * into the consumer without binding the response. Returns the number of rows in the page,
+     * counting rows the decoder skipped, so a full page can be told apart from the last one.
+     */
+    public int fetchRatesPage(LocalDate fromDate, int pageSize, int pageNumber, ExchangeRateConsumer consumer) {
+        String url = buildUrl(
+            "record_date:gte:" + fromDate.toString(),
+            "record_date,country_currency_desc", // Stable order so pages don't shift between requests
+            pageSize,
+            pageNumber);
+
+        Integer rows = upstreamRequestScheduler.execute(UpstreamPriority.BULK_SYNC,
+            () -> restTemplate.execute(url, HttpMethod.GET, null,
+                response -> decoder.decode(response.getBody(), consumer)));
+        return rows == null ? 0 : rows;
+    }
+
+    /**
+     * Streams every rate of one currency recorded between {@code from} and {@code to}, oldest
+     * first, paging through the results. Returns the number of rows received.
+     */
+    public int fetchCurrencyRates(String countryCurrency, LocalDate from, LocalDate to,
+            UpstreamPriority priority, ExchangeRateConsumer consumer) {
+        String filter = "country_currency_desc:eq:" + countryCurrency +
+            ",record_date:gte:" + from.toString() +
+            ",record_date:lte:" + to.toString();
+        return fetchRates(filter, priority, consumer);
+    }
+
+    /**
+     * Streams every rate matching the filter, oldest first, paging through the results. Rows are
+     * sorted by currency within a date as well, so a filter over several currencies, whose rows
+     * share record dates, pages in a stable order and no row is skipped or repeated.
+     */
+    private int fetchRates(String filter, UpstreamPriority priority, ExchangeRateConsumer consumer) {
+        int total = 0;
+        int pageNumber = 1;
+        int rows;
+        do {
+            String url = buildUrl(filter, "record_date,country_currency_desc", SERIES_PAGE_SIZE, pageNumber++);
+            Integer pageRows = upstreamRequestScheduler.execute(priority,
+                () -> restTemplate.execute(url, HttpMethod.GET, null,
+                    response -> decoder.decode(response.getBody(), consumer)));
+            rows = pageRows == null ? 0 : pageRows;
+            total += rows;
+        } while (rows == SERIES_PAGE_SIZE);
+        return total;
+    }
+
+    private String buildUrl(String filter, String sort, int pageSize, int pageNumber) {
+        return EXCHANGE_RATE_API_URL +
+            "?fields=" + EXCHANGE_RATE_FIELDS +
+            "&filter=" + filter +
+            "&sort=" + sort +
+            "&page[size]=" + pageSize +
+            "&page[number]=" + pageNumber;
+    }
 }
@@ -0,0 +1,187 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Streaming decoder for Treasury rates_of_exchange responses.
+ *
+ * Reads the {@code data} array token by token and hands every row to an
+ * {@link ExchangeRateConsumer} without building {@code ExchangeRateData} objects.
+ * Rates are parsed straight from the token characters into an unscaled long,
+ * dates into epoch days, and the {@code meta}/{@code links} sections are skipped.
+ */
+@Component
+public class ExchangeRateStreamDecoder {
+
+    private static final String DATA_FIELD = "data";
+    private static final String CURRENCY_FIELD = "country_currency_desc";
+    private static final String RATE_FIELD = "exchange_rate";
+    private static final String RECORD_DATE_FIELD = "record_date";
+
+    // A long holds any 18 digit number, more than enough for published rates
+    private static final int MAX_RATE_DIGITS = 18;
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Decodes a full response body, returning the number of elements in the {@code data} array.
+     * Rows missing the currency, rate or record date are not passed to the consumer but are still
+     * counted, so callers paging on the returned count don't take a page with skipped rows for
+     * the last one.
+     */
+    public int decode(InputStream input, ExchangeRateConsumer consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object at the root of the response");
+            }
+
+            int elements = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (DATA_FIELD.equals(field) && value == JsonToken.START_ARRAY) {
+                    elements += decodeRows(parser, consumer);
+                } else {
+                    parser.skipChildren(); // meta, links and anything else we don't use
+                }
+            }
+            return elements;
+        }
+    }
+
+    private int decodeRows(JsonParser parser, ExchangeRateConsumer consumer) throws IOException {
+        Row row = new Row(); // reused for every element of the array
+        int elements = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+            elements++;
+            row.reset();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case CURRENCY_FIELD -> row.currency = parser.getText();
+                    case RATE_FIELD -> parseRate(parser, row);
+                    case RECORD_DATE_FIELD -> row.epochDay = parseEpochDay(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (row.isComplete()) {
+                consumer.accept(row.currency, row.unscaledRate, row.scale, row.epochDay);
+            }
+        }
+        if (token != JsonToken.END_ARRAY) {
+            throw new JsonParseException(parser, "Expected an object in the data array but found " + token);
+        }
+        return elements;
+    }
+
+    private static void parseRate(JsonParser parser, Row row) throws IOException {
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int end = offset + parser.getTextLength();
+
+        long unscaled = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean seenDot = false;
+        for (int i = offset; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_RATE_DIGITS) {
+                    throw new JsonParseException(parser, "Exchange rate has too many digits");
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (seenDot) {
+                    scale++;
+                }
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                throw new JsonParseException(parser, "Invalid exchange rate: " + parser.getText());
+            }
+        }
+        if (digits == 0) {
+            throw new JsonParseException(parser, "Invalid exchange rate: " + parser.getText());
+        }
+        row.unscaledRate = unscaled;
+        row.scale = scale;
+    }
+
+    private static int parseEpochDay(JsonParser parser) throws IOException {
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        if (parser.getTextLength() != 10 || chars[offset + 4] != '-' || chars[offset + 7] != '-') {
+            throw new JsonParseException(parser, "Invalid record date: " + parser.getText());
+        }
+        int year = digits(parser, chars, offset, 4);
+        int month = digits(parser, chars, offset + 5, 2);
+        int day = digits(parser, chars, offset + 8, 2);
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw new JsonParseException(parser, "Invalid record date: " + parser.getText());
+        }
+        return toEpochDay(year, month, day);
+    }
+
+    private static int digits(JsonParser parser, char[] chars, int offset, int length) throws IOException {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                throw new JsonParseException(parser, "Invalid record date: " + parser.getText());
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2 && (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+
+    /**
+     * Same result as {@code LocalDate.of(year, month, day).toEpochDay()} without the allocation
+     * (days-from-civil over 400 year eras, with years starting in March).
+     */
+    static int toEpochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * ((month + 9) % 12) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static final class Row {
+        private String currency;
+        private long unscaledRate;
+        private int scale;
+        private int epochDay;
+
+        private void reset() {
+            currency = null;
+            unscaledRate = 0;
+            scale = -1;
+            epochDay = Integer.MIN_VALUE;
+        }
+
+        private boolean isComplete() {
+            return currency != null && scale >= 0 && epochDay != Integer.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ygorrodrigues.wexproject.repository.ExchangeRateStore;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateStore.UpsertResult;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Keeps {@link ExchangeRateStore} up to date with the Treasury dataset.
+ *
+ * Each run only asks for rows with {@code record_date} on or after the highest date seen so far
+ * (minus a lookback window, so late revisions of recent rates are picked up) and pages through
+ * them until a short page comes back. The watermark only moves after a run completes, and every
+ * stored currency is then marked as covered from the initial date up to today.
+ * Currencies with revised rates are announced with an {@link ExchangeRatesRevisedEvent}.
+ */
+@Service
+@ConditionalOnProperty(name = "exchange-rate.sync.enabled", havingValue = "true")
+public class ExchangeRateSyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExchangeRateSyncService.class);
+
+    private final ExchangeRateService exchangeRateService;
+    private final ExchangeRateStore exchangeRateStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int pageSize;
+    private final int revisionLookbackDays;
+    private final LocalDate initialFrom;
+
+    private final Counter insertedRows;
+    private final Counter revisedRows;
+    private final Counter unchangedRows;
+    private final Counter failures;
+    private final Timer syncTimer;
+    private final AtomicLong lastSyncEpochSecond = new AtomicLong();
+    private final AtomicLong watermarkEpochDay = new AtomicLong(Long.MIN_VALUE);
+
+    public ExchangeRateSyncService(
+            ExchangeRateService exchangeRateService,
+            ExchangeRateStore exchangeRateStore,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${exchange-rate.sync.page-size:1000}") int pageSize,
+            @Value("${exchange-rate.sync.revision-lookback-days:31}") int revisionLookbackDays,
+            @Value("${exchange-rate.sync.initial-from:2001-01-01}") String initialFrom) {
+        this.exchangeRateService = exchangeRateService;
+        this.exchangeRateStore = exchangeRateStore;
+        this.eventPublisher = eventPublisher;
+        this.pageSize = pageSize;
+        this.revisionLookbackDays = revisionLookbackDays;
+        this.initialFrom = LocalDate.parse(initialFrom);
+
+        this.insertedRows = rowsCounter(meterRegistry, "inserted");
+        this.revisedRows = rowsCounter(meterRegistry, "revised");
+        this.unchangedRows = rowsCounter(meterRegistry, "unchanged");
+        this.failures = Counter.builder("exchange_rate.sync.failures").register(meterRegistry);
+        this.syncTimer = Timer.builder("exchange_rate.sync.duration").register(meterRegistry);
+        Gauge.builder("exchange_rate.sync.last_success", lastSyncEpochSecond, AtomicLong::get)
+            .description("Epoch second of the last completed sync")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        Gauge.builder("exchange_rate.sync.rows_stored", exchangeRateStore, ExchangeRateStore::size)
+            .register(meterRegistry);
+    }
+
+    @Scheduled(
+        initialDelayString = "${exchange-rate.sync.initial-delay:PT5S}",
+        fixedDelayString = "${exchange-rate.sync.interval:PT6H}")
+    public void scheduledSync() {
+        try {
+            sync();
+        } catch (Exception e) {
+            failures.increment();
+            log.warn("Exchange rate sync failed, keeping watermark at {}: {}", getWatermark(), e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one delta sync and returns the number of rows received.
+     */
+    public synchronized int sync() {
+        long start = System.nanoTime();
+        Instant startedAt = Instant.now();
+        LocalDate watermark = getWatermark();
+        LocalDate from = watermark == null ? initialFrom : watermark.minusDays(revisionLookbackDays);
+        long[] highest = {watermarkEpochDay.get()};
+        Set<String> revised = new HashSet<>();
+
+        int total = 0;
+        int pageNumber = 1;
+        int rows;
+        do {
+            rows = exchangeRateService.fetchRatesPage(from, pageSize, pageNumber++,
+                (currency, unscaledRate, scale, recordEpochDay) -> {
+                    if (ingest(currency, BigDecimal.valueOf(unscaledRate, scale), recordEpochDay) == UpsertResult.REVISED) {
+                        revised.add(currency);
+                    }
+                    highest[0] = Math.max(highest[0], recordEpochDay);
+                });
+            total += rows;
+            // Rows the decoder skipped are counted too, so only a short page ends the sync
+        } while (rows == pageSize);
+
+        watermarkEpochDay.set(highest[0]);
+        LocalDate today = LocalDate.now();
+        for (String countryCurrency : exchangeRateStore.currencies()) {
+            exchangeRateStore.markCovered(countryCurrency, initialFrom, today, startedAt);
+        }
+        lastSyncEpochSecond.set(Instant.now().getEpochSecond());
+        syncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("Exchange rate sync from {} received {} rows, watermark is now {}", from, total, getWatermark());
+        if (!revised.isEmpty()) {
+            eventPublisher.publishEvent(new ExchangeRatesRevisedEvent(revised));
+        }
+        return total;
+    }
+
+    /**
+     * Highest record date seen by a completed sync, or null before the first one.
+     */
+    public LocalDate getWatermark() {
+        long epochDay = watermarkEpochDay.get();
+        return epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    public Instant getLastSyncTime() {
+        long epochSecond = lastSyncEpochSecond.get();
+        return epochSecond == 0 ? null : Instant.ofEpochSecond(epochSecond);
+    }
+
+    private UpsertResult ingest(String countryCurrency, BigDecimal rate, int recordEpochDay) {
+        UpsertResult result = exchangeRateStore.upsert(countryCurrency, recordEpochDay, rate);
+        switch (result) {
+            case INSERTED -> insertedRows.increment();
+            case REVISED -> revisedRows.increment();
+            case UNCHANGED -> unchangedRows.increment();
+        }
+        return result;
+    }
+
+    private static Counter rowsCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("exchange_rate.sync.rows")
+            .description("Rows ingested by the exchange rate sync")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
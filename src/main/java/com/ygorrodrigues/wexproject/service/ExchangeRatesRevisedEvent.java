@@ -0,0 +1,9 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.util.Set;
+
+/**
+ * Published after a sync stored changed values for rates that were already known.
+ */
+public record ExchangeRatesRevisedEvent(Set<String> countryCurrencies) {
+}
@@ -0,0 +1,217 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional hedging for upstream calls.
+ *
+ * When enabled, a call that has not answered within the configured percentile of recent call
+ * latencies gets a second identical attempt; the first successful answer wins and the other
+ * attempt is cancelled. Hedges are paid for from a budget that earns a fraction of a token per
+ * call, so the extra load stays below {@code upstream.hedging.budget-percent} of traffic.
+ *
+ * Attempts run on at most {@code upstream.hedging.max-threads} threads. When they are all busy a
+ * call runs on the caller's thread without a hedge. Cancelling the losing attempt only interrupts
+ * it: one still waiting for an upstream permit leaves the queue, but one already reading from the
+ * Treasury API can't be aborted and runs until it answers or reaches {@code upstream.read-timeout}.
+ */
+@Component
+public class HedgedRequestExecutor {
+
+    private static final int LATENCY_WINDOW = 512;
+    private static final int MIN_SAMPLES = 20;
+    private static final int RECOMPUTE_EVERY = 32;
+    private static final double MAX_BUDGET_TOKENS = 10;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final double budgetPerCall;
+
+    private final Counter hedgesIssued;
+    private final Counter hedgesWon;
+    private final Counter hedgesSkipped;
+    private final Counter poolFull;
+    private final ThreadPoolExecutor executor;
+
+    // Ring buffer of recent attempt latencies and the delay derived from it, guarded by this
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private long samples;
+    private long hedgeDelayNanos;
+    private double budgetTokens = MAX_BUDGET_TOKENS;
+
+    public HedgedRequestExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${upstream.hedging.enabled:false}") boolean enabled,
+            @Value("${upstream.hedging.percentile:0.95}") double percentile,
+            @Value("${upstream.hedging.min-delay-ms:50}") long minDelayMs,
+            @Value("${upstream.hedging.max-delay-ms:1000}") long maxDelayMs,
+            @Value("${upstream.hedging.budget-percent:10}") double budgetPercent,
+            @Value("${upstream.hedging.max-threads:32}") int maxThreads) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMs);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.budgetPerCall = budgetPercent / 100;
+        this.hedgeDelayNanos = maxDelayNanos;
+
+        this.hedgesIssued = Counter.builder("upstream.hedges").tag("result", "issued").register(meterRegistry);
+        this.hedgesWon = Counter.builder("upstream.hedges").tag("result", "won").register(meterRegistry);
+        this.hedgesSkipped = Counter.builder("upstream.hedges").tag("result", "over_budget").register(meterRegistry);
+        this.poolFull = Counter.builder("upstream.hedges").tag("result", "pool_full").register(meterRegistry);
+        this.executor = enabled
+            ? new ThreadPoolExecutor(0, Math.max(1, maxThreads), 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                Thread.ofPlatform().name("upstream-hedge-", 0).daemon().factory())
+            : null;
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        depositBudget();
+
+        Race<T> race = new Race<>();
+        Future<?> primary;
+        try {
+            primary = executor.submit(() -> race.run(call, false));
+        } catch (RejectedExecutionException e) {
+            poolFull.increment();
+            return call.get();
+        }
+        Future<?> hedge = null;
+        try {
+            try {
+                return race.result.get(currentHedgeDelayNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (tryWithdrawBudget() && race.addAttempt()) {
+                    try {
+                        hedge = executor.submit(() -> race.run(call, true));
+                        hedgesIssued.increment();
+                    } catch (RejectedExecutionException rejected) {
+                        poolFull.increment();
+                        refundBudget();
+                        race.removeAttempt();
+                    }
+                }
+            }
+            return race.result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the exchange rate API", e);
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    synchronized long currentHedgeDelayNanos() {
+        return hedgeDelayNanos;
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[(int) (samples++ % LATENCY_WINDOW)] = nanos;
+        if (samples >= MIN_SAMPLES && samples % RECOMPUTE_EVERY == 0) {
+            long[] window = Arrays.copyOf(latencies, (int) Math.min(samples, LATENCY_WINDOW));
+            Arrays.sort(window);
+            long value = window[(int) Math.min(window.length - 1, Math.ceil(percentile * window.length) - 1)];
+            hedgeDelayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, value));
+        }
+    }
+
+    private synchronized void depositBudget() {
+        budgetTokens = Math.min(MAX_BUDGET_TOKENS, budgetTokens + budgetPerCall);
+    }
+
+    private synchronized void refundBudget() {
+        budgetTokens = Math.min(MAX_BUDGET_TOKENS, budgetTokens + 1);
+    }
+
+    private synchronized boolean tryWithdrawBudget() {
+        if (budgetTokens >= 1) {
+            budgetTokens -= 1;
+            return true;
+        }
+        hedgesSkipped.increment();
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * First successful attempt completes the result; it only fails once every attempt failed.
+     */
+    private final class Race<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicInteger outstanding = new AtomicInteger(1);
+        private final AtomicBoolean decided = new AtomicBoolean();
+        private volatile Throwable lastFailure;
+
+        private void run(Supplier<T> call, boolean hedge) {
+            long start = System.nanoTime();
+            try {
+                T value = call.get();
+                recordLatency(System.nanoTime() - start);
+                if (decided.compareAndSet(false, true)) {
+                    if (hedge) {
+                        hedgesWon.increment();
+                    }
+                    result.complete(value);
+                }
+            } catch (Throwable t) {
+                lastFailure = t;
+                if (outstanding.decrementAndGet() == 0) {
+                    result.completeExceptionally(t);
+                }
+            }
+        }
+
+        /**
+         * Registers another attempt unless every attempt already failed.
+         */
+        private boolean addAttempt() {
+            return outstanding.getAndUpdate(n -> n == 0 ? 0 : n + 1) > 0;
+        }
+
+        /**
+         * Takes back an attempt that could not be started.
+         */
+        private void removeAttempt() {
+            if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(lastFailure);
+            }
+        }
+    }
+}
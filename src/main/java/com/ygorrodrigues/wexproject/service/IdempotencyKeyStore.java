@@ -0,0 +1,162 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ygorrodrigues.wexproject.exception.IdempotencyKeyReusedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Results of requests made with an {@code Idempotency-Key}, so a retried request gets the
+ * stored result instead of running again.
+ *
+ * The first request with a key runs the action; requests with the same key arriving while it
+ * runs wait for it and get the same result. Each key remembers a fingerprint of its request,
+ * and reusing a key for a different request is rejected. Keys expire
+ * {@code idempotency.ttl-ms} after they were first used, and at most
+ * {@code idempotency.max-keys} are kept; the oldest are dropped first. A failed action is
+ * forgotten, so the client can retry it with the same key.
+ */
+@Component
+public class IdempotencyKeyStore {
+
+    /**
+     * Result of an action, and whether it was stored by an earlier request.
+     */
+    public record Outcome<T>(T result, boolean replayed) {
+    }
+
+    private final long ttlNanos;
+    private final int maxKeys;
+    private final LongSupplier nanoClock;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(); // guarded by this, oldest first
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter coalesced;
+    private final Counter rejected;
+
+    @Autowired
+    public IdempotencyKeyStore(
+            MeterRegistry meterRegistry,
+            @Value("${idempotency.ttl-ms:86400000}") long ttlMs,
+            @Value("${idempotency.max-keys:100000}") int maxKeys) {
+        this(meterRegistry, ttlMs, maxKeys, System::nanoTime);
+    }
+
+    IdempotencyKeyStore(MeterRegistry meterRegistry, long ttlMs, int maxKeys, LongSupplier nanoClock) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxKeys = maxKeys;
+        this.nanoClock = nanoClock;
+        this.executed = requestsCounter(meterRegistry, "executed");
+        this.replayed = requestsCounter(meterRegistry, "replayed");
+        this.coalesced = requestsCounter(meterRegistry, "coalesced");
+        this.rejected = requestsCounter(meterRegistry, "rejected");
+        Gauge.builder("idempotency.keys", this, IdempotencyKeyStore::size)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Runs the action once per key and returns its result to every request with that key.
+     *
+     * @throws IdempotencyKeyReusedException when the key was used for a request with another fingerprint
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Outcome<T> execute(String key, Object fingerprint, Supplier<T> action) {
+        Entry entry;
+        boolean owner = false;
+        synchronized (this) {
+            long now = nanoClock.getAsLong();
+            evict(now);
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(fingerprint, now);
+                entries.put(key, entry);
+                owner = true;
+                if (entries.size() > maxKeys) {
+                    Iterator<Entry> oldest = entries.values().iterator();
+                    oldest.next();
+                    oldest.remove();
+                }
+            }
+        }
+
+        if (!entry.fingerprint.equals(fingerprint)) {
+            rejected.increment();
+            throw new IdempotencyKeyReusedException("Idempotency key " + key + " was already used for a different request");
+        }
+        if (owner) {
+            executed.increment();
+            return new Outcome<>(run(key, entry, action), false);
+        }
+        (entry.result.isDone() ? replayed : coalesced).increment();
+        try {
+            return new Outcome<>((T) entry.result.join(), true);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private <T> T run(String key, Entry entry, Supplier<T> action) {
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                entries.remove(key, entry);
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        entry.result.complete(result);
+        return result;
+    }
+
+    /**
+     * Drops the expired keys, which are all at the start since entries are in creation order.
+     */
+    private void evict(long now) {
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (oldest.hasNext() && now - oldest.next().createdNanos >= ttlNanos) {
+            oldest.remove();
+        }
+    }
+
+    private static Counter requestsCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("idempotency.requests")
+            .description("Requests made with an Idempotency-Key")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private static final class Entry {
+        private final Object fingerprint;
+        private final long createdNanos;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(Object fingerprint, long createdNanos) {
+            this.fingerprint = fingerprint;
+            this.createdNanos = createdNanos;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.repository.PurchaseArchive;
+import com.ygorrodrigues.wexproject.repository.PurchaseReadRepository;
+import com.ygorrodrigues.wexproject.repository.PurchaseRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Moves purchases with a transaction date older than {@code purchase.archive.min-age-days} out
+ * of the purchases table into {@link PurchaseArchive} segments, so the table and its indexes
+ * only hold the recent purchases that most conversions are for.
+ *
+ * Each pass takes the old purchases in id order, {@code segment-rows} at a time, writes them to
+ * a new segment and only then deletes them from the table, so a purchase is always readable
+ * from one of the two. A crash between the two steps leaves the rows of the newest segment in
+ * the table as well; the first pass after a restart deletes them again.
+ */
+@Service
+@ConditionalOnProperty(name = "purchase.archive.enabled", havingValue = "true")
+public class PurchaseArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseArchiver.class);
+    private static final int DELETE_BATCH = 1000;
+
+    private final PurchaseReadRepository purchaseReadRepository;
+    private final PurchaseRepository purchaseRepository;
+    private final PurchaseArchive purchaseArchive;
+    private final int minAgeDays;
+    private final int segmentRows;
+
+    private final Counter archivedRows;
+    private boolean recovered; // guarded by this
+
+    public PurchaseArchiver(
+            PurchaseReadRepository purchaseReadRepository,
+            PurchaseRepository purchaseRepository,
+            PurchaseArchive purchaseArchive,
+            MeterRegistry meterRegistry,
+            @Value("${purchase.archive.min-age-days:365}") int minAgeDays,
+            @Value("${purchase.archive.segment-rows:100000}") int segmentRows) {
+        this.purchaseReadRepository = purchaseReadRepository;
+        this.purchaseRepository = purchaseRepository;
+        this.purchaseArchive = purchaseArchive;
+        this.minAgeDays = minAgeDays;
+        this.segmentRows = segmentRows;
+
+        this.archivedRows = Counter.builder("purchase.archive.archived")
+            .description("Purchases moved from the table to the archive")
+            .register(meterRegistry);
+        Gauge.builder("purchase.archive.rows", purchaseArchive, PurchaseArchive::rows)
+            .register(meterRegistry);
+        Gauge.builder("purchase.archive.segments", purchaseArchive, PurchaseArchive::segmentCount)
+            .register(meterRegistry);
+    }
+
+    @Scheduled(
+        initialDelayString = "${purchase.archive.initial-delay:PT1M}",
+        fixedDelayString = "${purchase.archive.interval:PT1H}")
+    public void scheduledArchive() {
+        try {
+            archive();
+        } catch (Exception e) {
+            log.warn("Purchase archiving failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one pass and returns the number of purchases archived.
+     */
+    public synchronized int archive() {
+        if (!recovered) {
+            delete(purchaseArchive.newestSegmentIds());
+            recovered = true;
+        }
+        LocalDate before = LocalDate.now().minusDays(minAgeDays);
+        int total = 0;
+        List<PurchaseView> purchases;
+        do {
+            purchases = purchaseReadRepository.findStoredBefore(before, segmentRows);
+            if (purchases.isEmpty()) {
+                break;
+            }
+            purchaseArchive.append(purchases);
+            delete(purchases.stream().map(PurchaseView::id).toList());
+            archivedRows.increment(purchases.size());
+            total += purchases.size();
+        } while (purchases.size() == segmentRows);
+
+        if (total > 0) {
+            log.info("Archived {} purchases made before {}, the archive now holds {} purchases in {} segments",
+                total, before, purchaseArchive.rows(), purchaseArchive.segmentCount());
+        }
+        return total;
+    }
+
+    private void delete(List<Integer> ids) {
+        for (int start = 0; start < ids.size(); start += DELETE_BATCH) {
+            purchaseRepository.deleteAllByIdInBatch(ids.subList(start, Math.min(start + DELETE_BATCH, ids.size())));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.repository.PurchaseReadRepository;
+
+/**
+ * Writes purchases to a stream as CSV or newline delimited JSON, in id order, reading them in
+ * keyset pages of {@code purchase.export.fetch-size} rows. Only the current page is held in
+ * memory, and the output is flushed after every page so clients see progress. A client that lost the connection can
+ * resume with {@code afterId} set to the last id it received.
+ */
+@Service
+public class PurchaseExportService {
+
+    private static final String CSV_HEADER = "id,description,amount,transaction_date\n";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    @Autowired
+    private PurchaseReadRepository purchaseReadRepository;
+    
+    @Value("${purchase.export.fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * Writes the matching purchases and returns how many were written. The transaction keeps
+     * one connection for all the pages of the export.
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportFormat format, Integer afterId, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonGenerator json = null;
+        if (format == ExportFormat.NDJSON) {
+            json = JSON_FACTORY.createGenerator(writer);
+            json.setRootValueSeparator(null); // every object ends with its own line break
+        }
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+        
+        JsonGenerator generator = json;
+        long[] rows = {0};
+        try {
+            purchaseReadRepository.forEachPurchase(
+                afterId == null ? 0 : afterId,
+                from == null ? LocalDate.of(1, 1, 1) : from,
+                to == null ? LocalDate.of(9999, 12, 31) : to,
+                fetchSize,
+                purchase -> {
+                    try {
+                        if (generator != null) {
+                            writeJson(generator, purchase);
+                        } else {
+                            writeCsv(writer, purchase);
+                        }
+                        if (++rows[0] % fetchSize == 0) {
+                            flush(generator, writer);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        flush(json, writer);
+        return rows[0];
+    }
+    
+    private static void writeJson(JsonGenerator json, PurchaseView purchase) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", purchase.id());
+        json.writeStringField("description", purchase.description());
+        json.writeNumberField("amount", purchase.amount());
+        json.writeStringField("transactionDate", purchase.transactionDate().toString());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+    
+    private static void writeCsv(Writer writer, PurchaseView purchase) throws IOException {
+        writer.write(Integer.toString(purchase.id()));
+        writer.write(',');
+        writer.write(csvField(purchase.description()));
+        writer.write(',');
+        writer.write(purchase.amount().toPlainString());
+        writer.write(',');
+        writer.write(purchase.transactionDate().toString());
+        writer.write('\n');
+    }
+    
+    /**
+     * Quotes a field that contains a separator, quote or line break, doubling inner quotes (RFC 4180).
+     */
+    static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+    
+    private static void flush(JsonGenerator json, Writer writer) throws IOException {
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+    }
+}
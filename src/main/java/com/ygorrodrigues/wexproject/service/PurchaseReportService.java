@@ -0,0 +1,32 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.ygorrodrigues.wexproject.models.PurchaseReport;
+import com.ygorrodrigues.wexproject.repository.PurchaseColumnStore;
+import com.ygorrodrigues.wexproject.repository.PurchaseReadRepository;
+
+@Service
+public class PurchaseReportService {
+    
+    @Autowired
+    private PurchaseReadRepository purchaseReadRepository;
+    
+    @Autowired
+    private ObjectProvider<PurchaseColumnStore> purchaseColumnStore;
+
+    /**
+     * Summarizes purchases from the column store when it is enabled, otherwise with a SQL aggregate.
+     */
+    public PurchaseReport summarize(LocalDate from, LocalDate to) {
+        PurchaseColumnStore columnStore = purchaseColumnStore.getIfAvailable();
+        if (columnStore != null) {
+            return columnStore.summarize(from, to);
+        }
+        return purchaseReadRepository.summarize(from, to);
+    }
+}
@@ -9,13 +9,31 @@ import org.springframework.stereotype.Service;
 import com.ygorrodrigues.wexproject.exception.SavePurchaseException;
 import com.ygorrodrigues.wexproject.models.Purchase;
 import com.ygorrodrigues.wexproject.models.PurchaseRequest;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.profiling.PurchaseStorageEvent;
+import com.ygorrodrigues.wexproject.repository.PurchaseArchive;
+import com.ygorrodrigues.wexproject.repository.PurchaseReadRepository;
 import com.ygorrodrigues.wexproject.repository.PurchaseRepository;
+import com.ygorrodrigues.wexproject.repository.PurchaseShards;
+import com.ygorrodrigues.wexproject.timing.RequestTimings;
 
 @Service
 public class PurchaseService {
     
     @Autowired
     private PurchaseRepository purchaseRepository;
+    
+    @Autowired
+    private PurchaseReadRepository purchaseReadRepository;
+    
+    @Autowired
+    private PurchaseArchive purchaseArchive;
+    
+    @Autowired
+    private EagerConversionPipeline eagerConversionPipeline;
+    
+    @Autowired
+    private PurchaseShards purchaseShards;
 
     public Purchase processPurchase(PurchaseRequest request) {
         Purchase purchase = Purchase.builder()
@@ -24,19 +42,80 @@ public class PurchaseService {
             .transactionDate(request.getTransactionDate())
             .build();
 
+        PurchaseStorageEvent event = new PurchaseStorageEvent();
+        event.begin();
+        Purchase saved = null;
         try {
-            return purchaseRepository.save(purchase);
+            saved = purchaseShards.isEnabled() ? insertIntoShard(purchase) : purchaseRepository.save(purchase);
         } catch (Exception e) {
             throw new SavePurchaseException("Error while saving purchase.");
+        } finally {
+            commit(event, PurchaseStorageEvent.SAVE, saved == null ? null : saved.getId(), saved != null);
         }
+        eagerConversionPipeline.publish(PurchaseView.from(saved));
+        return saved;
     }
     
+    /**
+     * Purchase from the table, or its shard when purchases are sharded, or rebuilt from the
+     * archive when it was moved there.
+     */
     public Purchase findById(Integer id) {
+        PurchaseStorageEvent event = new PurchaseStorageEvent();
+        event.begin();
+        long start = RequestTimings.begin();
+        Purchase found = null;
         try {
-            Optional<Purchase> purchase = purchaseRepository.findById(id);
-            return purchase.orElse(null);
+            Optional<Purchase> purchase = purchaseShards.isEnabled()
+                ? purchaseShards.findById(id).map(PurchaseService::toPurchase)
+                : purchaseRepository.findById(id);
+            found = purchase.isPresent()
+                ? purchase.get()
+                : purchaseArchive.findById(id)
+                    .map(PurchaseService::toPurchase)
+                    .orElse(null);
+            return found;
         } catch (Exception e) {
             return null;
+        } finally {
+            RequestTimings.end("db", start);
+            commit(event, PurchaseStorageEvent.FIND, id, found != null);
+        }
+    }
+    
+    /**
+     * Read-only lookup that bypasses JPA, for paths that only need the purchase fields.
+     */
+    public PurchaseView findViewById(Integer id) {
+        PurchaseStorageEvent event = new PurchaseStorageEvent();
+        event.begin();
+        long start = RequestTimings.begin();
+        PurchaseView found = null;
+        try {
+            found = purchaseReadRepository.findById(id).orElse(null);
+            return found;
+        } catch (Exception e) {
+            return null;
+        } finally {
+            RequestTimings.end("db", start);
+            commit(event, PurchaseStorageEvent.FIND_VIEW, id, found != null);
+        }
+    }
+    
+    private Purchase insertIntoShard(Purchase purchase) {
+        return toPurchase(purchaseShards.insert(purchase.getDescription(), purchase.getAmount(), purchase.getTransactionDate()));
+    }
+    
+    private static Purchase toPurchase(PurchaseView view) {
+        return new Purchase(view.id(), view.description(), view.amount(), view.transactionDate());
+    }
+    
+    private static void commit(PurchaseStorageEvent event, String operation, Integer id, boolean found) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.purchaseId = id == null ? 0 : id;
+            event.found = found;
+            event.commit();
         }
     }
 }
@@ -0,0 +1,198 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.ygorrodrigues.wexproject.repository.ExchangeRateSeries;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Combines rate lookups for different currencies into one upstream query.
+ *
+ * The first lookup of a batch starts a window of {@code exchange-rate.batching.window-ms}; every
+ * lookup arriving before it closes (or until {@code max-size} lookups are waiting) joins the batch.
+ * A batch is loaded with one query for all of its currencies over a date range wide enough for
+ * every lookup, and each lookup then picks its own rate from the result. Lookups whose rate
+ * windows lie further apart than {@code max-span-days} are loaded with separate queries, so
+ * one old purchase does not widen the query for the rest.
+ *
+ * At most {@code max-concurrent} batches are loaded at once, each on its own thread for the
+ * length of the upstream call. A batch that closes while they are all busy is loaded by the
+ * thread that closed it: the lookup that filled it, or the window timer, which then holds the
+ * next windows open until it is done.
+ */
+final class RateLookupBatcher {
+
+    /**
+     * Loads every rate of the currencies recorded between {@code from} and {@code to}.
+     */
+    @FunctionalInterface
+    interface Loader {
+        Map<String, ExchangeRateSeries> load(Set<String> countryCurrencies, LocalDate from, LocalDate to);
+    }
+
+    private final Loader loader;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final int maxSpanDays;
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService dispatcher;
+    private final DistributionSummary batchSize;
+    private final DistributionSummary batchCurrencies;
+    private final Timer queueDelay;
+
+    private final Object lock = new Object();
+    private List<Lookup> pending = new ArrayList<>(); // guarded by lock
+    private ScheduledFuture<?> windowClose; // guarded by lock
+
+    RateLookupBatcher(Loader loader, MeterRegistry meterRegistry, long windowMs, int maxBatchSize, int maxSpanDays,
+            int maxConcurrent) {
+        this.loader = loader;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxBatchSize = maxBatchSize;
+        this.maxSpanDays = maxSpanDays;
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("rate-batch-timer").daemon().factory());
+        this.dispatcher = new ThreadPoolExecutor(0, Math.max(1, maxConcurrent), 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+            Thread.ofPlatform().name("rate-batch-", 0).daemon().factory(), new ThreadPoolExecutor.CallerRunsPolicy());
+        this.batchSize = DistributionSummary.builder("exchange_rate.batch.size")
+            .description("Lookups answered by one upstream query")
+            .register(meterRegistry);
+        this.batchCurrencies = DistributionSummary.builder("exchange_rate.batch.currencies")
+            .description("Distinct currencies in one upstream query")
+            .register(meterRegistry);
+        this.queueDelay = Timer.builder("exchange_rate.batch.queue_delay")
+            .description("Time a lookup waited for its batch to be sent")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Rate for a purchase made on {@code transactionDate}, or empty when the currency has no rate
+     * in the 6 months before it.
+     */
+    CompletableFuture<Optional<BigDecimal>> lookup(String countryCurrency, LocalDate transactionDate) {
+        Lookup lookup = new Lookup(countryCurrency, transactionDate, System.nanoTime());
+        List<Lookup> full = null;
+        synchronized (lock) {
+            pending.add(lookup);
+            if (pending.size() >= maxBatchSize) {
+                full = drain();
+            } else if (pending.size() == 1) {
+                windowClose = timer.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return lookup.result;
+    }
+
+    void shutdown() {
+        timer.shutdownNow();
+        dispatcher.shutdownNow();
+    }
+
+    private void flush() {
+        List<Lookup> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private List<Lookup> drain() {
+        if (windowClose != null) {
+            windowClose.cancel(false);
+            windowClose = null;
+        }
+        List<Lookup> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void dispatch(List<Lookup> batch) {
+        dispatcher.execute(() -> {
+            long now = System.nanoTime();
+            for (Lookup lookup : batch) {
+                queueDelay.record(now - lookup.enqueuedNanos, TimeUnit.NANOSECONDS);
+            }
+            batch.sort(Comparator.comparing(Lookup::transactionDate));
+            int start = 0;
+            for (int i = 1; i <= batch.size(); i++) {
+                if (i == batch.size() || ChronoUnit.DAYS.between(batch.get(start).earliestRateDate(), batch.get(i).transactionDate()) > maxSpanDays) {
+                    load(batch.subList(start, i));
+                    start = i;
+                }
+            }
+        });
+    }
+
+    /**
+     * Loads one group of lookups sorted by transaction date.
+     */
+    private void load(List<Lookup> group) {
+        Set<String> currencies = new LinkedHashSet<>();
+        for (Lookup lookup : group) {
+            currencies.add(lookup.countryCurrency);
+        }
+        batchSize.record(group.size());
+        batchCurrencies.record(currencies.size());
+
+        Map<String, ExchangeRateSeries> loaded;
+        try {
+            loaded = loader.load(currencies, group.get(0).earliestRateDate(), group.get(group.size() - 1).transactionDate);
+        } catch (RuntimeException e) {
+            group.forEach(lookup -> lookup.result.completeExceptionally(e));
+            return;
+        }
+        for (Lookup lookup : group) {
+            ExchangeRateSeries series = loaded.get(lookup.countryCurrency);
+            lookup.result.complete(series == null
+                ? Optional.empty()
+                : series.findLatest(lookup.earliestRateDate(), lookup.transactionDate));
+        }
+    }
+
+    private static final class Lookup {
+        private final String countryCurrency;
+        private final LocalDate transactionDate;
+        private final long enqueuedNanos;
+        private final CompletableFuture<Optional<BigDecimal>> result = new CompletableFuture<>();
+
+        private Lookup(String countryCurrency, LocalDate transactionDate, long enqueuedNanos) {
+            this.countryCurrency = countryCurrency;
+            this.transactionDate = transactionDate;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        private LocalDate transactionDate() {
+            return transactionDate;
+        }
+
+        private LocalDate earliestRateDate() {
+            return ExchangeRateService.earliestRateDate(transactionDate);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.ygorrodrigues.wexproject.service;
+
+/**
+ * Lanes of the {@link UpstreamRequestScheduler}, highest priority first.
+ */
+public enum UpstreamPriority {
+    INTERACTIVE,
+    PREFETCH,
+    BULK_SYNC
+}
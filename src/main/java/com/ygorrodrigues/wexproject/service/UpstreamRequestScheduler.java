@@ -0,0 +1,177 @@
+package com.ygorrodrigues.wexproject.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ygorrodrigues.wexproject.exception.UpstreamRejectedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Gate for every call made to the Treasury API.
+ *
+ * Calls take a permit from a token bucket before running. Callers waiting for a permit queue
+ * in one lane per {@link UpstreamPriority}, and the head of the highest non-empty lane always
+ * goes first. A caller that has not been admitted within its lane's queue timeout gives up
+ * with an {@link UpstreamRejectedException}. The call itself runs on the caller's thread.
+ * A caller interrupted while waiting, such as the losing attempt of a hedged request, leaves
+ * the queue too but is counted as cancelled rather than rejected.
+ */
+@Component
+public class UpstreamRequestScheduler {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Lane[] lanes;
+
+    // Token bucket, guarded by lock. A non-positive rate disables limiting.
+    private final double permitsPerNano;
+    private final double burst;
+    private double tokens;
+    private long lastRefill;
+
+    public UpstreamRequestScheduler(
+            MeterRegistry meterRegistry,
+            @Value("${upstream.scheduler.permits-per-second:10}") double permitsPerSecond,
+            @Value("${upstream.scheduler.burst:10}") int burst,
+            @Value("${upstream.scheduler.queue-timeout-ms.interactive:2000}") long interactiveTimeoutMs,
+            @Value("${upstream.scheduler.queue-timeout-ms.prefetch:10000}") long prefetchTimeoutMs,
+            @Value("${upstream.scheduler.queue-timeout-ms.bulk-sync:60000}") long bulkSyncTimeoutMs) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.lastRefill = System.nanoTime();
+
+        long[] timeouts = {interactiveTimeoutMs, prefetchTimeoutMs, bulkSyncTimeoutMs};
+        UpstreamPriority[] priorities = UpstreamPriority.values();
+        this.lanes = new Lane[priorities.length];
+        for (UpstreamPriority priority : priorities) {
+            lanes[priority.ordinal()] = new Lane(priority, TimeUnit.MILLISECONDS.toNanos(timeouts[priority.ordinal()]), meterRegistry);
+        }
+    }
+
+    /**
+     * Waits for a permit in the given lane and then runs the call on the current thread.
+     */
+    public <T> T execute(UpstreamPriority priority, Supplier<T> call) {
+        acquire(priority);
+        return call.get();
+    }
+
+    void acquire(UpstreamPriority priority) {
+        Lane lane = lanes[priority.ordinal()];
+        long enqueuedAt = System.nanoTime();
+        if (permitsPerNano <= 0) {
+            lane.waitTimer.record(0, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        long deadline = enqueuedAt + lane.queueTimeoutNanos;
+        Object ticket = new Object();
+        lock.lock();
+        try {
+            lane.waiting.addLast(ticket);
+            while (true) {
+                long now = System.nanoTime();
+                long untilNextToken = Long.MAX_VALUE;
+                if (isNext(ticket)) {
+                    untilNextToken = tryTakeToken(now);
+                    if (untilNextToken == 0) {
+                        lane.waiting.removeFirst();
+                        changed.signalAll();
+                        lane.waitTimer.record(now - enqueuedAt, TimeUnit.NANOSECONDS);
+                        return;
+                    }
+                }
+
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    abandon(lane, ticket, lane.rejected);
+                    throw new UpstreamRejectedException("Timed out waiting for an upstream request slot (" + priority + ")");
+                }
+                changed.awaitNanos(Math.min(untilNextToken, remaining));
+            }
+        } catch (InterruptedException e) {
+            abandon(lane, ticket, lane.cancelled);
+            Thread.currentThread().interrupt();
+            throw new UpstreamRejectedException("Interrupted while waiting for an upstream request slot");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queueDepth(UpstreamPriority priority) {
+        lock.lock();
+        try {
+            return lanes[priority.ordinal()].waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isNext(Object ticket) {
+        for (Lane lane : lanes) {
+            if (!lane.waiting.isEmpty()) {
+                return lane.waiting.peekFirst() == ticket;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes one token if available and returns 0, otherwise returns the nanos until one refills.
+     */
+    private long tryTakeToken(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / permitsPerNano));
+    }
+
+    private void abandon(Lane lane, Object ticket, Counter outcome) {
+        lane.waiting.remove(ticket);
+        outcome.increment();
+        changed.signalAll(); // the next ticket may now be at the head
+    }
+
+    private final class Lane {
+        private final Deque<Object> waiting = new ArrayDeque<>();
+        private final long queueTimeoutNanos;
+        private final Timer waitTimer;
+        private final Counter rejected;
+        private final Counter cancelled;
+
+        private Lane(UpstreamPriority priority, long queueTimeoutNanos, MeterRegistry meterRegistry) {
+            String lane = priority.name().toLowerCase();
+            this.queueTimeoutNanos = queueTimeoutNanos;
+            this.waitTimer = Timer.builder("upstream.queue.wait")
+                .description("Time spent waiting for an upstream request permit")
+                .tag("lane", lane)
+                .register(meterRegistry);
+            this.rejected = Counter.builder("upstream.queue.rejected")
+                .description("Requests that gave up before getting an upstream permit")
+                .tag("lane", lane)
+                .register(meterRegistry);
+            this.cancelled = Counter.builder("upstream.queue.cancelled")
+                .description("Requests interrupted while waiting for an upstream permit")
+                .tag("lane", lane)
+                .register(meterRegistry);
+            Gauge.builder("upstream.queue.depth", UpstreamRequestScheduler.this, scheduler -> scheduler.queueDepth(priority))
+                .tag("lane", lane)
+                .register(meterRegistry);
+        }
+    }
+}
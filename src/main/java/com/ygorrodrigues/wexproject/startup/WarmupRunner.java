@@ -0,0 +1,232 @@
+package com.ygorrodrigues.wexproject.startup;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ygorrodrigues.wexproject.models.ExchangeRateResponse;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.repository.PurchaseReadRepository;
+import com.ygorrodrigues.wexproject.service.ExchangeRateService;
+import com.ygorrodrigues.wexproject.service.PurchaseService;
+import com.ygorrodrigues.wexproject.service.UpstreamPriority;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Warms the instance up before it takes traffic.
+ *
+ * Spring Boot only moves the readiness state to {@code ACCEPTING_TRAFFIC} once every
+ * application runner has returned, so while this runs {@code /actuator/health/readiness} reports
+ * {@code OUT_OF_SERVICE} and {@code /actuator/health/liveness} reports {@code UP}. The warm-up
+ * opens a connection to the Treasury API, loads the last {@code warmup.window-days} of rates of
+ * each currency in {@code warmup.currencies} into the store, and then runs the persistence and
+ * conversion paths {@code warmup.iterations} times so Hibernate, the JDBC reads, the rate lookups
+ * and the JSON serialization are initialised and compiled. With no currencies configured the
+ * Treasury API is not called at all, and only the local paths are exercised.
+ *
+ * Nothing is written: the id sequence stays untouched, and the lookups use the prefetch lane so
+ * the warm-up does not count as currency heat. Each step runs on a separate daemon thread and is
+ * waited for only until {@code warmup.max-duration} has passed since the warm-up started; a step
+ * still running then is interrupted and left behind, and the steps after it are skipped. A step
+ * that fails is logged and skipped. Readiness is therefore delayed by at most
+ * {@code warmup.max-duration}, even when the upstream accepts connections and never answers.
+ */
+@Component
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+    private static final int WARMUP_ID = -1; // Never assigned, so lookups run the full miss path
+
+    private final ExchangeRateService exchangeRateService;
+    private final PurchaseService purchaseService;
+    private final PurchaseReadRepository purchaseReadRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final List<String> currencies;
+    private final int iterations;
+    private final int windowDays;
+    private final Duration maxDuration;
+
+    private long deadline;
+
+    public WarmupRunner(
+            ExchangeRateService exchangeRateService,
+            PurchaseService purchaseService,
+            PurchaseReadRepository purchaseReadRepository,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${warmup.currencies:}") String currencies,
+            @Value("${warmup.iterations:2000}") int iterations,
+            @Value("${warmup.window-days:400}") int windowDays,
+            @Value("${warmup.max-duration:PT60S}") Duration maxDuration) {
+        this.exchangeRateService = exchangeRateService;
+        this.purchaseService = purchaseService;
+        this.purchaseReadRepository = purchaseReadRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.currencies = Arrays.stream(currencies.split(","))
+            .map(String::trim)
+            .filter(currency -> !currency.isEmpty())
+            .toList();
+        this.iterations = iterations;
+        this.windowDays = windowDays;
+        this.maxDuration = maxDuration;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        deadline = start + maxDuration.toNanos();
+        log.info("Warming up before accepting traffic (currencies {}, {} iterations, at most {})",
+            currencies, iterations, maxDuration);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<String> loaded = new ArrayList<>();
+            if (!currencies.isEmpty()) {
+                step(executor, "upstream", this::connectUpstream);
+                step(executor, "rates", () -> preloadRates(loaded));
+            }
+            step(executor, "persistence", this::exercisePersistence);
+            step(executor, "conversion", () -> exerciseConversions(loaded));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("warmup.duration")
+            .description("Time spent warming up before accepting traffic")
+            .register(meterRegistry)
+            .record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Warm-up finished in {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    /**
+     * Resolves the Treasury API host and completes the TLS handshake with a one row request, so
+     * the first lookup that misses the store does not pay for it.
+     */
+    private void connectUpstream() {
+        exchangeRateService.fetchRatesPage(LocalDate.now().minusDays(31), 1, 1,
+            (currency, unscaledRate, scale, recordEpochDay) -> { });
+    }
+
+    /**
+     * Loads the window of each configured currency, plus the 6 months before it that lookups for
+     * its oldest days need. Currencies whose load failed are left out of the conversion step,
+     * since their lookups would go upstream.
+     */
+    private void preloadRates(List<String> loaded) {
+        LocalDate today = LocalDate.now();
+        LocalDate from = ExchangeRateService.earliestRateDate(today.minusDays(windowDays));
+        for (String currency : currencies) {
+            if (expired()) {
+                return;
+            }
+            try {
+                exchangeRateService.getExchangeRateSeries(currency, from, today, UpstreamPriority.PREFETCH);
+                loaded.add(currency);
+            } catch (RuntimeException e) {
+                log.warn("Warm-up could not load rates for {}: {}", currency, e.getMessage());
+            }
+        }
+    }
+
+    private void exercisePersistence() {
+        for (int i = 0; i < iterations && !expired(); i++) {
+            purchaseService.findById(WARMUP_ID);
+            purchaseService.findViewById(WARMUP_ID);
+        }
+        purchaseReadRepository.idBounds();
+    }
+
+    /**
+     * Converts a synthetic purchase dated on each day of the window, from the preloaded rates
+     * when there are any, and serializes the responses as the exchange endpoint does.
+     */
+    private void exerciseConversions(List<String> loaded) throws JsonProcessingException {
+        LocalDate today = LocalDate.now();
+        BigDecimal amount = new BigDecimal("123.45");
+        for (int i = 0; i < iterations && !expired(); i++) {
+            PurchaseView purchase = new PurchaseView(WARMUP_ID, "Warm-up", amount, today.minusDays(i % Math.max(1, windowDays)));
+            ExchangeRateResponse response;
+            if (loaded.isEmpty()) {
+                response = ExchangeRateService.toResponse("Warm-up", purchase, BigDecimal.ONE);
+            } else {
+                String currency = loaded.get(i % loaded.size());
+                BigDecimal rate;
+                try {
+                    rate = exchangeRateService.getExchangeRate(currency, purchase.transactionDate(), UpstreamPriority.PREFETCH);
+                } catch (RuntimeException e) {
+                    continue; // No rate recorded in the 6 months before that day
+                }
+                response = ExchangeRateService.toResponse(currency, purchase, rate);
+            }
+            objectMapper.writeValueAsBytes(response);
+        }
+    }
+
+    /**
+     * Runs the step on the executor and waits for it until the deadline. A step still running
+     * then is interrupted and not waited for; a blocked upstream call may keep its thread until
+     * the client's read timeout, but the steps after it find the deadline passed and are skipped.
+     */
+    private void step(ExecutorService executor, String name, WarmupStep step) {
+        if (expired()) {
+            log.warn("Warm-up step {} skipped, warm-up ran longer than {}", name, maxDuration);
+            return;
+        }
+        long start = System.nanoTime();
+        Future<?> future = executor.submit(() -> {
+            step.run();
+            return null;
+        });
+        try {
+            future.get(deadline - start, TimeUnit.NANOSECONDS);
+            log.info("Warm-up step {} took {} ms", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Warm-up step {} abandoned, warm-up ran longer than {}", name, maxDuration);
+        } catch (ExecutionException e) {
+            log.warn("Warm-up step {} failed: {}", name, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            log.warn("Warm-up step {} interrupted", name);
+        }
+    }
+
+    private boolean expired() {
+        return System.nanoTime() - deadline >= 0;
+    }
+
+    @FunctionalInterface
+    private interface WarmupStep {
+        void run() throws Exception;
+    }
+}
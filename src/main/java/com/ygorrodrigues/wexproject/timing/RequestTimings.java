@@ -0,0 +1,116 @@
+package com.ygorrodrigues.wexproject.timing;
+
+import java.util.Locale;
+
+/**
+ * Per-request stage timings, kept in a thread local by {@link ServerTimingFilter}.
+ *
+ * Stages are recorded with a begin/end pair of static calls so the hot path allocates nothing:
+ * <pre>
+ * long start = RequestTimings.begin();
+ * try {
+ *     ...
+ * } finally {
+ *     RequestTimings.end("db", start);
+ * }
+ * </pre>
+ * Durations of a stage recorded more than once are added up. Outside a request both calls are no-ops.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final int MAX_STAGES = 8;
+
+    private final long startNanos;
+    private final String[] names = new String[MAX_STAGES];
+    private final long[] durations = new long[MAX_STAGES];
+    private int stages;
+    private long writeStartNanos;
+
+    private RequestTimings(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    static RequestTimings start() {
+        RequestTimings timings = new RequestTimings(System.nanoTime());
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public static long begin() {
+        return System.nanoTime();
+    }
+
+    public static void end(String stage, long beginNanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.add(stage, System.nanoTime() - beginNanos);
+        }
+    }
+
+    void add(String stage, long nanos) {
+        for (int i = 0; i < stages; i++) {
+            if (names[i].equals(stage)) {
+                durations[i] += nanos;
+                return;
+            }
+        }
+        if (stages < MAX_STAGES) {
+            names[stages] = stage;
+            durations[stages++] = nanos;
+        }
+    }
+
+    /**
+     * Marks the point where the response body starts being written. The time from here to the
+     * end of the request is reported as the {@code serialize} stage.
+     */
+    void markWrite(long nowNanos) {
+        writeStartNanos = nowNanos;
+    }
+
+    void finish(long nowNanos) {
+        if (writeStartNanos != 0) {
+            add("serialize", nowNanos - writeStartNanos);
+        }
+    }
+
+    long elapsedNanos(long nowNanos) {
+        return nowNanos - startNanos;
+    }
+
+    /**
+     * Value for the Server-Timing header: each stage plus the total so far, in milliseconds.
+     */
+    String toServerTiming(long nowNanos) {
+        StringBuilder header = new StringBuilder(24 * (stages + 1));
+        for (int i = 0; i < stages; i++) {
+            appendMillis(header.append(names[i]).append(";dur="), durations[i]).append(", ");
+        }
+        return appendMillis(header.append("total;dur="), elapsedNanos(nowNanos)).toString();
+    }
+
+    /**
+     * Human readable breakdown for the slow request log.
+     */
+    String toLogString(long nowNanos) {
+        StringBuilder line = new StringBuilder(24 * (stages + 1));
+        appendMillis(line.append("total="), elapsedNanos(nowNanos)).append("ms");
+        for (int i = 0; i < stages; i++) {
+            appendMillis(line.append(' ').append(names[i]).append('='), durations[i]).append("ms");
+        }
+        return line.toString();
+    }
+
+    private static StringBuilder appendMillis(StringBuilder builder, long nanos) {
+        return builder.append(String.format(Locale.ROOT, "%.1f", nanos / 1_000_000d));
+    }
+}
@@ -0,0 +1,67 @@
+package com.ygorrodrigues.wexproject.timing;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Starts the {@link RequestTimings} of every request, adds the Server-Timing header when the
+ * response has no body (bodies get it from {@link ServerTimingResponseAdvice}) and logs a sample
+ * of the requests slower than {@code request-timing.slow-threshold-ms} with their stage breakdown.
+ */
+@Component
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    static final String SERVER_TIMING = "Server-Timing";
+
+    private static final Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    private final boolean headerEnabled;
+    private final long slowThresholdNanos;
+    private final double slowSampleRate;
+
+    public ServerTimingFilter(
+            @Value("${request-timing.server-timing-header:true}") boolean headerEnabled,
+            @Value("${request-timing.slow-threshold-ms:500}") long slowThresholdMs,
+            @Value("${request-timing.slow-sample-rate:1.0}") double slowSampleRate) {
+        this.headerEnabled = headerEnabled;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.slowSampleRate = slowSampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long now = System.nanoTime();
+            timings.finish(now);
+            if (headerEnabled && !response.isCommitted() && !response.containsHeader(SERVER_TIMING)) {
+                response.setHeader(SERVER_TIMING, timings.toServerTiming(now));
+            }
+            if (timings.elapsedNanos(now) >= slowThresholdNanos
+                    && ThreadLocalRandom.current().nextDouble() < slowSampleRate) {
+                log.warn("Slow request {} {} status={} {}", request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), timings.toLogString(now));
+            }
+            RequestTimings.clear();
+        }
+    }
+
+    boolean isHeaderEnabled() {
+        return headerEnabled;
+    }
+}
@@ -0,0 +1,41 @@
+package com.ygorrodrigues.wexproject.timing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Writes the Server-Timing header right before a response body is serialized, the last moment
+ * headers can still be added, and marks the start of the {@code serialize} stage.
+ */
+@ControllerAdvice
+public class ServerTimingResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Autowired
+    private ServerTimingFilter serverTimingFilter;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        RequestTimings timings = RequestTimings.current();
+        if (timings != null) {
+            long now = System.nanoTime();
+            if (serverTimingFilter.isHeaderEnabled()) {
+                response.getHeaders().set(ServerTimingFilter.SERVER_TIMING, timings.toServerTiming(now));
+            }
+            timings.markWrite(now);
+        }
+        return body;
+    }
+}
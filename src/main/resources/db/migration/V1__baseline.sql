@@ -0,0 +1,26 @@
+-- Tables as defined by the Purchase, PurchaseConversion and ConversionCheckpoint entities
+CREATE TABLE purchases (
+    id               INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    description      VARCHAR(255)   NOT NULL,
+    amount           NUMERIC(19, 2) NOT NULL,
+    transaction_date DATE           NOT NULL
+);
+
+CREATE TABLE purchase_conversions (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    purchase_id      INTEGER                     NOT NULL,
+    country_currency VARCHAR(255)                NOT NULL,
+    exchange_rate    NUMERIC(19, 6)              NOT NULL,
+    converted_amount NUMERIC(19, 2)              NOT NULL,
+    computed_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT uk_purchase_conversions_purchase_currency UNIQUE (purchase_id, country_currency)
+);
+
+CREATE TABLE conversion_checkpoints (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    country_currency VARCHAR(255)                NOT NULL,
+    chunk_start      INTEGER                     NOT NULL,
+    chunk_size       INTEGER                     NOT NULL,
+    completed_at     TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT uk_conversion_checkpoints_currency_chunk UNIQUE (country_currency, chunk_start)
+);
@@ -0,0 +1,2 @@
+-- Date range scans of the purchase report and export; without it they read the whole table
+CREATE INDEX ix_purchases_transaction_date ON purchases (transaction_date);
@@ -0,0 +1,2 @@
+-- Checkpoints only resume a job computed from the same rates; older ones never match
+ALTER TABLE conversion_checkpoints ADD COLUMN rates_fingerprint BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,75 @@
+package com.ygorrodrigues.wexproject.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new AdaptiveConcurrencyLimiter("exchange", meterRegistry, 10, 2, 20, 100, 0.5);
+    }
+
+    @Test
+    void tryAcquire_ShouldReject_WhenLimitIsReached() {
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(limiter.tryAcquire());
+        }
+
+        assertNull(limiter.tryAcquire());
+        assertEquals(1.0, meterRegistry.get("admission.rejected").tag("endpoint", "exchange").counter().count());
+        assertEquals(10, limiter.getInFlight());
+    }
+
+    @Test
+    void onSample_ShouldBackOffOncePerRoundTrip_WhenLatencyIsHigh() {
+        acquire(3);
+
+        limiter.onSample(0, 500 * MS, false);
+        limiter.onSample(10 * MS, 510 * MS, false); // started before the backoff
+        limiter.onSample(600 * MS, 800 * MS, false);
+
+        assertEquals(2, limiter.getLimit()); // 10 * 0.5 * 0.5
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void onSample_ShouldGrowAdditively_WhenFastAndBusy() {
+        acquire(10);
+
+        for (int i = 0; i < 11; i++) { // about one round trip at a limit of 10
+            limiter.onSample(0, 10 * MS, false);
+            limiter.tryAcquire();
+        }
+
+        assertEquals(11, limiter.getLimit());
+    }
+
+    @Test
+    void release_ShouldBackOff_WhenDropped() {
+        limiter.tryAcquire().release(true);
+
+        assertEquals(5, limiter.getLimit());
+        assertEquals(5.0, meterRegistry.get("admission.limit").tag("endpoint", "exchange").gauge().value());
+    }
+
+    private void acquire(int permits) {
+        for (int i = 0; i < permits; i++) {
+            limiter.tryAcquire();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.ygorrodrigues.wexproject.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdmissionControlFilterTest {
+
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new AdmissionControlFilter(new SimpleMeterRegistry(), true, 0.9, 1, 1, 10, 1000, 50, 5, 500, 200);
+    }
+
+    @Test
+    void doFilter_ShouldShedExchangeRequest_WhenLimitIsReached() throws Exception {
+        MockHttpServletResponse inner = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/purchase/1/exchange"), new MockHttpServletResponse(), (req, res) ->
+            filter.doFilter(new MockHttpServletRequest("GET", "/purchase/2/exchange"), inner, (req2, res2) -> { }));
+
+        assertEquals(503, inner.getStatus());
+        assertEquals("1", inner.getHeader("Retry-After"));
+        assertEquals("application/problem+json", inner.getContentType());
+    }
+
+    @Test
+    void doFilter_ShouldUseSeparateLimits_ForPurchaseAndOtherEndpoints() throws Exception {
+        MockHttpServletResponse purchase = new MockHttpServletResponse();
+        MockHttpServletResponse ping = new MockHttpServletResponse();
+        boolean[] called = new boolean[2];
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/purchase/1/exchange"), new MockHttpServletResponse(), (req, res) -> {
+            filter.doFilter(new MockHttpServletRequest("POST", "/purchase"), purchase, (req2, res2) -> called[0] = true);
+            filter.doFilter(new MockHttpServletRequest("GET", "/ping"), ping, (req2, res2) -> called[1] = true);
+        });
+
+        assertTrue(called[0] && called[1]);
+        assertEquals(200, purchase.getStatus());
+        assertEquals(200, ping.getStatus());
+    }
+}
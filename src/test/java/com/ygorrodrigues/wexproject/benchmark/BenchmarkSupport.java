@@ -0,0 +1,52 @@
+package com.ygorrodrigues.wexproject.benchmark;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Minimal timing harness shared by the {@code benchmark} tagged tests.
+ * Not a replacement for JMH, but enough to compare two code paths in the same JVM.
+ * Run with {@code ./gradlew benchmark}.
+ */
+final class BenchmarkSupport {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private BenchmarkSupport() {
+    }
+
+    interface Operation {
+        void run() throws Exception;
+    }
+
+    record Result(String name, long operations, double nanosPerOp, double bytesPerOp) {
+
+        double opsPerSecond() {
+            return 1_000_000_000d / nanosPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %,14.0f ns/op %,12.0f ops/s %,14.0f B/op",
+                name, nanosPerOp, opsPerSecond(), bytesPerOp);
+        }
+    }
+
+    static Result measure(String name, int warmupOps, int measuredOps, Operation operation) throws Exception {
+        for (int i = 0; i < warmupOps; i++) {
+            operation.run();
+        }
+
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredOps; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        Result result = new Result(name, measuredOps, (double) elapsed / measuredOps, (double) allocated / measuredOps);
+        System.out.println(result);
+        return result;
+    }
+}
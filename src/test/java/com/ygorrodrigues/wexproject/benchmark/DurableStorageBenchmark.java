@@ -0,0 +1,112 @@
+package com.ygorrodrigues.wexproject.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.ygorrodrigues.wexproject.models.PurchaseRequest;
+import com.ygorrodrigues.wexproject.service.PurchaseService;
+
+/**
+ * Insert throughput of the {@code POST /purchase} path and purchase read latency of the exchange
+ * path on the durable profile, measured each time the table has grown by a tenth of
+ * {@code benchmark.purchases} rows (10M by default). The table is grown with JDBC batches
+ * between measurements. Run with
+ * {@code ./gradlew benchmark --tests '*DurableStorageBenchmark' -Dbenchmark.purchases=10000000}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "warmup.enabled=false")
+@ActiveProfiles("durable")
+class DurableStorageBenchmark {
+
+    private static final int TARGET_ROWS = Integer.getInteger("benchmark.purchases", 10_000_000);
+    private static final int STEPS = 10;
+    private static final int INSERTS_PER_STEP = 20_000;
+    private static final int READS_PER_STEP = 50_000;
+    private static final int FILL_BATCH = 10_000;
+    private static final String FILL =
+        "INSERT INTO purchases (description, amount, transaction_date) VALUES (?, ?, ?)";
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void storagePath(DynamicPropertyRegistry registry) {
+        try {
+            Path directory = Files.createTempDirectory("wexproject-benchmark");
+            registry.add("storage.path", () -> directory.resolve("wexproject").toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    void growTable() throws Exception {
+        int rows = 0;
+        System.out.printf("%12s %14s %12s %12s %12s%n", "rows", "inserts/s", "read p50 us", "read p99 us", "read max us");
+        for (int step = 1; step <= STEPS; step++) {
+            rows += fill(Math.max(0, (int) ((long) TARGET_ROWS * step / STEPS) - rows));
+
+            BenchmarkSupport.Result inserts = BenchmarkSupport.measure("insert at " + rows + " rows", 1_000, INSERTS_PER_STEP, () ->
+                purchaseService.processPurchase(new PurchaseRequest("Benchmark purchase", new BigDecimal("12.34"), LocalDate.of(2025, 6, 1))));
+            rows += 1_000 + INSERTS_PER_STEP;
+
+            long[] latencies = readLatencies(rows);
+            System.out.printf("%,12d %,14.0f %12.1f %12.1f %12.1f%n", rows, inserts.opsPerSecond(),
+                latencies[READS_PER_STEP / 2] / 1e3, latencies[READS_PER_STEP * 99 / 100] / 1e3, latencies[READS_PER_STEP - 1] / 1e3);
+        }
+
+        assertEquals(rows, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM purchases", Integer.class));
+    }
+
+    private int fill(int count) {
+        LocalDate firstDate = LocalDate.of(2015, 1, 1);
+        for (int done = 0; done < count; done += FILL_BATCH) {
+            int size = Math.min(FILL_BATCH, count - done);
+            jdbcTemplate.batchUpdate(FILL, IntStream.range(done, done + size).boxed().toList(), size, (ps, n) -> {
+                ps.setString(1, "Purchase " + n);
+                ps.setBigDecimal(2, BigDecimal.valueOf(1_000 + n % 100_000, 2));
+                ps.setDate(3, Date.valueOf(firstDate.plusDays(n % 3_650)));
+            });
+        }
+        return count;
+    }
+
+    /**
+     * Sorted latencies of reads of random existing purchases.
+     */
+    private long[] readLatencies(int rows) {
+        long[] latencies = new long[READS_PER_STEP];
+        for (int i = 0; i < READS_PER_STEP; i++) {
+            int id = ThreadLocalRandom.current().nextInt(1, rows + 1);
+            long start = System.nanoTime();
+            if (purchaseService.findViewById(id) == null) {
+                throw new IllegalStateException("Purchase " + id + " not found");
+            }
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+}
@@ -0,0 +1,101 @@
+package com.ygorrodrigues.wexproject.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.ygorrodrigues.wexproject.exception.CurrencyNotFoundException;
+import com.ygorrodrigues.wexproject.handlers.Problems;
+import com.ygorrodrigues.wexproject.models.ConversionResult;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateStore;
+import com.ygorrodrigues.wexproject.service.CurrencyHeatTracker;
+import com.ygorrodrigues.wexproject.service.ExchangeRateService;
+
+/**
+ * Conversions to a currency without rates, answered from the store: the former chain of
+ * exceptions with stack traces turned into a string body, the same chain with stackless
+ * exceptions, and the result value path with a problem response. Each call runs below
+ * {@code STACK_DEPTH} frames, roughly what a request has under the servlet and filter stack.
+ */
+@Tag("benchmark")
+class ErrorPathBenchmark {
+
+    private static final int STACK_DEPTH = 120;
+    private static final String CURRENCY = "Atlantis-Coin";
+
+    @Test
+    void convertUnknownCurrency() throws Exception {
+        ExchangeRateStore store = new ExchangeRateStore();
+        store.markCovered(CURRENCY, LocalDate.of(2001, 1, 1), LocalDate.of(2030, 1, 1), Instant.now().plusSeconds(3600));
+        ExchangeRateService service = new ExchangeRateService();
+        inject(service, "exchangeRateStore", store);
+        inject(service, "heatTracker", new CurrencyHeatTracker(3_600_000, 1000));
+        inject(service, "prefetchTtlMs", 3_600_000L);
+        PurchaseView purchase = new PurchaseView(1, "Purchase", new BigDecimal("10.00"), LocalDate.of(2025, 9, 15));
+
+        BenchmarkSupport.Result legacy = BenchmarkSupport.measure("exception chain with stack traces", 50_000, 200_000, () ->
+            atDepth(STACK_DEPTH, () -> legacyConvert(store, purchase)));
+        BenchmarkSupport.Result stackless = BenchmarkSupport.measure("stackless exceptions", 50_000, 200_000, () ->
+            atDepth(STACK_DEPTH, () -> {
+                try {
+                    service.convert(CURRENCY, purchase);
+                    throw new IllegalStateException("converted");
+                } catch (CurrencyNotFoundException e) {
+                    return Problems.badRequest("Currency not convertible", e.getMessage());
+                }
+            }));
+        BenchmarkSupport.Result result = BenchmarkSupport.measure("result values", 50_000, 200_000, () ->
+            atDepth(STACK_DEPTH, () -> Problems.conversionFailed((ConversionResult.Failed) service.tryConvert(CURRENCY, purchase))));
+
+        assertEquals(HttpStatus.BAD_REQUEST, Problems.conversionFailed((ConversionResult.Failed) service.tryConvert(CURRENCY, purchase)).getStatusCode());
+        System.out.printf("stackless exceptions: %.2fx, result values: %.2fx throughput of the exception chain%n",
+            stackless.opsPerSecond() / legacy.opsPerSecond(), result.opsPerSecond() / legacy.opsPerSecond());
+    }
+
+    /**
+     * The error path before result values: thrown on the miss, rethrown by the lookup, wrapped by
+     * the conversion and turned into a string body by the controller.
+     */
+    private static ResponseEntity<?> legacyConvert(ExchangeRateStore store, PurchaseView purchase) {
+        try {
+            try {
+                try {
+                    store.findLatest(CURRENCY, ExchangeRateService.earliestRateDate(purchase.transactionDate()), purchase.transactionDate())
+                        .orElseThrow(() -> new LegacyException("Exchange rate data not found for currency: " + CURRENCY, null));
+                    throw new IllegalStateException("converted");
+                } catch (LegacyException e) {
+                    throw e;
+                }
+            } catch (LegacyException e) {
+                throw new LegacyException("Purchase cannot be converted to the target currency: " + CURRENCY, null);
+            }
+        } catch (LegacyException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
+        }
+    }
+
+    private static Object atDepth(int depth, java.util.function.Supplier<?> operation) {
+        return depth == 0 ? operation.get() : atDepth(depth - 1, operation);
+    }
+
+    private static void inject(ExchangeRateService service, String fieldName, Object value) throws Exception {
+        Field field = ExchangeRateService.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(service, value);
+    }
+
+    private static final class LegacyException extends RuntimeException {
+        private LegacyException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.ygorrodrigues.wexproject.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ygorrodrigues.wexproject.models.ExchangeRateApiResponse;
+import com.ygorrodrigues.wexproject.models.ExchangeRateData;
+import com.ygorrodrigues.wexproject.service.ExchangeRateStreamDecoder;
+
+/**
+ * Compares the current {@link ExchangeRateApiResponse} data binding (String fields converted
+ * afterwards) with {@link ExchangeRateStreamDecoder} on a large synthetic sync page.
+ */
+@Tag("benchmark")
+class ExchangeRateDecodingBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final String[] CURRENCIES = {
+        "Canada-Dollar", "Mexico-Peso", "Euro Zone-Euro", "United Kingdom-Pound", "Japan-Yen", "Brazil-Real"
+    };
+
+    private static byte[] page;
+
+    // Same settings the RestTemplate Jackson converter uses
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final ExchangeRateStreamDecoder decoder = new ExchangeRateStreamDecoder();
+
+    private long checksum;
+
+    @BeforeAll
+    static void buildPage() {
+        StringBuilder json = new StringBuilder(ROWS * 120).append("{\"data\":[");
+        LocalDate date = LocalDate.of(2001, 3, 31);
+        for (int i = 0; i < ROWS; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"record_date\":\"").append(date.minusDays(i % 9000))
+                .append("\",\"country_currency_desc\":\"").append(CURRENCIES[i % CURRENCIES.length])
+                .append("\",\"exchange_rate\":\"").append(BigDecimal.valueOf(1000 + i * 37L, 3))
+                .append("\"}");
+        }
+        json.append("],\"meta\":{\"count\":").append(ROWS)
+            .append(",\"labels\":{\"country_currency_desc\":\"Country - Currency Description\",")
+            .append("\"exchange_rate\":\"Exchange Rate\",\"record_date\":\"Record Date\"},")
+            .append("\"total-count\":").append(ROWS).append(",\"total-pages\":1},")
+            .append("\"links\":{\"self\":\"&page%5Bnumber%5D=1&page%5Bsize%5D=10000\",\"first\":\"&page%5Bnumber%5D=1\",")
+            .append("\"prev\":null,\"next\":null,\"last\":\"&page%5Bnumber%5D=1\"}}");
+        page = json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void decodeSyncPage() throws Exception {
+        BenchmarkSupport.Result binding = BenchmarkSupport.measure("databind + BigDecimal/LocalDate", 200, 500, () -> {
+            ExchangeRateApiResponse response = objectMapper.readValue(page, ExchangeRateApiResponse.class);
+            long sum = 0;
+            for (ExchangeRateData row : response.getData()) {
+                sum += new BigDecimal(row.getExchangeRate()).unscaledValue().longValue();
+                sum += LocalDate.parse(row.getRecordDate()).toEpochDay();
+            }
+            checksum = sum;
+        });
+        long bindingChecksum = checksum;
+
+        BenchmarkSupport.Result streaming = BenchmarkSupport.measure("streaming decoder", 200, 500, () -> {
+            long[] sum = new long[1];
+            decoder.decode(new ByteArrayInputStream(page), (currency, unscaledRate, scale, epochDay) ->
+                sum[0] += unscaledRate + epochDay);
+            checksum = sum[0];
+        });
+
+        assertEquals(bindingChecksum, checksum);
+        System.out.printf("page of %,d rows (%,d bytes): %.2fx faster, %.2fx less allocation%n",
+            ROWS, page.length,
+            binding.nanosPerOp() / streaming.nanosPerOp(),
+            binding.bytesPerOp() / streaming.bytesPerOp());
+    }
+}
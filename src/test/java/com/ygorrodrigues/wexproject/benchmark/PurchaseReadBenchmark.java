@@ -0,0 +1,53 @@
+package com.ygorrodrigues.wexproject.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.ygorrodrigues.wexproject.models.Purchase;
+import com.ygorrodrigues.wexproject.repository.PurchaseReadRepository;
+import com.ygorrodrigues.wexproject.repository.PurchaseRepository;
+
+/**
+ * Point lookups through the JPA repository versus the plain JDBC read path used by the
+ * exchange endpoint, against the embedded H2 database.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "warmup.enabled=false")
+class PurchaseReadBenchmark {
+
+    private static final int PURCHASES = 10_000;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private PurchaseReadRepository purchaseReadRepository;
+
+    @Test
+    void findById() throws Exception {
+        List<Purchase> purchases = new ArrayList<>(PURCHASES);
+        for (int i = 0; i < PURCHASES; i++) {
+            purchases.add(new Purchase("Purchase " + i, BigDecimal.valueOf(1_000 + i, 2), LocalDate.of(2025, 1, 1).plusDays(i % 365)));
+        }
+        List<Integer> ids = purchaseRepository.saveAll(purchases).stream().map(Purchase::getId).toList();
+        int[] next = {0};
+
+        BenchmarkSupport.Result jpa = BenchmarkSupport.measure("jpa findById", 20_000, 100_000, () ->
+            purchaseRepository.findById(ids.get(next[0]++ % PURCHASES)).orElseThrow());
+        BenchmarkSupport.Result jdbc = BenchmarkSupport.measure("jdbc findById", 20_000, 100_000, () ->
+            purchaseReadRepository.findById(ids.get(next[0]++ % PURCHASES)).orElseThrow());
+
+        assertEquals(purchaseRepository.findById(ids.get(0)).orElseThrow().getAmount(),
+            purchaseReadRepository.findById(ids.get(0)).orElseThrow().amount());
+        System.out.printf("jdbc read path: %.2fx throughput of jpa%n", jdbc.opsPerSecond() / jpa.opsPerSecond());
+    }
+}
@@ -0,0 +1,79 @@
+package com.ygorrodrigues.wexproject.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Tag;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ygorrodrigues.wexproject.models.ExchangeRateResponse;
+
+/**
+ * Payload size (raw and gzipped) and serialization cost of a bulk list of
+ * {@link ExchangeRateResponse} in JSON, CBOR and Smile.
+ */
+@Tag("benchmark")
+class ResponseEncodingBenchmark {
+
+    private static final int ITEMS = 1_000;
+
+    @Test
+    void encodeBulkConversions() throws Exception {
+        List<ExchangeRateResponse> responses = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            BigDecimal amount = BigDecimal.valueOf(1_000 + i * 137L, 2);
+            BigDecimal rate = BigDecimal.valueOf(1_250 + i % 400, 3);
+            responses.add(ExchangeRateResponse.builder()
+                .id(i + 1)
+                .description("Purchase " + i)
+                .transactionDate(LocalDate.of(2025, 1, 1).plusDays(i % 365))
+                .originalAmount(amount)
+                .originalCurrency("USD")
+                .convertedAmount(amount.multiply(rate).setScale(2, java.math.RoundingMode.HALF_UP))
+                .targetCurrency("Canada-Dollar")
+                .exchangeRate(rate)
+                .build());
+        }
+
+        System.out.printf("%,d ExchangeRateResponse items%n", ITEMS);
+        measure("json", mapper(null), responses);
+        measure("cbor", mapper(new CBORFactory()), responses);
+        measure("smile", mapper(new SmileFactory()), responses);
+    }
+
+    private static ObjectMapper mapper(com.fasterxml.jackson.core.JsonFactory factory) {
+        ObjectMapper mapper = factory == null ? new ObjectMapper() : new ObjectMapper(factory);
+        return mapper.registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS); // same as the Spring Boot default
+    }
+
+    private static void measure(String format, ObjectMapper mapper, List<ExchangeRateResponse> responses) throws Exception {
+        byte[] encoded = mapper.writeValueAsBytes(responses);
+        List<ExchangeRateResponse> decoded = mapper.readValue(encoded, new TypeReference<List<ExchangeRateResponse>>() { });
+        assertEquals(responses.size(), decoded.size());
+        assertEquals(responses.get(ITEMS - 1).getConvertedAmount(), decoded.get(ITEMS - 1).getConvertedAmount());
+
+        BenchmarkSupport.measure(format + " serialize", 500, 2_000, () -> mapper.writeValueAsBytes(responses));
+        System.out.printf("%-40s %,14d bytes %,14d gzipped%n", format + " payload", encoded.length, gzip(encoded).length);
+    }
+
+    private static byte[] gzip(byte[] data) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
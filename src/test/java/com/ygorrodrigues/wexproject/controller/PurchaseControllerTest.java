@@ -1,38 +1,60 @@
 package com.ygorrodrigues.wexproject.controller;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.ygorrodrigues.wexproject.exception.CurrencyNotFoundException;
+import com.ygorrodrigues.wexproject.handlers.UpstreamExceptionHandler;
 import com.ygorrodrigues.wexproject.handlers.ValidationExceptionHandler;
+import com.ygorrodrigues.wexproject.models.BatchExchangeRequest;
+import com.ygorrodrigues.wexproject.models.BatchExchangeResponse;
+import com.ygorrodrigues.wexproject.models.BatchExchangeResult;
+import com.ygorrodrigues.wexproject.models.ConversionResult;
 import com.ygorrodrigues.wexproject.models.ExchangeRateResponse;
 import com.ygorrodrigues.wexproject.models.Purchase;
 import com.ygorrodrigues.wexproject.models.PurchaseRequest;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.service.BatchConversionService;
+import com.ygorrodrigues.wexproject.service.EagerConversionPipeline;
 import com.ygorrodrigues.wexproject.service.ExchangeRateService;
+import com.ygorrodrigues.wexproject.service.IdempotencyKeyStore;
 import com.ygorrodrigues.wexproject.service.PurchaseService;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @ExtendWith(MockitoExtension.class)
 public class PurchaseControllerTest {
 	private MockMvc mockMvc;
@@ -44,13 +66,22 @@ public class PurchaseControllerTest {
 	@Mock
 	private ExchangeRateService exchangeRateService;
 
+	@Mock
+	private BatchConversionService batchConversionService;
+
+	@Mock
+	private EagerConversionPipeline eagerConversionPipeline;
+
+	@Spy
+	private IdempotencyKeyStore idempotencyKeyStore = new IdempotencyKeyStore(new SimpleMeterRegistry(), 60_000, 100);
+
 	@InjectMocks
 	private PurchaseController purchaseController;
 
 	@BeforeEach
 	void setup() {
 		mockMvc = MockMvcBuilders.standaloneSetup(purchaseController)
-				.setControllerAdvice(new ValidationExceptionHandler())
+				.setControllerAdvice(new ValidationExceptionHandler(), new UpstreamExceptionHandler())
 				.build();
 		objectMapper = new ObjectMapper();
 		objectMapper.registerModule(new JavaTimeModule());
@@ -85,6 +116,69 @@ public class PurchaseControllerTest {
 				.andExpect(jsonPath("$.transactionDate[2]").value(15));
 	}
 
+	@Test
+	void purchase_ShouldReplayStoredPurchase_WhenIdempotencyKeyIsRetried() throws Exception {
+		PurchaseRequest request = PurchaseRequest.builder()
+				.description("Coffee")
+				.amount(new BigDecimal("12.34"))
+				.transactionDate(LocalDate.of(2025, 9, 15))
+				.build();
+		Purchase saved = Purchase.builder()
+				.id(1)
+				.description("Coffee")
+				.amount(new BigDecimal("12.34"))
+				.transactionDate(LocalDate.of(2025, 9, 15))
+				.build();
+		when(purchaseService.processPurchase(any(PurchaseRequest.class))).thenReturn(saved);
+
+		mockMvc.perform(post("/purchase")
+					.header("Idempotency-Key", "order-17")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(request)))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Idempotent-Replayed", "false"))
+				.andExpect(jsonPath("$.id").value(1));
+		mockMvc.perform(post("/purchase")
+					.header("Idempotency-Key", "order-17")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(request)))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Idempotent-Replayed", "true"))
+				.andExpect(jsonPath("$.id").value(1));
+
+		verify(purchaseService, times(1)).processPurchase(any(PurchaseRequest.class));
+	}
+
+	@Test
+	void purchase_ShouldReturnUnprocessable_WhenIdempotencyKeyIsReusedForAnotherPurchase() throws Exception {
+		PurchaseRequest coffee = PurchaseRequest.builder()
+				.description("Coffee")
+				.amount(new BigDecimal("12.34"))
+				.transactionDate(LocalDate.of(2025, 9, 15))
+				.build();
+		PurchaseRequest tea = PurchaseRequest.builder()
+				.description("Tea")
+				.amount(new BigDecimal("12.34"))
+				.transactionDate(LocalDate.of(2025, 9, 15))
+				.build();
+		when(purchaseService.processPurchase(any(PurchaseRequest.class))).thenReturn(Purchase.builder().id(1).build());
+
+		mockMvc.perform(post("/purchase")
+					.header("Idempotency-Key", "order-18")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(coffee)))
+				.andExpect(status().isOk());
+		mockMvc.perform(post("/purchase")
+					.header("Idempotency-Key", "order-18")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(tea)))
+				.andExpect(status().isUnprocessableEntity())
+				.andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+				.andExpect(jsonPath("$.title").value("Idempotency key reused"));
+
+		verify(purchaseService, times(1)).processPurchase(any(PurchaseRequest.class));
+	}
+
 	@Test
 	void purchase_ShouldReturnBadRequest_WithValidationErrors() throws Exception {
 		// Invalid: blank description, negative amount, future date
@@ -123,8 +217,9 @@ public class PurchaseControllerTest {
 				.exchangeRate(new BigDecimal("1.25"))
 				.build();
 
-		when(purchaseService.findById(eq(42))).thenReturn(purchase);
-		when(exchangeRateService.calculateExchangeRate(eq("Canada-Dollar"), eq(purchase))).thenReturn(response);
+		when(purchaseService.findViewById(eq(42))).thenReturn(PurchaseView.from(purchase));
+		when(exchangeRateService.tryConvert(eq("Canada-Dollar"), eq(PurchaseView.from(purchase))))
+				.thenReturn(ConversionResult.converted(response));
 
 		mockMvc.perform(get("/purchase/{id}/exchange", 42)
 					.param("countryCurrency", "Canada-Dollar"))
@@ -136,9 +231,27 @@ public class PurchaseControllerTest {
 				.andExpect(jsonPath("$.exchangeRate").value(1.25));
 	}
 
+	@Test
+	void getExchangeRate_ShouldServePrecomputedConversion_WithoutConverting() throws Exception {
+		PurchaseView purchase = new PurchaseView(42, "Laptop", new BigDecimal("1000.00"), LocalDate.of(2025, 9, 15));
+		ExchangeRateResponse response = ExchangeRateService.toResponse("Canada-Dollar", purchase, new BigDecimal("1.25"));
+
+		when(purchaseService.findViewById(eq(42))).thenReturn(purchase);
+		when(eagerConversionPipeline.findPrecomputed(eq(purchase), eq("Canada-Dollar"))).thenReturn(Optional.of(response));
+
+		mockMvc.perform(get("/purchase/{id}/exchange", 42)
+					.param("countryCurrency", "Canada-Dollar"))
+				.andExpect(status().isOk())
+				.andExpect(header().exists("ETag"))
+				.andExpect(jsonPath("$.convertedAmount").value(1250.00))
+				.andExpect(jsonPath("$.exchangeRate").value(1.25));
+
+		verify(exchangeRateService, never()).tryConvert(any(), any());
+	}
+
 	@Test
 	void getExchangeRate_ShouldReturnNotFound_WhenPurchaseDoesNotExist() throws Exception {
-		when(purchaseService.findById(eq(999))).thenReturn(null);
+		when(purchaseService.findViewById(eq(999))).thenReturn(null);
 
 		mockMvc.perform(get("/purchase/{id}/exchange", 999)
 					.param("countryCurrency", "Canada-Dollar"))
@@ -154,13 +267,208 @@ public class PurchaseControllerTest {
 				.transactionDate(LocalDate.of(2025, 9, 15))
 				.build();
 
-		when(purchaseService.findById(eq(7))).thenReturn(purchase);
-		when(exchangeRateService.calculateExchangeRate(eq("Invalid-Currency"), eq(purchase)))
-				.thenThrow(new CurrencyNotFoundException("Purchase cannot be converted to the target currency: Invalid-Currency"));
+		when(purchaseService.findViewById(eq(7))).thenReturn(PurchaseView.from(purchase));
+		when(exchangeRateService.tryConvert(eq("Invalid-Currency"), eq(PurchaseView.from(purchase))))
+				.thenReturn(ConversionResult.failed(ConversionResult.Failure.NO_RATE,
+						"Purchase cannot be converted to the target currency: Invalid-Currency"));
 
 		mockMvc.perform(get("/purchase/{id}/exchange", 7)
 					.param("countryCurrency", "Invalid-Currency"))
 				.andExpect(status().isBadRequest())
-				.andExpect(content().string(containsString("Error: Purchase cannot be converted to the target currency: Invalid-Currency")));
+				.andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+				.andExpect(jsonPath("$.status").value(400))
+				.andExpect(jsonPath("$.title").value("Currency not convertible"))
+				.andExpect(jsonPath("$.detail").value("Purchase cannot be converted to the target currency: Invalid-Currency"));
+	}
+
+	@Test
+	void getExchangeRate_ShouldReturnServiceUnavailable_WhenUpstreamIsBusy() throws Exception {
+		Purchase purchase = getLaptopPurchase();
+		when(purchaseService.findViewById(eq(42))).thenReturn(PurchaseView.from(purchase));
+		when(exchangeRateService.tryConvert(eq("Canada-Dollar"), eq(PurchaseView.from(purchase))))
+				.thenReturn(ConversionResult.failed(ConversionResult.Failure.UPSTREAM_BUSY, "Exchange rate API is busy"));
+
+		mockMvc.perform(get("/purchase/{id}/exchange", 42)
+					.param("countryCurrency", "Canada-Dollar"))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string("Retry-After", "1"))
+				.andExpect(jsonPath("$.detail").value("Exchange rate API is busy"));
+	}
+
+	@Test
+	void getExchangeRate_ShouldReturnEtagAndRevalidateCacheControl() throws Exception {
+		Purchase purchase = getLaptopPurchase();
+		when(purchaseService.findViewById(eq(42))).thenReturn(PurchaseView.from(purchase));
+		when(exchangeRateService.tryConvert(eq("Canada-Dollar"), eq(PurchaseView.from(purchase))))
+				.thenReturn(converted(new BigDecimal("1.25")));
+
+		mockMvc.perform(get("/purchase/{id}/exchange", 42)
+					.param("countryCurrency", "Canada-Dollar"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"" + PurchaseEtags.forExchange(PurchaseView.from(purchase), "Canada-Dollar", new BigDecimal("1.25")) + "\""))
+				.andExpect(header().string("Cache-Control", containsString("no-cache")));
+	}
+
+	@Test
+	void getExchangeRate_ShouldReturnNotModified_WhenEtagMatchesCurrentRate() throws Exception {
+		Purchase purchase = getLaptopPurchase();
+		when(purchaseService.findViewById(eq(42))).thenReturn(PurchaseView.from(purchase));
+		when(exchangeRateService.tryConvert(eq("Canada-Dollar"), eq(PurchaseView.from(purchase))))
+				.thenReturn(converted(new BigDecimal("1.25")));
+		String etag = "\"" + PurchaseEtags.forExchange(PurchaseView.from(purchase), "Canada-Dollar", new BigDecimal("1.250000")) + "\"";
+
+		mockMvc.perform(get("/purchase/{id}/exchange", 42)
+					.param("countryCurrency", "Canada-Dollar")
+					.header("If-None-Match", etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string("ETag", etag))
+				.andExpect(content().string(""));
+	}
+
+	@Test
+	void getExchangeRate_ShouldReturnNewBody_WhenRateWasRevised() throws Exception {
+		Purchase purchase = getLaptopPurchase();
+		when(purchaseService.findViewById(eq(42))).thenReturn(PurchaseView.from(purchase));
+		when(exchangeRateService.tryConvert(eq("Canada-Dollar"), eq(PurchaseView.from(purchase))))
+				.thenReturn(converted(new BigDecimal("1.26")));
+
+		mockMvc.perform(get("/purchase/{id}/exchange", 42)
+					.param("countryCurrency", "Canada-Dollar")
+					.header("If-None-Match", "\"" + PurchaseEtags.forExchange(PurchaseView.from(purchase), "Canada-Dollar", new BigDecimal("1.25")) + "\""))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.exchangeRate").value(1.26));
+	}
+
+	@Test
+	void getExchangeRate_ShouldUseDifferentEtag_ForDifferentCurrency() throws Exception {
+		Purchase purchase = getLaptopPurchase();
+		when(purchaseService.findViewById(eq(42))).thenReturn(PurchaseView.from(purchase));
+		when(exchangeRateService.tryConvert(eq("Mexico-Peso"), eq(PurchaseView.from(purchase))))
+				.thenReturn(converted(new BigDecimal("1.25")));
+
+		mockMvc.perform(get("/purchase/{id}/exchange", 42)
+					.param("countryCurrency", "Mexico-Peso")
+					.header("If-None-Match", "\"" + PurchaseEtags.forExchange(PurchaseView.from(purchase), "Canada-Dollar", new BigDecimal("1.25")) + "\""))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void getPurchase_ShouldReturnPurchaseWithEtag() throws Exception {
+		Purchase purchase = getLaptopPurchase();
+		when(purchaseService.findById(eq(42))).thenReturn(purchase);
+
+		mockMvc.perform(get("/purchase/{id}", 42))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.id").value(42))
+				.andExpect(header().string("ETag", "\"" + PurchaseEtags.forPurchase(purchase) + "\""));
+	}
+
+	@Test
+	void getPurchase_ShouldReturnNotModified_WhenEtagMatches() throws Exception {
+		Purchase purchase = getLaptopPurchase();
+		when(purchaseService.findById(eq(42))).thenReturn(purchase);
+
+		mockMvc.perform(get("/purchase/{id}", 42)
+					.header("If-None-Match", "\"" + PurchaseEtags.forPurchase(purchase) + "\""))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void getPurchase_ShouldReturnNotFound_WhenPurchaseDoesNotExist() throws Exception {
+		when(purchaseService.findById(eq(999))).thenReturn(null);
+
+		mockMvc.perform(get("/purchase/{id}", 999))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void getExchangeRate_ShouldReturnCbor_WhenAccepted() throws Exception {
+		ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+		cborMapper.registerModule(new JavaTimeModule());
+		MockMvc negotiatingMockMvc = MockMvcBuilders.standaloneSetup(purchaseController)
+				.setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper),
+						new MappingJackson2CborHttpMessageConverter(cborMapper))
+				.build();
+		Purchase purchase = getLaptopPurchase();
+		when(purchaseService.findViewById(eq(42))).thenReturn(PurchaseView.from(purchase));
+		when(exchangeRateService.tryConvert(eq("Canada-Dollar"), eq(PurchaseView.from(purchase))))
+				.thenReturn(ConversionResult.converted(ExchangeRateResponse.builder()
+						.id(42)
+						.convertedAmount(new BigDecimal("1250.00"))
+						.targetCurrency("Canada-Dollar")
+						.exchangeRate(new BigDecimal("1.25"))
+						.build()));
+
+		byte[] body = negotiatingMockMvc.perform(get("/purchase/{id}/exchange", 42)
+					.param("countryCurrency", "Canada-Dollar")
+					.accept(MediaType.APPLICATION_CBOR))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		ExchangeRateResponse decoded = cborMapper.readValue(body, ExchangeRateResponse.class);
+		assertEquals(42, decoded.getId());
+		assertEquals(new BigDecimal("1250.00"), decoded.getConvertedAmount());
+	}
+
+	@Test
+	void convertPurchases_ShouldReturnPerIdResults() throws Exception {
+		BatchExchangeRequest request = new BatchExchangeRequest(List.of(42, 999), "Canada-Dollar");
+		when(batchConversionService.convertAll(eq("Canada-Dollar"), eq(List.of(42, 999))))
+				.thenReturn(new BatchExchangeResponse("Canada-Dollar", List.of(
+						BatchExchangeResult.converted(42, ExchangeRateResponse.builder()
+								.id(42)
+								.convertedAmount(new BigDecimal("1250.00"))
+								.build()),
+						BatchExchangeResult.failed(999, "Purchase not found"))));
+
+		mockMvc.perform(post("/purchases/exchange")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(request)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.results[0].id").value(42))
+				.andExpect(jsonPath("$.results[0].conversion.convertedAmount").value(1250.00))
+				.andExpect(jsonPath("$.results[1].error").value("Purchase not found"))
+				.andExpect(jsonPath("$.results[1].conversion").doesNotExist());
+	}
+
+	@Test
+	void convertPurchases_ShouldReturnBadRequest_WhenIdsAreMissing() throws Exception {
+		BatchExchangeRequest request = new BatchExchangeRequest(List.of(), "Canada-Dollar");
+
+		mockMvc.perform(post("/purchases/exchange")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(request)))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.ids").value("At least one purchase id is required"));
+
+		verify(batchConversionService, never()).convertAll(any(), any());
+	}
+
+	@Test
+	void convertPurchases_ShouldReturnProblem_WhenRatesCannotBeFetched() throws Exception {
+		BatchExchangeRequest request = new BatchExchangeRequest(List.of(42), "Canada-Dollar");
+		when(batchConversionService.convertAll(eq("Canada-Dollar"), eq(List.of(42))))
+				.thenThrow(new CurrencyNotFoundException("Unable to fetch exchange rate for currency: Canada-Dollar"));
+
+		mockMvc.perform(post("/purchases/exchange")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(request)))
+				.andExpect(status().isBadRequest())
+				.andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+				.andExpect(jsonPath("$.detail").value("Unable to fetch exchange rate for currency: Canada-Dollar"));
+	}
+
+	private static ConversionResult converted(BigDecimal exchangeRate) {
+		return ConversionResult.converted(ExchangeRateResponse.builder().id(42).exchangeRate(exchangeRate).build());
+	}
+
+	private Purchase getLaptopPurchase() {
+		return Purchase.builder()
+				.id(42)
+				.description("Laptop")
+				.amount(new BigDecimal("1000.00"))
+				.transactionDate(LocalDate.of(2025, 9, 15))
+				.build();
 	}
 }
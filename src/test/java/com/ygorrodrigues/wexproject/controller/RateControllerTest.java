@@ -0,0 +1,107 @@
+package com.ygorrodrigues.wexproject.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.ygorrodrigues.wexproject.repository.ExchangeRateSeries;
+import com.ygorrodrigues.wexproject.service.ExchangeRateService;
+import com.ygorrodrigues.wexproject.service.UpstreamPriority;
+
+@ExtendWith(MockitoExtension.class)
+public class RateControllerTest {
+	private MockMvc mockMvc;
+
+	@Mock
+	private ExchangeRateService exchangeRateService;
+
+	@InjectMocks
+	private RateController rateController;
+
+	@BeforeEach
+	void setup() {
+		mockMvc = MockMvcBuilders.standaloneSetup(rateController).build();
+	}
+
+	@Test
+	void getRates_ShouldReturnOnlyRatesInsideTheRange_OldestFirst() throws Exception {
+		TreeMap<Integer, BigDecimal> rates = new TreeMap<>();
+		rates.put(epochDay("2024-12-31"), new BigDecimal("1.44"));
+		rates.put(epochDay("2025-03-31"), new BigDecimal("1.43"));
+		rates.put(epochDay("2025-06-30"), new BigDecimal("1.37"));
+		rates.put(epochDay("2025-09-30"), new BigDecimal("1.39"));
+		when(exchangeRateService.getExchangeRateSeries(eq("Canada-Dollar"), eq(LocalDate.of(2025, 1, 1)),
+				eq(LocalDate.of(2025, 6, 30)), eq(UpstreamPriority.INTERACTIVE)))
+				.thenReturn(ExchangeRateSeries.of(rates));
+
+		mockMvc.perform(get("/rates/Canada-Dollar")
+				.param("from", "2025-01-01")
+				.param("to", "2025-06-30"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.countryCurrency").value("Canada-Dollar"))
+				.andExpect(jsonPath("$.rates.length()").value(2))
+				.andExpect(jsonPath("$.rates[0].recordDate").value("2025-03-31"))
+				.andExpect(jsonPath("$.rates[0].exchangeRate").value(1.43))
+				.andExpect(jsonPath("$.rates[1].recordDate").value("2025-06-30"));
+	}
+
+	@Test
+	void getRates_ShouldDefaultToTheLastYear() throws Exception {
+		LocalDate today = LocalDate.now();
+		TreeMap<Integer, BigDecimal> rates = new TreeMap<>();
+		rates.put((int) today.minusYears(2).toEpochDay(), new BigDecimal("1.44"));
+		when(exchangeRateService.getExchangeRateSeries(eq("Canada-Dollar"), eq(today.minusYears(1)), eq(today), any()))
+				.thenReturn(ExchangeRateSeries.of(rates));
+
+		mockMvc.perform(get("/rates/Canada-Dollar"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.to").value(today.toString()))
+				.andExpect(jsonPath("$.rates.length()").value(0));
+	}
+
+	@Test
+	void getRates_ShouldReturnNotFound_WhenCurrencyHasNoRates() throws Exception {
+		when(exchangeRateService.getExchangeRateSeries(eq("Atlantis-Coin"), any(), any(), any()))
+				.thenReturn(ExchangeRateSeries.of(new TreeMap<>()));
+
+		mockMvc.perform(get("/rates/Atlantis-Coin"))
+				.andExpect(status().isNotFound())
+				.andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+				.andExpect(jsonPath("$.detail").value("No exchange rates found for currency: Atlantis-Coin"));
+	}
+
+	@Test
+	void getRates_ShouldReturnBadRequest_WhenFromIsAfterTo() throws Exception {
+		mockMvc.perform(get("/rates/Canada-Dollar")
+				.param("from", "2025-06-30")
+				.param("to", "2025-01-01"))
+				.andExpect(status().isBadRequest())
+				.andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+				.andExpect(jsonPath("$.detail").value("'from' must not be after 'to'"));
+
+		verifyNoInteractions(exchangeRateService);
+	}
+
+	private static int epochDay(String date) {
+		return (int) LocalDate.parse(date).toEpochDay();
+	}
+}
@@ -0,0 +1,92 @@
+package com.ygorrodrigues.wexproject.profiling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ygorrodrigues.wexproject.models.RecordingStatus;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class FlightRecorderServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private FlightRecorderService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new FlightRecorderService("default", Duration.ofMinutes(30), 64, Duration.ZERO, directory.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    void dump_ShouldContainApplicationEvents_WhileRecording() throws Exception {
+        service.start(null, null);
+        RateLookupEvent event = new RateLookupEvent();
+        event.begin();
+        event.countryCurrency = "Canada-Dollar";
+        event.priority = "INTERACTIVE";
+        event.source = RateLookupEvent.STORE;
+        event.found = true;
+        event.commit();
+
+        Path dump = service.dump().orElseThrow();
+
+        List<RecordedEvent> lookups = RecordingFile.readAllEvents(dump).stream()
+            .filter(recorded -> recorded.getEventType().getName().equals("com.ygorrodrigues.wexproject.RateLookup"))
+            .toList();
+        assertEquals(1, lookups.size());
+        assertEquals("Canada-Dollar", lookups.get(0).getString("countryCurrency"));
+        assertEquals(RateLookupEvent.STORE, lookups.get(0).getString("source"));
+        assertTrue(dump.startsWith(directory));
+    }
+
+    @Test
+    void start_ShouldKeepRequestedLimitsWithinConfiguredMaximums() {
+        RecordingStatus status = service.start(Duration.ofHours(2), 1024L);
+
+        assertEquals("RUNNING", status.state());
+        assertEquals(Duration.ofMinutes(30).toSeconds(), status.maxAgeSeconds());
+        assertEquals(64L * 1024 * 1024, status.maxSizeBytes());
+        assertEquals(status.startedAt(), service.start(Duration.ofMinutes(5), 8L).startedAt());
+    }
+
+    @Test
+    void stop_ShouldKeepDataForDump() throws Exception {
+        assertTrue(service.stop().isEmpty());
+        assertTrue(service.dump().isEmpty());
+
+        service.start(Duration.ofMinutes(5), 8L);
+        assertEquals("STOPPED", service.stop().orElseThrow().state());
+
+        Path dump = service.dump().orElseThrow();
+        assertTrue(Files.size(dump) > 0);
+    }
+
+    @Test
+    void dump_ShouldLeaveOutEnvironmentAndSystemProperties() throws Exception {
+        service.start(null, null);
+
+        Path dump = service.dump().orElseThrow();
+
+        assertTrue(RecordingFile.readAllEvents(dump).stream()
+            .map(recorded -> recorded.getEventType().getName())
+            .noneMatch(name -> name.equals("jdk.InitialEnvironmentVariable") || name.equals("jdk.InitialSystemProperty")));
+    }
+}
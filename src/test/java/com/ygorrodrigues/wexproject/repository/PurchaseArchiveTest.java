@@ -0,0 +1,130 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ygorrodrigues.wexproject.models.PurchaseReport;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+
+class PurchaseArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private PurchaseArchive archive;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        archive = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        archive.close();
+    }
+
+    @Test
+    void findById_ShouldReadPurchaseFromItsBlock() {
+        archive.append(purchases(1, 1000));
+
+        assertEquals(purchase(1), archive.findById(1).orElseThrow());
+        assertEquals(purchase(257), archive.findById(257).orElseThrow());
+        assertEquals(purchase(1000), archive.findById(1000).orElseThrow());
+        assertTrue(archive.findById(1001).isEmpty());
+        assertEquals(1000, archive.rows());
+    }
+
+    @Test
+    void cursor_ShouldMergeOverlappingSegmentsInIdOrder() {
+        archive.append(List.of(purchase(1), purchase(5), purchase(9)));
+        archive.append(List.of(purchase(3), purchase(7)));
+
+        assertEquals(List.of(5, 7, 9), ids(archive.cursor(3)));
+        assertEquals(purchase(7), archive.findById(7).orElseThrow());
+        assertEquals(1, archive.idBounds().orElseThrow()[0]);
+        assertEquals(9, archive.idBounds().orElseThrow()[1]);
+    }
+
+    @Test
+    void cursor_ShouldOnlyReturnPurchasesInDateRange() {
+        archive.append(purchases(1, 600));
+
+        List<Integer> ids = ids(archive.cursor(0, date(300), date(310)));
+
+        assertEquals(IntStream.rangeClosed(300, 310).boxed().toList(), ids);
+    }
+
+    @Test
+    void summarize_ShouldAggregateArchivedPurchasesInDateRange() {
+        archive.append(purchases(1, 10));
+
+        PurchaseReport report = archive.summarize(date(2), date(4));
+
+        assertEquals(3, report.count());
+        assertEquals(new BigDecimal("9.00"), report.totalAmount());
+        assertEquals(new BigDecimal("4.00"), report.maxAmount());
+    }
+
+    @Test
+    void open_ShouldReloadSegments_AndDropUnfinishedWrites() throws IOException {
+        archive.append(purchases(1, 300));
+        archive.append(purchases(301, 310));
+        archive.close();
+        Files.writeString(directory.resolve("segment-00000003.seg.tmp"), "partial");
+
+        archive = open();
+        archive.append(purchases(311, 320));
+
+        assertEquals(3, archive.segmentCount());
+        assertEquals(320, archive.rows());
+        assertEquals(purchase(150), archive.findById(150).orElseThrow());
+        assertEquals(IntStream.rangeClosed(311, 320).boxed().toList(), archive.newestSegmentIds());
+        assertFalse(Files.exists(directory.resolve("segment-00000003.seg.tmp")));
+    }
+
+    @Test
+    void append_ShouldRejectUnsortedPurchases() {
+        assertThrows(IllegalArgumentException.class, () -> archive.append(List.of(purchase(2), purchase(1))));
+    }
+
+    private PurchaseArchive open() throws IOException {
+        PurchaseArchive opened = new PurchaseArchive(true, directory.toString());
+        opened.open();
+        return opened;
+    }
+
+    private static List<PurchaseView> purchases(int fromId, int toId) {
+        return IntStream.rangeClosed(fromId, toId).mapToObj(PurchaseArchiveTest::purchase).toList();
+    }
+
+    private static PurchaseView purchase(int id) {
+        return new PurchaseView(id, "Purchase " + id, BigDecimal.valueOf(id * 100L, 2), date(id));
+    }
+
+    private static LocalDate date(int id) {
+        return LocalDate.of(2015, 1, 1).plusDays(id);
+    }
+
+    private static List<Integer> ids(Iterator<PurchaseView> cursor) {
+        List<Integer> ids = new ArrayList<>();
+        cursor.forEachRemaining(purchase -> ids.add(purchase.id()));
+        return ids;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.ygorrodrigues.wexproject.models.PurchaseReport;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+
+class PurchaseColumnStoreTest {
+
+    private final PurchaseColumnStore store = new PurchaseColumnStore(null, null);
+
+    @Test
+    void summarize_ShouldAggregatePurchasesInDateRange() {
+        store.append(1, "Coffee", new BigDecimal("3.50"), LocalDate.of(2025, 9, 1));
+        store.append(2, "Laptop", new BigDecimal("1000"), LocalDate.of(2025, 9, 15));
+        store.append(3, "Coffee", new BigDecimal("4.25"), LocalDate.of(2025, 9, 30));
+        store.append(4, "Book", new BigDecimal("20.00"), LocalDate.of(2025, 10, 1));
+
+        PurchaseReport report = store.summarize(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 9, 30));
+
+        assertEquals(3, report.count());
+        assertEquals(new BigDecimal("1007.75"), report.totalAmount());
+        assertEquals(new BigDecimal("1000.00"), report.maxAmount());
+        assertEquals(3, store.distinctDescriptions());
+    }
+
+    @Test
+    void summarize_ShouldReturnEmptyReport_WhenNoPurchaseMatches() {
+        store.append(1, "Coffee", new BigDecimal("3.50"), LocalDate.of(2025, 9, 1));
+
+        PurchaseReport report = store.summarize(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31));
+
+        assertEquals(0, report.count());
+        assertEquals(new BigDecimal("0.00"), report.totalAmount());
+        assertNull(report.maxAmount());
+    }
+
+    @Test
+    void append_ShouldIgnoreDuplicateIds() {
+        store.append(1, "Coffee", new BigDecimal("3.50"), LocalDate.of(2025, 9, 1));
+        store.append(1, "Coffee", new BigDecimal("3.50"), LocalDate.of(2025, 9, 1));
+
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void summarize_ShouldScanAcrossChunks() {
+        int rows = PurchaseColumnStore.CHUNK_ROWS * 2 + 10;
+        LocalDate date = LocalDate.of(2025, 1, 1);
+        for (int id = 1; id <= rows; id++) {
+            store.append(id, "Purchase " + (id % 100), new BigDecimal("1.00"), date);
+        }
+
+        PurchaseReport report = store.summarize(date, date);
+
+        assertEquals(rows, report.count());
+        assertEquals(BigDecimal.valueOf(rows * 100L, 2), report.totalAmount());
+        assertEquals(100, store.distinctDescriptions());
+    }
+
+    @Test
+    void load_ShouldCountPurchaseOnce_WhenItIsArchivedAndStillInTable(@TempDir Path directory) throws Exception {
+        LocalDate date = LocalDate.of(2020, 1, 1);
+        PurchaseArchive archive = new PurchaseArchive(true, directory.toString());
+        archive.open();
+        archive.append(List.of(
+            new PurchaseView(1, "Coffee", new BigDecimal("3.50"), date),
+            new PurchaseView(2, "Book", new BigDecimal("20.00"), date)));
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getInt(1)).thenReturn(2);
+            when(rs.getString(2)).thenReturn("Book");
+            when(rs.getBigDecimal(3)).thenReturn(new BigDecimal("20.00"));
+            when(rs.getDate(4)).thenReturn(Date.valueOf(date));
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        PurchaseColumnStore loaded = new PurchaseColumnStore(jdbcTemplate, archive);
+
+        try {
+            loaded.load();
+        } finally {
+            archive.close();
+        }
+
+        PurchaseReport report = loaded.summarize(date, date);
+        assertEquals(2, report.count());
+        assertEquals(new BigDecimal("23.50"), report.totalAmount());
+    }
+}
@@ -0,0 +1,136 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.ygorrodrigues.wexproject.models.PurchaseReport;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+
+class PurchaseReadRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger pages = new AtomicInteger();
+    private JdbcTemplate jdbcTemplate;
+    private PurchaseArchive archive;
+    private PurchaseShards shards;
+    private PurchaseReadRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:read-test-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        jdbcTemplate = new JdbcTemplate(dataSource) {
+            @Override
+            public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+                if (sql.contains("LIMIT")) {
+                    pages.incrementAndGet();
+                }
+                return super.query(sql, rowMapper, args);
+            }
+        };
+        jdbcTemplate.execute("CREATE TABLE purchases (" +
+            "id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+            "description VARCHAR(255) NOT NULL, " +
+            "amount NUMERIC(19, 2) NOT NULL, " +
+            "transaction_date DATE NOT NULL)");
+        archive = new PurchaseArchive(true, directory.toString());
+        archive.open();
+        shards = new PurchaseShards(PurchaseShards.Mode.HASH, List.of(), 1);
+        repository = new PurchaseReadRepository(jdbcTemplate, archive, shards);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        archive.close();
+        shards.close();
+    }
+
+    @Test
+    void forEachPurchase_ShouldReadTableInKeysetPagesOfFetchSize() {
+        for (int id = 1; id <= 7; id++) {
+            store(purchase(id));
+        }
+
+        List<PurchaseView> exported = new ArrayList<>();
+        repository.forEachPurchase(0, date(1), date(7), 2, exported::add);
+
+        assertEquals(IntStream.rangeClosed(1, 7).boxed().toList(), exported.stream().map(PurchaseView::id).toList());
+        assertEquals(4, pages.get());
+
+        List<Integer> resumed = new ArrayList<>();
+        repository.forEachPurchase(3, date(1), date(6), 2, purchase -> resumed.add(purchase.id()));
+        assertEquals(List.of(4, 5, 6), resumed);
+    }
+
+    @Test
+    void reads_ShouldReturnPurchaseOnce_WhenItIsInTableAndArchive() {
+        // 2 and 3 were written to a segment but not yet deleted from the table, as during a move
+        archive.append(List.of(purchase(1), purchase(2), purchase(3)));
+        for (int id = 2; id <= 5; id++) {
+            store(purchase(id));
+        }
+
+        assertEquals(IntStream.rangeClosed(1, 5).boxed().toList(),
+            repository.findByIdRange(1, 6).stream().map(PurchaseView::id).toList());
+        assertEquals(List.of(3, 4), repository.findByIdRange(3, 5).stream().map(PurchaseView::id).toList());
+
+        List<Integer> exported = new ArrayList<>();
+        repository.forEachPurchase(0, date(1), date(5), 2, purchase -> exported.add(purchase.id()));
+        assertEquals(IntStream.rangeClosed(1, 5).boxed().toList(), exported);
+
+        PurchaseReport report = repository.summarize(date(1), date(5));
+        assertEquals(5, report.count());
+        assertEquals(new BigDecimal("15.00"), report.totalAmount());
+        assertEquals(new BigDecimal("5.00"), report.maxAmount());
+
+        PurchaseReport archivedOnly = repository.summarize(date(1), date(1));
+        assertEquals(1, archivedOnly.count());
+        assertEquals(new BigDecimal("1.00"), archivedOnly.totalAmount());
+    }
+
+    @Test
+    void reads_ShouldFallBackToArchive_ForPurchasesNoLongerInTable() {
+        archive.append(List.of(purchase(1), purchase(2)));
+        store(purchase(3));
+
+        assertEquals(purchase(1), repository.findById(1).orElseThrow());
+        assertEquals(purchase(3), repository.findById(3).orElseThrow());
+        assertTrue(repository.findById(4).isEmpty());
+        assertEquals(List.of(1, 2, 3), repository.findByIds(List.of(3, 1, 2, 4)).stream().map(PurchaseView::id).sorted().toList());
+        assertEquals(1, repository.idBounds().orElseThrow()[0]);
+        assertEquals(3, repository.idBounds().orElseThrow()[1]);
+    }
+
+    private void store(PurchaseView purchase) {
+        jdbcTemplate.update("INSERT INTO purchases (id, description, amount, transaction_date) VALUES (?, ?, ?, ?)",
+            purchase.id(), purchase.description(), purchase.amount(), purchase.transactionDate());
+    }
+
+    private static PurchaseView purchase(int id) {
+        return new PurchaseView(id, "Purchase " + id, BigDecimal.valueOf(id * 100L, 2), date(id));
+    }
+
+    private static LocalDate date(int day) {
+        return LocalDate.of(2015, 1, 1).plusDays(day);
+    }
+}
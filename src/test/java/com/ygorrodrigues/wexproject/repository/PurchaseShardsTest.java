@@ -0,0 +1,136 @@
+package com.ygorrodrigues.wexproject.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ygorrodrigues.wexproject.models.PurchaseReport;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+
+class PurchaseShardsTest {
+
+    private final String name = "shard-test-" + UUID.randomUUID();
+    private final List<PurchaseShards> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(PurchaseShards::close);
+    }
+
+    @Test
+    void insert_ShouldAllocateIdsOwnedByTheShard_AndFindByIdReadsOnlyThatShard() {
+        List<DataSource> dataSources = dataSources(3);
+        PurchaseShards shards = open(PurchaseShards.Mode.HASH, dataSources);
+
+        List<PurchaseView> inserted = insert(shards, 9);
+
+        assertEquals(IntStream.rangeClosed(1, 9).boxed().toList(), inserted.stream().map(PurchaseView::id).toList());
+        for (PurchaseView purchase : inserted) {
+            int owner = shards.shardOf(purchase.id());
+            assertEquals(purchase, shards.findById(purchase.id()).orElseThrow());
+            assertEquals(1, new JdbcTemplate(dataSources.get(owner))
+                .queryForObject("SELECT COUNT(*) FROM purchases WHERE id = ?", Integer.class, purchase.id()));
+        }
+        assertTrue(shards.findById(10).isEmpty());
+    }
+
+    @Test
+    void insert_ShouldAllocateIdsFromTheShardBlock_InRangeMode() {
+        PurchaseShards shards = open(PurchaseShards.Mode.RANGE, dataSources(3));
+        int rangeSize = Integer.MAX_VALUE / 3;
+
+        List<PurchaseView> inserted = insert(shards, 4);
+
+        assertEquals(List.of(1, rangeSize + 1, 2 * rangeSize + 1, 2), inserted.stream().map(PurchaseView::id).toList());
+        assertEquals(List.of(0, 1, 2, 0), inserted.stream().map(purchase -> shards.shardOf(purchase.id())).toList());
+        assertEquals(inserted.get(2), shards.findById(2 * rangeSize + 1).orElseThrow());
+    }
+
+    @Test
+    void idRanges_ShouldGiveOneRangePerShardBlock_InRangeMode() {
+        PurchaseShards shards = open(PurchaseShards.Mode.RANGE, dataSources(3));
+        int rangeSize = Integer.MAX_VALUE / 3;
+        List<PurchaseView> inserted = insert(shards, 5);
+
+        List<int[]> ranges = shards.idRanges();
+
+        assertEquals(3, ranges.size());
+        assertEquals(List.of(1, 2), List.of(ranges.get(0)[0], ranges.get(0)[1]));
+        assertEquals(List.of(rangeSize + 1, rangeSize + 2), List.of(ranges.get(1)[0], ranges.get(1)[1]));
+        assertEquals(List.of(2 * rangeSize + 1, 2 * rangeSize + 1), List.of(ranges.get(2)[0], ranges.get(2)[1]));
+        assertEquals(List.of(inserted.get(1), inserted.get(4)), shards.findByIdRange(rangeSize + 1, rangeSize + 3));
+    }
+
+    @Test
+    void scans_ShouldFanOutAndMergeInIdOrder() {
+        PurchaseShards shards = open(PurchaseShards.Mode.HASH, dataSources(3));
+        List<PurchaseView> inserted = insert(shards, 10);
+
+        assertEquals(inserted, shards.findByIdRange(0, 100));
+        assertEquals(inserted.subList(2, 7), shards.findByIdRange(3, 8));
+
+        List<Integer> exported = new ArrayList<>();
+        shards.forEachPurchase(2, date(3), date(8), 2, purchase -> exported.add(purchase.id()));
+        assertEquals(List.of(3, 4, 5, 6, 7, 8), exported);
+
+        assertEquals(List.of(2, 5, 9), shards.findByIds(List.of(9, 2, 5, 42)).stream().map(PurchaseView::id).sorted().toList());
+        assertEquals(1, shards.idBounds().orElseThrow()[0]);
+        assertEquals(10, shards.idBounds().orElseThrow()[1]);
+        assertEquals(1, shards.idRanges().size());
+
+        PurchaseReport report = shards.summarize(date(2), date(4));
+        assertEquals(3, report.count());
+        assertEquals(new BigDecimal("9.00"), report.totalAmount());
+        assertEquals(new BigDecimal("4.00"), report.maxAmount());
+    }
+
+    @Test
+    void open_ShouldFail_WhenShardCountChanged() {
+        open(PurchaseShards.Mode.HASH, dataSources(2));
+
+        assertThrows(IllegalStateException.class, () -> open(PurchaseShards.Mode.HASH, dataSources(3)));
+    }
+
+    private PurchaseShards open(PurchaseShards.Mode mode, List<DataSource> dataSources) {
+        PurchaseShards shards = new PurchaseShards(mode, dataSources, 2);
+        opened.add(shards);
+        return shards;
+    }
+
+    private List<DataSource> dataSources(int count) {
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int shard = 0; shard < count; shard++) {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:" + name + "-" + shard + ";DB_CLOSE_DELAY=-1");
+            dataSource.setUser("sa");
+            dataSources.add(dataSource);
+        }
+        return dataSources;
+    }
+
+    private static List<PurchaseView> insert(PurchaseShards shards, int count) {
+        List<PurchaseView> inserted = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            inserted.add(shards.insert("Purchase " + i, BigDecimal.valueOf(i * 100L, 2), date(i)));
+        }
+        return inserted;
+    }
+
+    private static LocalDate date(int day) {
+        return LocalDate.of(2015, 1, 1).plusDays(day);
+    }
+}
@@ -0,0 +1,79 @@
+package com.ygorrodrigues.wexproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.ygorrodrigues.wexproject.models.BatchExchangeResponse;
+import com.ygorrodrigues.wexproject.models.BatchExchangeResult;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateSeries;
+import com.ygorrodrigues.wexproject.repository.PurchaseReadRepository;
+
+@ExtendWith(MockitoExtension.class)
+class BatchConversionServiceTest {
+
+    @Mock
+    private PurchaseReadRepository purchaseReadRepository;
+
+    @Mock
+    private ExchangeRateService exchangeRateService;
+
+    @InjectMocks
+    private BatchConversionService batchConversionService;
+
+    @Test
+    void convertAll_ShouldFetchRatesOnce_AndReportPerIdErrors() {
+        when(purchaseReadRepository.findByIds(Set.of(1, 2, 3, 4))).thenReturn(List.of(
+            purchase(1, "100.00", "2025-09-15"),
+            purchase(2, "10.00", "2025-04-10"),
+            purchase(3, "20.00", "2024-01-10")));
+        TreeMap<Integer, BigDecimal> rates = new TreeMap<>();
+        rates.put((int) LocalDate.of(2025, 3, 31).toEpochDay(), new BigDecimal("1.25"));
+        rates.put((int) LocalDate.of(2025, 6, 30).toEpochDay(), new BigDecimal("1.37"));
+        when(exchangeRateService.getExchangeRateSeries("Canada-Dollar", LocalDate.of(2023, 7, 10),
+            LocalDate.of(2025, 9, 15), UpstreamPriority.INTERACTIVE)).thenReturn(ExchangeRateSeries.of(rates));
+
+        BatchExchangeResponse response = batchConversionService.convertAll("Canada-Dollar", List.of(1, 2, 2, 3, 4));
+
+        List<BatchExchangeResult> results = response.results();
+        assertEquals(List.of(1, 2, 3, 4), results.stream().map(BatchExchangeResult::id).toList());
+        assertEquals(new BigDecimal("137.00"), results.get(0).conversion().getConvertedAmount());
+        assertEquals(new BigDecimal("12.50"), results.get(1).conversion().getConvertedAmount());
+        assertNull(results.get(1).error());
+        assertEquals("Purchase cannot be converted to the target currency: Canada-Dollar", results.get(2).error());
+        assertEquals("Purchase not found", results.get(3).error());
+        verify(exchangeRateService, times(1)).getExchangeRateSeries(any(), any(), any(), any());
+    }
+
+    @Test
+    void convertAll_ShouldNotFetchRates_WhenNoPurchaseExists() {
+        when(purchaseReadRepository.findByIds(Set.of(7))).thenReturn(List.of());
+
+        BatchExchangeResponse response = batchConversionService.convertAll("Canada-Dollar", List.of(7));
+
+        assertEquals("Purchase not found", response.results().get(0).error());
+        verify(exchangeRateService, never()).getExchangeRateSeries(any(), any(), any(), eq(UpstreamPriority.INTERACTIVE));
+    }
+
+    private static PurchaseView purchase(int id, String amount, String transactionDate) {
+        return new PurchaseView(id, "Purchase " + id, new BigDecimal(amount), LocalDate.parse(transactionDate));
+    }
+}
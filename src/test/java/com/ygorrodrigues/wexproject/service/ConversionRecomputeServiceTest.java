@@ -0,0 +1,213 @@
+package com.ygorrodrigues.wexproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.ygorrodrigues.wexproject.exception.CurrencyNotFoundException;
+import com.ygorrodrigues.wexproject.models.ConversionJobStatus;
+import com.ygorrodrigues.wexproject.models.PurchaseConversion;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateSeries;
+import com.ygorrodrigues.wexproject.repository.PurchaseConversionRepository;
+import com.ygorrodrigues.wexproject.repository.PurchaseReadRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ConversionRecomputeServiceTest {
+
+    private static final String CURRENCY = "Canada-Dollar";
+
+    @Mock
+    private PurchaseReadRepository purchaseReadRepository;
+
+    @Mock
+    private PurchaseConversionRepository purchaseConversionRepository;
+
+    @Mock
+    private ExchangeRateService exchangeRateService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConversionRecomputeService recomputeService;
+    private final List<PurchaseConversion> written = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        recomputeService = new ConversionRecomputeService(purchaseReadRepository, purchaseConversionRepository,
+            exchangeRateService, meterRegistry, 2, 2, 1, "2001-01-01");
+    }
+
+    @AfterEach
+    void tearDown() {
+        recomputeService.shutdown();
+    }
+
+    @Test
+    void recompute_ShouldConvertEveryChunk_AndClearCheckpoints() {
+        long ratesFingerprint = givenRates("2025-03-31", "1.25");
+        givenPurchases(
+            purchase(1, "10.00", "2025-04-10"),
+            purchase(2, "20.00", "2025-05-10"),
+            purchase(3, "30.00", "2024-01-10"), // no rate in the 6 months before
+            purchase(4, "40.00", "2025-06-10"));
+        when(purchaseConversionRepository.completedChunks(CURRENCY, 2, ratesFingerprint)).thenReturn(Set.of());
+
+        ConversionJobStatus status = recomputeService.recompute(CURRENCY);
+
+        assertEquals("COMPLETED", status.state());
+        assertEquals(3, status.chunksTotal());
+        assertEquals(3, status.chunksDone());
+        assertEquals(3, status.rowsWritten());
+        assertEquals(1, status.rowsSkipped());
+        written.sort(Comparator.comparing(PurchaseConversion::getPurchaseId));
+        assertEquals(List.of(1, 2, 4), written.stream().map(PurchaseConversion::getPurchaseId).toList());
+        assertEquals(new BigDecimal("50.00"), written.get(2).getConvertedAmount());
+        verify(purchaseConversionRepository).markChunkCompleted(CURRENCY, 0, 2, ratesFingerprint);
+        verify(purchaseConversionRepository).markChunkCompleted(CURRENCY, 2, 2, ratesFingerprint);
+        verify(purchaseConversionRepository).markChunkCompleted(CURRENCY, 4, 2, ratesFingerprint);
+        verify(purchaseConversionRepository).clearCheckpoints(CURRENCY);
+        assertEquals(3.0, meterRegistry.get("conversion.recompute.rows").tag("outcome", "written").counter().count());
+    }
+
+    @Test
+    void recompute_ShouldResumeFromCheckpoint_OfTheSameRates() {
+        long ratesFingerprint = givenRates("2025-03-31", "1.25");
+        givenPurchases(
+            purchase(1, "10.00", "2025-04-10"),
+            purchase(2, "20.00", "2025-05-10"),
+            purchase(3, "30.00", "2025-06-10"));
+        when(purchaseConversionRepository.completedChunks(CURRENCY, 2, ratesFingerprint)).thenReturn(Set.of(0));
+
+        ConversionJobStatus status = recomputeService.recompute(CURRENCY);
+
+        assertEquals(2, status.chunksTotal());
+        assertEquals(2, status.chunksDone());
+        assertEquals(2, status.rowsWritten());
+        verify(purchaseReadRepository, never()).findByIdRange(0, 2);
+        verify(purchaseConversionRepository, never()).markChunkCompleted(CURRENCY, 0, 2, ratesFingerprint);
+    }
+
+    @Test
+    void recompute_ShouldNotReuseCheckpoints_WrittenFromRevisedRates() {
+        long oldFingerprint = series("2025-03-31", "1.25").fingerprint();
+        long newFingerprint = givenRates("2025-03-31", "1.30");
+        givenPurchases(
+            purchase(1, "10.00", "2025-04-10"),
+            purchase(2, "20.00", "2025-05-10"),
+            purchase(3, "30.00", "2025-06-10"));
+        when(purchaseConversionRepository.completedChunks(eq(CURRENCY), eq(2), anyLong()))
+            .thenAnswer(invocation -> invocation.<Long>getArgument(2) == oldFingerprint ? Set.of(0) : Set.of());
+
+        ConversionJobStatus status = recomputeService.recompute(CURRENCY);
+
+        assertEquals(2, status.chunksTotal());
+        assertEquals(3, status.rowsWritten());
+        written.sort(Comparator.comparing(PurchaseConversion::getPurchaseId));
+        assertEquals(new BigDecimal("13.00"), written.get(0).getConvertedAmount());
+        verify(purchaseConversionRepository).markChunkCompleted(CURRENCY, 0, 2, newFingerprint);
+    }
+
+    @Test
+    void fingerprint_ShouldIgnoreScale_AndChangeWithRates() {
+        assertEquals(series("2025-03-31", "1.25").fingerprint(), series("2025-03-31", "1.250000").fingerprint());
+        assertNotEquals(series("2025-03-31", "1.25").fingerprint(), series("2025-03-31", "1.26").fingerprint());
+        assertNotEquals(series("2025-03-31", "1.25").fingerprint(), series("2025-06-30", "1.25").fingerprint());
+    }
+
+    @Test
+    void recompute_ShouldOnlyWalkChunksInsideIdRanges() {
+        long ratesFingerprint = givenRates("2025-03-31", "1.25");
+        List<PurchaseView> all = List.of(
+            purchase(1, "10.00", "2025-04-10"),
+            purchase(1_000_001, "20.00", "2025-05-10"),
+            purchase(1_000_002, "30.00", "2025-05-10"));
+        when(purchaseReadRepository.idRanges()).thenReturn(List.of(new int[] {1, 1}, new int[] {1_000_001, 1_000_002}));
+        when(purchaseReadRepository.findByIdRange(anyInt(), anyInt())).thenAnswer(invocation -> {
+            int from = invocation.getArgument(0);
+            int to = invocation.getArgument(1);
+            return all.stream().filter(p -> p.id() >= from && p.id() < to).toList();
+        });
+        when(purchaseConversionRepository.completedChunks(CURRENCY, 2, ratesFingerprint)).thenReturn(Set.of());
+
+        ConversionJobStatus status = recomputeService.recompute(CURRENCY);
+
+        assertEquals(3, status.chunksTotal());
+        assertEquals(3, status.rowsWritten());
+        verify(purchaseReadRepository).findByIdRange(0, 2);
+        verify(purchaseReadRepository).findByIdRange(1_000_000, 1_000_002);
+        verify(purchaseReadRepository).findByIdRange(1_000_002, 1_000_004);
+    }
+
+    @Test
+    void recompute_ShouldFail_WhenCurrencyHasNoRates() {
+        when(exchangeRateService.getExchangeRateSeries(eq("Atlantis-Coin"), any(), any(), any()))
+            .thenReturn(ExchangeRateSeries.of(new TreeMap<>()));
+
+        assertThrows(CurrencyNotFoundException.class, () -> recomputeService.recompute("Atlantis-Coin"));
+
+        assertEquals("FAILED", recomputeService.status().state());
+        verify(purchaseReadRepository, never()).idRanges();
+    }
+
+    private long givenRates(String recordDate, String rate) {
+        ExchangeRateSeries series = series(recordDate, rate);
+        when(exchangeRateService.getExchangeRateSeries(eq(CURRENCY), eq(LocalDate.of(2001, 1, 1)), any(),
+            eq(UpstreamPriority.BULK_SYNC))).thenReturn(series);
+        return series.fingerprint();
+    }
+
+    private static ExchangeRateSeries series(String recordDate, String rate) {
+        TreeMap<Integer, BigDecimal> rates = new TreeMap<>();
+        rates.put(epochDay(recordDate), new BigDecimal(rate));
+        return ExchangeRateSeries.of(rates);
+    }
+
+    private void givenPurchases(PurchaseView... purchases) {
+        List<PurchaseView> all = List.of(purchases);
+        when(purchaseReadRepository.idRanges()).thenReturn(List.<int[]>of(new int[] {all.get(0).id(), all.get(all.size() - 1).id()}));
+        when(purchaseReadRepository.findByIdRange(anyInt(), anyInt())).thenAnswer(invocation -> {
+            int from = invocation.getArgument(0);
+            int to = invocation.getArgument(1);
+            return all.stream().filter(p -> p.id() >= from && p.id() < to).toList();
+        });
+        doAnswer(invocation -> {
+            written.addAll(invocation.<List<PurchaseConversion>>getArgument(0));
+            return null;
+        }).when(purchaseConversionRepository).upsertAll(anyList());
+    }
+
+    private static PurchaseView purchase(int id, String amount, String transactionDate) {
+        return new PurchaseView(id, "Purchase " + id, new BigDecimal(amount), LocalDate.parse(transactionDate));
+    }
+
+    private static int epochDay(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+}
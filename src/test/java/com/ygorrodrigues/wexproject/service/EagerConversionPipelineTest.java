@@ -0,0 +1,180 @@
+package com.ygorrodrigues.wexproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.ygorrodrigues.wexproject.models.ExchangeRateResponse;
+import com.ygorrodrigues.wexproject.models.PurchaseConversion;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateSeries;
+import com.ygorrodrigues.wexproject.repository.PurchaseConversionRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class EagerConversionPipelineTest {
+
+    private static final String CANADA = "Canada-Dollar";
+    private static final String MEXICO = "Mexico-Peso";
+
+    @Mock
+    private PurchaseConversionRepository purchaseConversionRepository;
+
+    @Mock
+    private ExchangeRateService exchangeRateService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private final List<PurchaseConversion> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void processNextBatch_ShouldLoadRatesOncePerCurrencyAndWindow_AndStoreConversions() throws Exception {
+        EagerConversionPipeline pipeline = pipeline(true, 10, 10);
+        givenRates(CANADA, "2025-03-31", "1.25");
+        givenRates(MEXICO, "2025-03-31", "18.50");
+        captureWrites();
+
+        pipeline.publish(purchase(1, "10.00", "2025-04-10"));
+        pipeline.publish(purchase(2, "20.00", "2025-05-10"));
+        pipeline.publish(purchase(3, "30.00", "2022-01-10")); // more than max-span-days before the others
+
+        assertEquals(3, pipeline.processNextBatch(0));
+
+        verify(exchangeRateService).getExchangeRateSeries(eq(CANADA), eq(LocalDate.parse("2024-10-10")), eq(LocalDate.parse("2025-05-10")),
+            eq(UpstreamPriority.PREFETCH));
+        verify(exchangeRateService, times(2)).getExchangeRateSeries(eq(CANADA), any(), any(), any());
+        verify(exchangeRateService, times(2)).getExchangeRateSeries(eq(MEXICO), any(), any(), any());
+        verify(purchaseConversionRepository, times(1)).upsertAll(anyList());
+        written.sort(Comparator.comparing(PurchaseConversion::getPurchaseId).thenComparing(PurchaseConversion::getCountryCurrency));
+        assertEquals(4, written.size());
+        assertEquals(new BigDecimal("12.50"), written.get(0).getConvertedAmount());
+        assertEquals(new BigDecimal("370.00"), written.get(3).getConvertedAmount());
+        assertEquals(2.0, meterRegistry.get("conversion.eager.conversions").tag("outcome", "skipped").counter().count());
+        assertEquals(3, meterRegistry.get("conversion.eager.lag").timer().count());
+        assertEquals(0, pipeline.pending());
+    }
+
+    @Test
+    void processNextBatch_ShouldTakeAtMostBatchSize() throws Exception {
+        EagerConversionPipeline pipeline = pipeline(true, 2, 10);
+        givenRates(CANADA, "2025-03-31", "1.25");
+        givenRates(MEXICO, "2025-03-31", "18.50");
+
+        for (int id = 1; id <= 5; id++) {
+            pipeline.publish(purchase(id, "10.00", "2025-04-10"));
+        }
+
+        assertEquals(2, pipeline.processNextBatch(0));
+        assertEquals(3, pipeline.pending());
+    }
+
+    @Test
+    void publish_ShouldDropPurchase_WhenQueueIsFull() {
+        EagerConversionPipeline pipeline = pipeline(true, 10, 2);
+
+        for (int id = 1; id <= 3; id++) {
+            pipeline.publish(purchase(id, "10.00", "2025-04-10"));
+        }
+
+        assertEquals(2, pipeline.pending());
+        assertEquals(1.0, meterRegistry.get("conversion.eager.purchases").tag("result", "dropped").counter().count());
+    }
+
+    @Test
+    void processNextBatch_ShouldStoreOtherCurrencies_WhenRatesOfOneCannotBeLoaded() throws Exception {
+        EagerConversionPipeline pipeline = pipeline(true, 10, 10);
+        when(exchangeRateService.getExchangeRateSeries(eq(CANADA), any(), any(), any()))
+            .thenThrow(new IllegalStateException("upstream down"));
+        givenRates(MEXICO, "2025-03-31", "18.50");
+        captureWrites();
+
+        pipeline.publish(purchase(1, "10.00", "2025-04-10"));
+        pipeline.processNextBatch(0);
+
+        assertEquals(1, written.size());
+        assertEquals(MEXICO, written.get(0).getCountryCurrency());
+        assertEquals(1.0, meterRegistry.get("conversion.eager.conversions").tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    void findPrecomputed_ShouldBuildResponseFromStoredConversion() {
+        EagerConversionPipeline pipeline = pipeline(true, 10, 10);
+        PurchaseView purchase = purchase(7, "10.00", "2025-04-10");
+        when(purchaseConversionRepository.find(7, CANADA)).thenReturn(Optional.of(PurchaseConversion.builder()
+            .purchaseId(7)
+            .countryCurrency(CANADA)
+            .exchangeRate(new BigDecimal("1.250000"))
+            .convertedAmount(new BigDecimal("12.50"))
+            .computedAt(Instant.now())
+            .build()));
+
+        ExchangeRateResponse response = pipeline.findPrecomputed(purchase, CANADA).orElseThrow();
+
+        assertEquals(new BigDecimal("12.50"), response.getConvertedAmount());
+        assertEquals(ExchangeRateService.toResponse(CANADA, purchase, new BigDecimal("1.25")).getExchangeRate(), response.getExchangeRate());
+        assertEquals(CANADA, response.getTargetCurrency());
+        assertEquals(7, response.getId());
+        assertTrue(pipeline.findPrecomputed(purchase, "Brazil-Real").isEmpty());
+        verify(purchaseConversionRepository, never()).find(7, "Brazil-Real");
+    }
+
+    @Test
+    void publish_ShouldDoNothing_WhenDisabled() throws Exception {
+        EagerConversionPipeline pipeline = pipeline(false, 10, 10);
+
+        pipeline.publish(purchase(1, "10.00", "2025-04-10"));
+
+        assertEquals(0, pipeline.pending());
+        assertTrue(pipeline.findPrecomputed(purchase(1, "10.00", "2025-04-10"), CANADA).isEmpty());
+    }
+
+    private EagerConversionPipeline pipeline(boolean enabled, int batchSize, int queueCapacity) {
+        return new EagerConversionPipeline(purchaseConversionRepository, exchangeRateService, meterRegistry,
+            enabled, CANADA + ", " + MEXICO, queueCapacity, batchSize, 0, 400);
+    }
+
+    private void givenRates(String currency, String recordDate, String rate) {
+        TreeMap<Integer, BigDecimal> rates = new TreeMap<>();
+        rates.put((int) LocalDate.parse(recordDate).toEpochDay(), new BigDecimal(rate));
+        when(exchangeRateService.getExchangeRateSeries(eq(currency), any(), any(), eq(UpstreamPriority.PREFETCH)))
+            .thenReturn(ExchangeRateSeries.of(rates));
+    }
+
+    private void captureWrites() {
+        doAnswer(invocation -> {
+            written.addAll(invocation.getArgument(0));
+            return null;
+        }).when(purchaseConversionRepository).upsertAll(anyList());
+    }
+
+    private static PurchaseView purchase(int id, String amount, String transactionDate) {
+        return new PurchaseView(id, "Purchase " + id, new BigDecimal(amount), LocalDate.parse(transactionDate));
+    }
+}
@@ -0,0 +1,103 @@
+package com.ygorrodrigues.wexproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.ygorrodrigues.wexproject.models.CurrencyHeat;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ExchangeRatePrefetcherTest {
+
+    @Mock
+    private ExchangeRateService exchangeRateService;
+
+    private ExchangeRateStore exchangeRateStore;
+    private CurrencyHeatTracker heatTracker;
+    private ExchangeRatePrefetcher prefetcher;
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateStore = new ExchangeRateStore();
+        heatTracker = new CurrencyHeatTracker(3_600_000, 3);
+        prefetcher = new ExchangeRatePrefetcher(exchangeRateService, exchangeRateStore, heatTracker,
+            new SimpleMeterRegistry(), 2, 2, 400, 60_000, 0.8);
+    }
+
+    @Test
+    void table_ShouldRankByHeat_AndDropColdestBeyondLimit() {
+        hit("Mexico-Peso", 3);
+        hit("Canada-Dollar", 5);
+        hit("Brazil-Real", 1);
+        hit("Japan-Yen", 2);
+
+        List<CurrencyHeat> table = heatTracker.table();
+
+        assertEquals(List.of("Canada-Dollar", "Mexico-Peso", "Japan-Yen"),
+            table.stream().map(CurrencyHeat::countryCurrency).toList());
+        assertEquals(5.0, table.get(0).heat(), 0.01);
+    }
+
+    @Test
+    void record_ShouldDropTheColdestTenth_WhenLimitIsExceeded() {
+        CurrencyHeatTracker tracker = new CurrencyHeatTracker(3_600_000, 20);
+        for (int i = 0; i < 20; i++) {
+            tracker.record("Currency-" + i);
+            tracker.record("Currency-" + i);
+        }
+
+        tracker.record("Currency-new");
+
+        List<CurrencyHeat> table = tracker.table();
+        assertEquals(18, table.size());
+        assertTrue(table.stream().noneMatch(heat -> heat.countryCurrency().equals("Currency-new")));
+    }
+
+    @Test
+    void prefetch_ShouldFetchHotCurrencies_AndServeThemFromStore() {
+        LocalDate today = LocalDate.now();
+        doAnswer(invocation -> {
+            ExchangeRateConsumer consumer = invocation.getArgument(4);
+            consumer.accept(invocation.getArgument(0), 125, 2, (int) today.minusDays(10).toEpochDay());
+            return 1;
+        }).when(exchangeRateService).fetchCurrencyRates(any(), eq(today.minusDays(400)), eq(today),
+            eq(UpstreamPriority.PREFETCH), any());
+        hit("Canada-Dollar", 5);
+        hit("Mexico-Peso", 3);
+        hit("Japan-Yen", 1); // below the minimum heat
+
+        assertEquals(2, prefetcher.prefetch());
+        assertEquals(0, prefetcher.prefetch()); // fresh windows are not fetched again
+
+        verify(exchangeRateService, never()).fetchCurrencyRates(eq("Japan-Yen"), any(), any(), any(), any());
+        assertNotNull(heatTracker.top(1).get(0).prefetchedAt());
+        assertTrue(exchangeRateStore.isCovered("Canada-Dollar", today.minusMonths(6), today, Instant.now().minusSeconds(60)));
+        assertEquals(new BigDecimal("1.25"),
+            exchangeRateStore.findLatest("Mexico-Peso", today.minusMonths(6), today).orElseThrow());
+    }
+
+    private void hit(String countryCurrency, int times) {
+        for (int i = 0; i < times; i++) {
+            heatTracker.record(countryCurrency);
+        }
+    }
+}
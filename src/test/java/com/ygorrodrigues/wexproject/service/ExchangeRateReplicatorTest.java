@@ -0,0 +1,144 @@
+package com.ygorrodrigues.wexproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.ygorrodrigues.wexproject.models.RateSnapshot;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateStore;
+import com.ygorrodrigues.wexproject.service.ExchangeRateReplicator.PullResult;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ExchangeRateReplicatorTest {
+
+    private static final String NODE_A = "http://node-a:8080";
+    private static final String NODE_B = "http://node-b:8081";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    // Stores of the instances behind each peer url, answered the way RateSnapshotController does
+    private final Map<String, ExchangeRateStore> nodes = new HashMap<>();
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        nodes.put("node-a", new ExchangeRateStore());
+        nodes.put("node-b", new ExchangeRateStore());
+        when(restTemplate.exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(RateSnapshot.class)))
+            .thenAnswer(invocation -> serve(invocation.getArgument(0), invocation.getArgument(2)));
+    }
+
+    @Test
+    void pull_ShouldCopyEverythingFirst_ThenOnlyChanges() {
+        ExchangeRateStore source = nodes.get("node-a");
+        ExchangeRateStore replica = nodes.get("node-b");
+        Instant fetchedAt = Instant.now();
+        source.upsert("Canada-Dollar", epochDay("2025-03-31"), new BigDecimal("1.43"));
+        source.upsert("Mexico-Peso", epochDay("2025-03-31"), new BigDecimal("20.4"));
+        source.markCovered("Canada-Dollar", LocalDate.of(2024, 9, 30), LocalDate.of(2025, 3, 31), fetchedAt);
+        ExchangeRateReplicator replicator = replicator(replica, NODE_A);
+
+        assertEquals(PullResult.FULL, replicator.pull(NODE_A));
+        assertEquals(new BigDecimal("1.43"),
+            replica.findLatest("Canada-Dollar", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 4, 10)).orElseThrow());
+        assertTrue(replica.isCovered("Canada-Dollar", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31),
+            fetchedAt.minusSeconds(1)));
+
+        assertEquals(PullResult.NOT_MODIFIED, replicator.pull(NODE_A));
+
+        source.upsert("Canada-Dollar", epochDay("2025-03-31"), new BigDecimal("1.44"));
+        source.upsert("Canada-Dollar", epochDay("2025-06-30"), new BigDecimal("1.37"));
+
+        assertEquals(PullResult.DELTA, replicator.pull(NODE_A));
+        assertEquals(2, replica.series("Canada-Dollar").size());
+        assertEquals(new BigDecimal("1.44"),
+            replica.findLatest("Canada-Dollar", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 4, 10)).orElseThrow());
+        assertEquals(4.0, meterRegistry.get("exchange_rate.replication.rows").counter().count());
+        assertEquals(source.versionTag(), replicator.peerVersions().get(NODE_A));
+        verify(eventPublisher).publishEvent(new ExchangeRatesRevisedEvent(Set.of("Canada-Dollar")));
+    }
+
+    @Test
+    void pull_ShouldTakeFullSnapshot_WhenPeerRestarted() {
+        nodes.get("node-a").upsert("Canada-Dollar", epochDay("2025-03-31"), new BigDecimal("1.43"));
+        ExchangeRateReplicator replicator = replicator(nodes.get("node-b"), NODE_A);
+        replicator.pull(NODE_A);
+
+        ExchangeRateStore restarted = new ExchangeRateStore();
+        restarted.upsert("Mexico-Peso", epochDay("2025-03-31"), new BigDecimal("20.4"));
+        nodes.put("node-a", restarted);
+
+        assertEquals(PullResult.FULL, replicator.pull(NODE_A));
+        assertEquals(2, nodes.get("node-b").size());
+    }
+
+    @Test
+    void pull_ShouldSettle_WhenTwoInstancesPullFromEachOther() {
+        Instant fetchedAt = Instant.now();
+        nodes.get("node-a").upsert("Canada-Dollar", epochDay("2025-03-31"), new BigDecimal("1.43"));
+        nodes.get("node-a").markCovered("Canada-Dollar", LocalDate.of(2024, 9, 30), LocalDate.of(2025, 3, 31), fetchedAt);
+        nodes.get("node-b").upsert("Mexico-Peso", epochDay("2025-03-31"), new BigDecimal("20.4"));
+        ExchangeRateReplicator onA = replicator(nodes.get("node-a"), NODE_B);
+        ExchangeRateReplicator onB = replicator(nodes.get("node-b"), NODE_A);
+
+        onB.pull(NODE_A);
+        onA.pull(NODE_B);
+        onB.pull(NODE_A);
+
+        assertEquals(PullResult.NOT_MODIFIED, onA.pull(NODE_B));
+        assertEquals(PullResult.NOT_MODIFIED, onB.pull(NODE_A));
+        assertEquals(2, nodes.get("node-a").size());
+        assertEquals(2, nodes.get("node-b").size());
+        verify(restTemplate, times(5)).exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(RateSnapshot.class));
+    }
+
+    private ExchangeRateReplicator replicator(ExchangeRateStore store, String peer) {
+        return new ExchangeRateReplicator(store, eventPublisher, meterRegistry, peer, restTemplate);
+    }
+
+    private ResponseEntity<RateSnapshot> serve(URI uri, HttpEntity<?> request) {
+        ExchangeRateStore store = nodes.get(uri.getHost());
+        String etag = "\"" + store.versionTag() + "\"";
+        if (request.getHeaders().getIfNoneMatch().contains(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        String since = UriComponentsBuilder.fromUri(uri).build().getQueryParams().getFirst("since");
+        return ResponseEntity.ok(store.snapshot(since));
+    }
+
+    private static int epochDay(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+}
@@ -1,17 +1,29 @@
 package com.ygorrodrigues.wexproject.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,16 +31,25 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import com.ygorrodrigues.wexproject.exception.CurrencyNotFoundException;
+import com.ygorrodrigues.wexproject.models.ConversionResult;
 import com.ygorrodrigues.wexproject.models.ExchangeRateApiResponse;
 import com.ygorrodrigues.wexproject.models.ExchangeRateData;
 import com.ygorrodrigues.wexproject.models.ExchangeRateResponse;
 import com.ygorrodrigues.wexproject.models.Purchase;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateSeries;
+import com.ygorrodrigues.wexproject.repository.ExchangeRateStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 class ExchangeRateServiceTest {
@@ -37,18 +58,29 @@ class ExchangeRateServiceTest {
     private RestTemplate restTemplate;
 
     private ExchangeRateService exchangeRateService;
+    private final ExchangeRateStore exchangeRateStore = new ExchangeRateStore();
+    private final CurrencyHeatTracker heatTracker = new CurrencyHeatTracker(3_600_000, 1000);
 
     @BeforeEach
     void setUp() {
         // Create ExchangeRateService with mocked RestTemplate
         exchangeRateService = new ExchangeRateService();
-        // Use reflection to inject the mocked RestTemplate
+        // Use reflection to inject the mocked RestTemplate, an unlimited scheduler and hedging turned off
+        inject("restTemplate", restTemplate);
+        inject("upstreamRequestScheduler", new UpstreamRequestScheduler(new SimpleMeterRegistry(), 0, 1, 2000, 10000, 60000));
+        inject("hedgedRequestExecutor", new HedgedRequestExecutor(new SimpleMeterRegistry(), false, 0.95, 50, 1000, 10, 32));
+        inject("exchangeRateStore", exchangeRateStore);
+        inject("heatTracker", heatTracker);
+        inject("prefetchTtlMs", 60_000L);
+    }
+
+    private void inject(String fieldName, Object value) {
         try {
-            java.lang.reflect.Field restTemplateField = ExchangeRateService.class.getDeclaredField("restTemplate");
-            restTemplateField.setAccessible(true);
-            restTemplateField.set(exchangeRateService, restTemplate);
+            java.lang.reflect.Field field = ExchangeRateService.class.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(exchangeRateService, value);
         } catch (Exception e) {
-            throw new RuntimeException("Failed to inject mocked RestTemplate", e);
+            throw new RuntimeException("Failed to inject " + fieldName, e);
         }
     }
 
@@ -71,6 +103,31 @@ class ExchangeRateServiceTest {
         assertEquals(new BigDecimal("1.25"), result.getExchangeRate());
     }
 
+    @Test
+    void getExchangeRate_ShouldUseStore_WhenPrefetchedWindowCoversLookup() {
+        LocalDate txDate = LocalDate.of(2025, 9, 15);
+        exchangeRateStore.upsert("Canada-Dollar", (int) LocalDate.of(2025, 6, 30).toEpochDay(), new BigDecimal("1.37"));
+        exchangeRateStore.markCovered("Canada-Dollar", LocalDate.of(2024, 9, 1), txDate, Instant.now());
+
+        assertEquals(new BigDecimal("1.37"), exchangeRateService.getExchangeRate("Canada-Dollar", txDate));
+        assertThrows(CurrencyNotFoundException.class,
+            () -> exchangeRateService.getExchangeRate("Canada-Dollar", LocalDate.of(2025, 3, 15)));
+        verifyNoInteractions(restTemplate);
+        assertEquals(2.0, heatTracker.top(1).get(0).heat(), 0.01);
+    }
+
+    @Test
+    void getExchangeRateSeries_ShouldNotRecordCoverage_WhenCurrencyHasNoRates() {
+        LocalDate from = LocalDate.of(2024, 9, 15);
+        LocalDate to = LocalDate.of(2025, 9, 15);
+
+        ExchangeRateSeries series = exchangeRateService.getExchangeRateSeries("Atlantis-Coin", from, to, UpstreamPriority.INTERACTIVE);
+
+        assertTrue(series.isEmpty());
+        assertFalse(exchangeRateStore.isCovered("Atlantis-Coin", from, to, Instant.EPOCH));
+        assertTrue(heatTracker.table().isEmpty());
+    }
+
     @Test
     void calculateExchangeRate_ShouldRoundCorrectly_WhenConversionHasManyDecimals() {
         ExchangeRateApiResponse apiResponse = getUnitedKingdomPoundExchangeRate();
@@ -130,6 +187,37 @@ class ExchangeRateServiceTest {
         assertTrue(exception.getMessage().contains("Purchase cannot be converted to the target currency: Canada-Dollar"));
     }
 
+    @Test
+    void tryConvert_ShouldReturnFailure_WhenCurrencyHasNoRate() {
+        ResponseEntity<ExchangeRateApiResponse> responseEntity =
+            new ResponseEntity<>(new ExchangeRateApiResponse(Collections.emptyList()), HttpStatus.OK);
+        when(restTemplate.getForEntity(anyString(), eq(ExchangeRateApiResponse.class)))
+            .thenReturn(responseEntity);
+
+        ConversionResult result = exchangeRateService.tryConvert("Invalid-Currency", PurchaseView.from(getTestPurchase()));
+
+        ConversionResult.Failed failed = assertInstanceOf(ConversionResult.Failed.class, result);
+        assertEquals(ConversionResult.Failure.NO_RATE, failed.failure());
+        assertEquals("Purchase cannot be converted to the target currency: Invalid-Currency", failed.detail());
+        assertTrue(heatTracker.table().isEmpty()); // unknown currencies don't heat up
+    }
+
+    @Test
+    void tryConvert_ShouldReturnFailure_WhenApiCallFails() {
+        when(restTemplate.getForEntity(anyString(), eq(ExchangeRateApiResponse.class)))
+            .thenThrow(new RestClientException("API Error"));
+
+        ConversionResult result = exchangeRateService.tryConvert("Canada-Dollar", PurchaseView.from(getTestPurchase()));
+
+        assertEquals(ConversionResult.Failure.UPSTREAM_FAILED,
+            assertInstanceOf(ConversionResult.Failed.class, result).failure());
+    }
+
+    @Test
+    void currencyNotFoundException_ShouldNotCaptureStackTrace() {
+        assertEquals(0, new CurrencyNotFoundException("Exchange rate data not found").getStackTrace().length);
+    }
+
     @Test
     void getExchangeRate_ShouldThrowCurrencyNotFoundException_WhenNoDataFound() {
         ExchangeRateApiResponse emptyResponse = new ExchangeRateApiResponse(Collections.emptyList());
@@ -182,6 +270,43 @@ class ExchangeRateServiceTest {
         });
     }
 
+    @Test
+    void loadBatch_ShouldPageMultiCurrencyQuery_SortedByDateAndCurrency() throws Exception {
+        LocalDate from = LocalDate.of(2020, 1, 1);
+        List<String> urls = new ArrayList<>();
+        when(restTemplate.execute(anyString(), eq(HttpMethod.GET), isNull(), any(ResponseExtractor.class))).thenAnswer(invocation -> {
+            String url = invocation.getArgument(0);
+            urls.add(url);
+            // Two currencies per record date: 1000 rows on the first page, the last date on the second
+            int first = url.endsWith("page[number]=1") ? 0 : 1000;
+            int last = url.endsWith("page[number]=1") ? 1000 : 1002;
+            StringBuilder json = new StringBuilder("{\"data\": [");
+            for (int row = first; row < last; row++) {
+                json.append(row == first ? "" : ",")
+                    .append("{\"country_currency_desc\": \"").append(row % 2 == 0 ? "Canada-Dollar" : "Mexico-Peso")
+                    .append("\", \"exchange_rate\": \"1.25\", \"record_date\": \"").append(from.plusDays(row / 2)).append("\"}");
+            }
+            json.append("]}");
+            ClientHttpResponse response = mock(ClientHttpResponse.class);
+            when(response.getBody()).thenReturn(new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8)));
+            return invocation.<ResponseExtractor<?>>getArgument(3).extractData(response);
+        });
+
+        Map<String, ExchangeRateSeries> loaded = exchangeRateService.loadBatch(
+            Set.of("Canada-Dollar", "Mexico-Peso"), from, from.plusDays(600));
+
+        assertEquals(2, urls.size());
+        assertTrue(urls.stream().allMatch(url -> url.contains("&sort=record_date,country_currency_desc&")));
+        assertEquals(501, loaded.get("Canada-Dollar").size());
+        assertEquals(501, loaded.get("Mexico-Peso").size());
+    }
+
+    @Test
+    void responseRate_ShouldDropTrailingZeros_AndKeepWholeRatesPlain() {
+        assertEquals(new BigDecimal("1.43"), ExchangeRateService.responseRate(new BigDecimal("1.430000")));
+        assertEquals(new BigDecimal("10"), ExchangeRateService.responseRate(new BigDecimal("10.0")));
+    }
+
     @Test
     void getExchangeRate_ShouldIncludeGteAndLteDateFiltersInUrl() {
         LocalDate txDate = LocalDate.of(2025, 9, 15);
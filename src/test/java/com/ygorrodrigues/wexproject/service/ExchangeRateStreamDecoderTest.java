@@ -0,0 +1,114 @@
+package com.ygorrodrigues.wexproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ExchangeRateStreamDecoderTest {
+
+    private final ExchangeRateStreamDecoder decoder = new ExchangeRateStreamDecoder();
+
+    @Test
+    void decode_ShouldEmitRows_AndSkipMetaAndLinks() throws IOException {
+        String json = """
+            {
+              "data": [
+                {"country_currency_desc": "Canada-Dollar", "exchange_rate": "1.25", "record_date": "2025-09-15"},
+                {"record_date": "2025-06-30", "exchange_rate": "0.73666", "country_currency_desc": "United Kingdom-Pound", "extra": {"a": [1, 2]}}
+              ],
+              "meta": {"count": 2, "labels": {"exchange_rate": "Exchange Rate"}, "total-pages": 1},
+              "links": {"self": "&page%5Bnumber%5D=1", "next": null}
+            }
+            """;
+
+        List<String> rows = decode(json);
+
+        assertEquals(List.of(
+            "Canada-Dollar|1.25|2025-09-15",
+            "United Kingdom-Pound|0.73666|2025-06-30"), rows);
+    }
+
+    @Test
+    void decode_ShouldHandleMetaBeforeData() throws IOException {
+        String json = """
+            {"meta": {"count": 1}, "data": [{"country_currency_desc": "Mexico-Peso", "exchange_rate": "16.932", "record_date": "2024-12-31"}]}
+            """;
+
+        assertEquals(List.of("Mexico-Peso|16.932|2024-12-31"), decode(json));
+    }
+
+    @Test
+    void decode_ShouldSkipRows_WhenFieldsAreMissingOrNull() throws IOException {
+        String json = """
+            {"data": [
+              {"country_currency_desc": "Canada-Dollar", "record_date": "2025-09-15"},
+              {"country_currency_desc": "Canada-Dollar", "exchange_rate": null, "record_date": "2025-09-15"},
+              {"country_currency_desc": "Canada-Dollar", "exchange_rate": "1.3", "record_date": "2025-03-31"}
+            ]}
+            """;
+
+        assertEquals(List.of("Canada-Dollar|1.3|2025-03-31"), decode(json));
+    }
+
+    @Test
+    void decode_ShouldCountSkippedRows_SoFullPagesAreRecognised() throws IOException {
+        String json = """
+            {"data": [
+              {"country_currency_desc": null, "exchange_rate": "1.25", "record_date": "2025-09-15"},
+              {"country_currency_desc": "Canada-Dollar", "exchange_rate": "1.3", "record_date": "2025-03-31"}
+            ], "meta": {"count": 2}}
+            """;
+
+        int elements = decoder.decode(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+            (currency, unscaledRate, scale, epochDay) -> { });
+
+        assertEquals(2, elements);
+    }
+
+    @Test
+    void decode_ShouldThrow_WhenRateIsMalformed() {
+        String json = """
+            {"data": [{"country_currency_desc": "Canada-Dollar", "exchange_rate": "invalid", "record_date": "2025-09-15"}]}
+            """;
+
+        assertThrows(IOException.class, () -> decode(json));
+    }
+
+    @Test
+    void decode_ShouldThrow_WhenDateIsMalformed() {
+        String json = """
+            {"data": [{"country_currency_desc": "Canada-Dollar", "exchange_rate": "1.25", "record_date": "2025-02-30"}]}
+            """;
+
+        assertThrows(IOException.class, () -> decode(json));
+    }
+
+    @Test
+    void toEpochDay_ShouldMatchLocalDate() {
+        LocalDate date = LocalDate.of(1899, 1, 1);
+        LocalDate end = LocalDate.of(2101, 1, 1);
+        while (date.isBefore(end)) {
+            assertEquals(date.toEpochDay(),
+                ExchangeRateStreamDecoder.toEpochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+            date = date.plusDays(1);
+        }
+    }
+
+    private List<String> decode(String json) throws IOException {
+        List<String> rows = new ArrayList<>();
+        decoder.decode(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+            (currency, unscaledRate, scale, epochDay) -> rows.add(currency + "|"
+                + BigDecimal.valueOf(unscaledRate, scale).toPlainString() + "|"
+                + LocalDate.ofEpochDay(epochDay)));
+        return rows;
+    }
+}
@@ -0,0 +1,137 @@
+package com.ygorrodrigues.wexproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.ygorrodrigues.wexproject.repository.ExchangeRateStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ExchangeRateSyncServiceTest {
+
+    @Mock
+    private ExchangeRateService exchangeRateService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ExchangeRateStore exchangeRateStore;
+    private SimpleMeterRegistry meterRegistry;
+    private ExchangeRateSyncService syncService;
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateStore = new ExchangeRateStore();
+        meterRegistry = new SimpleMeterRegistry();
+        syncService = new ExchangeRateSyncService(exchangeRateService, exchangeRateStore, eventPublisher, meterRegistry, 2, 31, "2001-01-01");
+    }
+
+    @Test
+    void sync_ShouldPageUntilShortPage_AndAdvanceWatermark() {
+        givenPages(List.of(
+            List.of(row("Canada-Dollar", "1.25", "2025-03-31"), row("Mexico-Peso", "20.5", "2025-03-31")),
+            List.of(row("Canada-Dollar", "1.3", "2025-06-30"))));
+
+        int rows = syncService.sync();
+
+        assertEquals(3, rows);
+        assertEquals(LocalDate.of(2025, 6, 30), syncService.getWatermark());
+        assertNotNull(syncService.getLastSyncTime());
+        assertEquals(3, exchangeRateStore.size());
+        assertEquals(new BigDecimal("1.3"),
+            exchangeRateStore.findLatest("Canada-Dollar", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 9, 15)).orElseThrow());
+        assertEquals(3.0, meterRegistry.get("exchange_rate.sync.rows").tag("outcome", "inserted").counter().count());
+        assertTrue(exchangeRateStore.isCovered("Mexico-Peso", LocalDate.of(2001, 1, 1), LocalDate.now(), Instant.EPOCH));
+        verify(exchangeRateService).fetchRatesPage(eq(LocalDate.of(2001, 1, 1)), eq(2), eq(1), any());
+        verify(exchangeRateService).fetchRatesPage(eq(LocalDate.of(2001, 1, 1)), eq(2), eq(2), any());
+    }
+
+    @Test
+    void sync_ShouldRequestOnlyRowsAfterWatermark_AndCountRevisions() {
+        givenPages(List.of(List.of(row("Canada-Dollar", "1.25", "2025-06-30"))));
+        syncService.sync();
+
+        givenPages(List.of(List.of(row("Canada-Dollar", "1.26", "2025-06-30"), row("Canada-Dollar", "1.4", "2025-09-30"))));
+        syncService.sync();
+
+        verify(exchangeRateService).fetchRatesPage(eq(LocalDate.of(2025, 5, 30)), eq(2), eq(1), any());
+        verify(eventPublisher).publishEvent(new ExchangeRatesRevisedEvent(Set.of("Canada-Dollar")));
+        assertEquals(LocalDate.of(2025, 9, 30), syncService.getWatermark());
+        assertEquals(1.0, meterRegistry.get("exchange_rate.sync.rows").tag("outcome", "revised").counter().count());
+        assertEquals(new BigDecimal("1.26"),
+            exchangeRateStore.findLatest("Canada-Dollar", LocalDate.of(2025, 6, 1), LocalDate.of(2025, 7, 1)).orElseThrow());
+    }
+
+    @Test
+    void sync_ShouldKeepPaging_WhenFullPageHasIncompleteRow() {
+        givenPages(List.of(
+            List.of(row("Canada-Dollar", null, "2025-03-31"), row("Mexico-Peso", "20.5", "2025-03-31")),
+            List.of(row("Canada-Dollar", "1.3", "2025-06-30"))));
+
+        syncService.sync();
+
+        verify(exchangeRateService).fetchRatesPage(eq(LocalDate.of(2001, 1, 1)), eq(2), eq(2), any());
+        assertEquals(LocalDate.of(2025, 6, 30), syncService.getWatermark());
+        assertEquals(2, exchangeRateStore.size());
+        assertEquals(new BigDecimal("1.3"),
+            exchangeRateStore.findLatest("Canada-Dollar", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 9, 15)).orElseThrow());
+    }
+
+    @Test
+    void scheduledSync_ShouldKeepWatermark_WhenUpstreamFails() {
+        doAnswer(invocation -> {
+            throw new IllegalStateException("Treasury API unavailable");
+        }).when(exchangeRateService).fetchRatesPage(any(), anyInt(), anyInt(), any());
+
+        syncService.scheduledSync();
+
+        assertNull(syncService.getWatermark());
+        assertNull(syncService.getLastSyncTime());
+        assertEquals(1.0, meterRegistry.get("exchange_rate.sync.failures").counter().count());
+    }
+
+    private void givenPages(List<List<String[]>> pages) {
+        doAnswer(invocation -> {
+            int pageNumber = invocation.getArgument(2);
+            ExchangeRateConsumer consumer = invocation.getArgument(3);
+            if (pageNumber > pages.size()) {
+                return 0;
+            }
+            List<String[]> page = pages.get(pageNumber - 1);
+            for (String[] row : page) {
+                if (row[1] == null) {
+                    continue; // skipped by the decoder, but still part of the page
+                }
+                BigDecimal rate = new BigDecimal(row[1]);
+                consumer.accept(row[0], rate.unscaledValue().longValue(), rate.scale(),
+                    (int) LocalDate.parse(row[2]).toEpochDay());
+            }
+            return page.size();
+        }).when(exchangeRateService).fetchRatesPage(any(), anyInt(), anyInt(), any());
+    }
+
+    private static String[] row(String currency, String rate, String recordDate) {
+        return new String[] {currency, rate, recordDate};
+    }
+}
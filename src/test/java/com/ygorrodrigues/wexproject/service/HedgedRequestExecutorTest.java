@@ -0,0 +1,115 @@
+package com.ygorrodrigues.wexproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class HedgedRequestExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HedgedRequestExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void execute_ShouldCallOnce_WhenDisabled() {
+        executor = new HedgedRequestExecutor(meterRegistry, false, 0.95, 10, 10, 100, 32);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("rate", executor.execute(() -> {
+            calls.incrementAndGet();
+            return "rate";
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_ShouldNotHedge_WhenFirstAttemptIsFast() {
+        executor = new HedgedRequestExecutor(meterRegistry, true, 0.95, 200, 200, 100, 32);
+
+        assertEquals("rate", executor.execute(() -> "rate"));
+        assertEquals(0.0, hedges("issued"));
+    }
+
+    @Test
+    void execute_ShouldReturnHedge_WhenFirstAttemptIsSlow() {
+        executor = new HedgedRequestExecutor(meterRegistry, true, 0.95, 20, 20, 100, 32);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = executor.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(2000);
+                return "slow";
+            }
+            return "hedge";
+        });
+
+        assertEquals("hedge", result);
+        assertEquals(1.0, hedges("issued"));
+        assertEquals(1.0, hedges("won"));
+    }
+
+    @Test
+    void execute_ShouldWaitForPrimary_WhenBudgetIsSpent() {
+        executor = new HedgedRequestExecutor(meterRegistry, true, 0.95, 10, 10, 0, 32);
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> {
+                sleep(30);
+                return "slow";
+            });
+        }
+
+        assertEquals("slow", executor.execute(() -> {
+            sleep(30);
+            return "slow";
+        }));
+        assertEquals(10.0, hedges("issued"));
+        assertEquals(1.0, hedges("over_budget"));
+    }
+
+    @Test
+    void execute_ShouldSkipHedge_WhenEveryThreadIsBusy() {
+        executor = new HedgedRequestExecutor(meterRegistry, true, 0.95, 10, 10, 100, 1);
+
+        assertEquals("slow", executor.execute(() -> {
+            sleep(100);
+            return "slow";
+        }));
+        assertEquals(0.0, hedges("issued"));
+        assertEquals(1.0, hedges("pool_full"));
+    }
+
+    @Test
+    void execute_ShouldPropagateFailure_WhenAllAttemptsFail() {
+        executor = new HedgedRequestExecutor(meterRegistry, true, 0.95, 10, 10, 100, 32);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> executor.execute(() -> {
+            sleep(30);
+            throw new IllegalArgumentException("upstream failed");
+        }));
+        assertEquals("upstream failed", exception.getMessage());
+    }
+
+    private double hedges(String result) {
+        return meterRegistry.get("upstream.hedges").tag("result", result).counter().count();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
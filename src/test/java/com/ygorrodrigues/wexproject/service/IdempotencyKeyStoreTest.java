@@ -0,0 +1,127 @@
+package com.ygorrodrigues.wexproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ygorrodrigues.wexproject.exception.IdempotencyKeyReusedException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IdempotencyKeyStoreTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger runs = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyKeyStore store;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        store = new IdempotencyKeyStore(meterRegistry, 1_000, 2, nanos::get);
+    }
+
+    @Test
+    void execute_ShouldReplayStoredResult_WhenKeyIsRetried() {
+        IdempotencyKeyStore.Outcome<String> first = store.execute("key-1", "request", this::insert);
+        IdempotencyKeyStore.Outcome<String> retry = store.execute("key-1", "request", this::insert);
+
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertSame(first.result(), retry.result());
+        assertEquals(1, runs.get());
+        assertEquals(1.0, meterRegistry.get("idempotency.requests").tag("result", "replayed").counter().count());
+    }
+
+    @Test
+    void execute_ShouldRunOnce_WhenRequestsWithSameKeyAreConcurrent() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<IdempotencyKeyStore.Outcome<String>> owner = executor.submit(() -> store.execute("key-1", "request", () -> {
+                started.countDown();
+                await(release);
+                return insert();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            List<Future<IdempotencyKeyStore.Outcome<String>>> waiters = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                waiters.add(executor.submit(() -> store.execute("key-1", "request", this::insert)));
+            }
+            while (meterRegistry.get("idempotency.requests").tag("result", "coalesced").counter().count() < 3) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            String result = owner.get(5, TimeUnit.SECONDS).result();
+            for (Future<IdempotencyKeyStore.Outcome<String>> waiter : waiters) {
+                assertSame(result, waiter.get(5, TimeUnit.SECONDS).result());
+            }
+            assertEquals(1, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_ShouldReject_WhenKeyIsReusedForDifferentRequest() {
+        store.execute("key-1", "request", this::insert);
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> store.execute("key-1", "other request", this::insert));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_ShouldForgetKey_WhenActionFails() {
+        assertThrows(IllegalStateException.class, () -> store.execute("key-1", "request", () -> {
+            throw new IllegalStateException("insert failed");
+        }));
+
+        IdempotencyKeyStore.Outcome<String> retry = store.execute("key-1", "request", this::insert);
+
+        assertFalse(retry.replayed());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_ShouldRunAgain_WhenKeyExpiredOrWasEvicted() {
+        store.execute("key-1", "request", this::insert);
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_000));
+        assertFalse(store.execute("key-1", "request", this::insert).replayed());
+
+        store.execute("key-2", "request", this::insert);
+        store.execute("key-3", "request", this::insert); // over max keys, drops key-1
+
+        assertFalse(store.execute("key-1", "request", this::insert).replayed());
+        assertEquals(2, store.size());
+        assertEquals(5, runs.get());
+    }
+
+    private String insert() {
+        return "purchase-" + runs.incrementAndGet();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.ygorrodrigues.wexproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.repository.PurchaseArchive;
+import com.ygorrodrigues.wexproject.repository.PurchaseReadRepository;
+import com.ygorrodrigues.wexproject.repository.PurchaseRepository;
+import com.ygorrodrigues.wexproject.repository.PurchaseShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PurchaseArchiverTest {
+
+    private static final LocalDate OLD = LocalDate.now().minusYears(3);
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+    private PurchaseArchive archive;
+    private PurchaseShards shards;
+    private PurchaseReadRepository purchaseReadRepository;
+    private PurchaseRepository purchaseRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:archiver-test-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE purchases (" +
+            "id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+            "description VARCHAR(255) NOT NULL, " +
+            "amount NUMERIC(19, 2) NOT NULL, " +
+            "transaction_date DATE NOT NULL)");
+        archive = openArchive();
+        shards = new PurchaseShards(false, "hash", "", 1, "sa", "", false, false);
+        purchaseReadRepository = new PurchaseReadRepository(jdbcTemplate, archive, shards);
+
+        // The JPA batch delete, run against the same table
+        purchaseRepository = mock(PurchaseRepository.class);
+        doAnswer(invocation -> {
+            List<Integer> ids = invocation.getArgument(0);
+            jdbcTemplate.update("DELETE FROM purchases WHERE id = ANY(?)", (Object) ids.toArray(new Integer[0]));
+            return null;
+        }).when(purchaseRepository).deleteAllByIdInBatch(anyList());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        archive.close();
+        shards.close();
+    }
+
+    @Test
+    void archive_ShouldMoveOldPurchasesIntoSegments_AndDeleteThemFromTable() {
+        for (int id = 1; id <= 5; id++) {
+            store(purchase(id, OLD.plusDays(id)));
+        }
+        store(purchase(6, LocalDate.now()));
+        store(purchase(7, LocalDate.now()));
+
+        int archived = archiver(2).archive();
+
+        assertEquals(5, archived);
+        assertEquals(List.of(6, 7), tableIds());
+        assertEquals(5, archive.rows());
+        assertEquals(3, archive.segmentCount());
+        assertEquals(purchase(1, OLD.plusDays(1)), purchaseReadRepository.findById(1).orElseThrow());
+        assertEquals(IntStream.rangeClosed(1, 7).boxed().toList(),
+            purchaseReadRepository.findByIdRange(0, 100).stream().map(PurchaseView::id).toList());
+        assertEquals(0, archiver(2).archive());
+    }
+
+    @Test
+    void archive_ShouldDeleteNewestSegmentRowsLeftInTable_OnFirstPassAfterRestart() throws Exception {
+        // A crash after the segment was written and before its rows were deleted
+        List<PurchaseView> moved = List.of(purchase(1, OLD), purchase(2, OLD));
+        moved.forEach(this::store);
+        store(purchase(3, LocalDate.now()));
+        archive.append(moved);
+        archive.close();
+        archive = openArchive();
+        purchaseReadRepository = new PurchaseReadRepository(jdbcTemplate, archive, shards);
+        assertEquals(3, purchaseReadRepository.summarize(OLD, LocalDate.now()).count());
+
+        int archived = archiver(100).archive();
+
+        assertEquals(0, archived);
+        assertEquals(List.of(3), tableIds());
+        assertEquals(2, archive.rows());
+        assertEquals(1, archive.segmentCount());
+        assertEquals(3, purchaseReadRepository.summarize(OLD, LocalDate.now()).count());
+    }
+
+    private PurchaseArchiver archiver(int segmentRows) {
+        return new PurchaseArchiver(purchaseReadRepository, purchaseRepository, archive, new SimpleMeterRegistry(), 365, segmentRows);
+    }
+
+    private PurchaseArchive openArchive() throws Exception {
+        PurchaseArchive opened = new PurchaseArchive(true, directory.toString());
+        opened.open();
+        return opened;
+    }
+
+    private void store(PurchaseView purchase) {
+        jdbcTemplate.update("INSERT INTO purchases (id, description, amount, transaction_date) VALUES (?, ?, ?, ?)",
+            purchase.id(), purchase.description(), purchase.amount(), purchase.transactionDate());
+    }
+
+    private List<Integer> tableIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM purchases ORDER BY id", Integer.class);
+    }
+
+    private static PurchaseView purchase(int id, LocalDate transactionDate) {
+        return new PurchaseView(id, "Purchase " + id, BigDecimal.valueOf(id * 100L, 2), transactionDate);
+    }
+}
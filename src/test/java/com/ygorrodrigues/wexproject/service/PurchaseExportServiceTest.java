@@ -0,0 +1,79 @@
+package com.ygorrodrigues.wexproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.repository.PurchaseReadRepository;
+
+@ExtendWith(MockitoExtension.class)
+class PurchaseExportServiceTest {
+
+    @Mock
+    private PurchaseReadRepository purchaseReadRepository;
+
+    @InjectMocks
+    private PurchaseExportService purchaseExportService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(purchaseExportService, "fetchSize", 2);
+        List<PurchaseView> purchases = List.of(
+            new PurchaseView(1, "Coffee", new BigDecimal("12.34"), LocalDate.of(2025, 9, 15)),
+            new PurchaseView(2, "Books, \"used\"", new BigDecimal("40.00"), LocalDate.of(2025, 9, 16)),
+            new PurchaseView(3, "Laptop", new BigDecimal("1000.00"), LocalDate.of(2025, 9, 17)));
+        doAnswer(invocation -> {
+            Consumer<PurchaseView> consumer = invocation.getArgument(4);
+            purchases.forEach(consumer);
+            return null;
+        }).when(purchaseReadRepository).forEachPurchase(anyInt(), any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void export_ShouldWriteCsv_WithQuotedFields() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = purchaseExportService.export(ExportFormat.CSV, null, null, null, out);
+
+        assertEquals(3, rows);
+        assertEquals("""
+            id,description,amount,transaction_date
+            1,Coffee,12.34,2025-09-15
+            2,"Books, ""used\""",40.00,2025-09-16
+            3,Laptop,1000.00,2025-09-17
+            """, out.toString(StandardCharsets.UTF_8));
+        verify(purchaseReadRepository).forEachPurchase(eq(0), eq(LocalDate.of(1, 1, 1)), eq(LocalDate.of(9999, 12, 31)), eq(2), any());
+    }
+
+    @Test
+    void export_ShouldWriteOneJsonObjectPerLine_AndPassFilters() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        purchaseExportService.export(ExportFormat.NDJSON, 41, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("{\"id\":1,\"description\":\"Coffee\",\"amount\":12.34,\"transactionDate\":\"2025-09-15\"}", lines[0]);
+        assertEquals("{\"id\":2,\"description\":\"Books, \\\"used\\\"\",\"amount\":40.00,\"transactionDate\":\"2025-09-16\"}", lines[1]);
+        verify(purchaseReadRepository).forEachPurchase(eq(41), eq(LocalDate.of(2025, 1, 1)), eq(LocalDate.of(2025, 12, 31)), eq(2), any());
+    }
+}
@@ -3,7 +3,11 @@ package com.ygorrodrigues.wexproject.service;
 import com.ygorrodrigues.wexproject.exception.SavePurchaseException;
 import com.ygorrodrigues.wexproject.models.Purchase;
 import com.ygorrodrigues.wexproject.models.PurchaseRequest;
+import com.ygorrodrigues.wexproject.models.PurchaseView;
+import com.ygorrodrigues.wexproject.repository.PurchaseArchive;
+import com.ygorrodrigues.wexproject.repository.PurchaseReadRepository;
 import com.ygorrodrigues.wexproject.repository.PurchaseRepository;
+import com.ygorrodrigues.wexproject.repository.PurchaseShards;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -24,6 +28,18 @@ class PurchaseServiceTest {
     @Mock
     private PurchaseRepository purchaseRepository;
 
+    @Mock
+    private PurchaseReadRepository purchaseReadRepository;
+
+    @Mock
+    private PurchaseArchive purchaseArchive;
+
+    @Mock
+    private EagerConversionPipeline eagerConversionPipeline;
+
+    @Mock
+    private PurchaseShards purchaseShards;
+
     @InjectMocks
     private PurchaseService purchaseService;
 
@@ -39,6 +55,7 @@ class PurchaseServiceTest {
         assertEquals(LocalDate.of(2025, 9, 15), result.getTransactionDate());
         
         verify(purchaseRepository, times(1)).save(any(Purchase.class));
+        verify(eagerConversionPipeline).publish(PurchaseView.from(result));
     }
 
     @Test
@@ -51,6 +68,7 @@ class PurchaseServiceTest {
         });
         
         verify(purchaseRepository, times(1)).save(any(Purchase.class));
+        verify(eagerConversionPipeline, never()).publish(any());
     }
 
     @Test
@@ -80,6 +98,36 @@ class PurchaseServiceTest {
         verify(purchaseRepository, times(1)).findById(testId);
     }
 
+    @Test
+    void findById_ShouldReadArchive_WhenPurchaseWasArchived() {
+        int testId = 1;
+        when(purchaseRepository.findById(testId)).thenReturn(Optional.empty());
+        when(purchaseArchive.findById(testId)).thenReturn(Optional.of(PurchaseView.from(getTestPurchase())));
+
+        Purchase result = purchaseService.findById(testId);
+
+        assertNotNull(result);
+        assertEquals(testId, result.getId());
+        assertEquals(new BigDecimal("100"), result.getAmount());
+        assertEquals(LocalDate.of(2025, 9, 15), result.getTransactionDate());
+    }
+
+    @Test
+    void processPurchase_ShouldInsertIntoShard_WhenShardingIsEnabled() {
+        PurchaseView stored = new PurchaseView(7, "Test Purchase", new BigDecimal("100.00"), LocalDate.of(2025, 9, 15));
+        when(purchaseShards.isEnabled()).thenReturn(true);
+        when(purchaseShards.insert("Test Purchase", new BigDecimal("100.00"), LocalDate.of(2025, 9, 15))).thenReturn(stored);
+        when(purchaseShards.findById(7)).thenReturn(Optional.of(stored));
+
+        Purchase created = purchaseService.processPurchase(getTestPurchaseRequest());
+        Purchase found = purchaseService.findById(7);
+
+        assertEquals(7, created.getId());
+        assertEquals(7, found.getId());
+        verify(purchaseRepository, never()).save(any(Purchase.class));
+        verify(purchaseRepository, never()).findById(any());
+        verify(eagerConversionPipeline).publish(stored);
+    }
 
     @Test
     void findById_ShouldHandleRepositoryException_WhenFindByIdFails() {
@@ -93,6 +141,24 @@ class PurchaseServiceTest {
         verify(purchaseRepository, times(1)).findById(testId);
     }
 
+    @Test
+    void findViewById_ShouldReturnView_WithoutUsingJpaRepository() {
+        PurchaseView view = PurchaseView.from(getTestPurchase());
+        when(purchaseReadRepository.findById(1)).thenReturn(Optional.of(view));
+
+        PurchaseView result = purchaseService.findViewById(1);
+
+        assertEquals(view, result);
+        verifyNoInteractions(purchaseRepository);
+    }
+
+    @Test
+    void findViewById_ShouldReturnNull_WhenPurchaseDoesNotExist() {
+        when(purchaseReadRepository.findById(1)).thenReturn(Optional.empty());
+
+        assertNull(purchaseService.findViewById(1));
+    }
+
     private PurchaseRequest getTestPurchaseRequest() {
         return PurchaseRequest.builder()
             .description("Test Purchase")
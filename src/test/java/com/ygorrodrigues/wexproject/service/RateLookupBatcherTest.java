@@ -0,0 +1,166 @@
+package com.ygorrodrigues.wexproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ygorrodrigues.wexproject.repository.ExchangeRateSeries;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLookupBatcherTest {
+
+    private final List<Load> loads = new CopyOnWriteArrayList<>();
+    private final Map<String, TreeMap<Integer, BigDecimal>> upstream = new HashMap<>();
+    private SimpleMeterRegistry meterRegistry;
+    private RateLookupBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rate("Canada-Dollar", "2025-06-30", "1.37");
+        rate("Mexico-Peso", "2025-06-30", "18.8");
+        rate("Japan-Yen", "2025-03-31", "149.0");
+        rate("Canada-Dollar", "2010-06-30", "1.04");
+    }
+
+    @AfterEach
+    void tearDown() {
+        batcher.shutdown();
+    }
+
+    @Test
+    void lookup_ShouldLoadDifferentCurrenciesWithOneQuery() {
+        batcher = batcher(60_000, 3);
+
+        CompletableFuture<Optional<BigDecimal>> canada = batcher.lookup("Canada-Dollar", LocalDate.of(2025, 9, 15));
+        CompletableFuture<Optional<BigDecimal>> mexico = batcher.lookup("Mexico-Peso", LocalDate.of(2025, 7, 1));
+        CompletableFuture<Optional<BigDecimal>> japan = batcher.lookup("Japan-Yen", LocalDate.of(2025, 8, 20));
+
+        assertEquals(new BigDecimal("1.37"), canada.join().orElseThrow());
+        assertEquals(new BigDecimal("18.8"), mexico.join().orElseThrow());
+        assertEquals(new BigDecimal("149.0"), japan.join().orElseThrow());
+        assertEquals(List.of(new Load(Set.of("Canada-Dollar", "Mexico-Peso", "Japan-Yen"),
+            LocalDate.of(2025, 1, 1), LocalDate.of(2025, 9, 15))), loads);
+        assertEquals(3.0, meterRegistry.get("exchange_rate.batch.size").summary().totalAmount());
+        assertEquals(3, meterRegistry.get("exchange_rate.batch.queue_delay").timer().count());
+    }
+
+    @Test
+    void lookup_ShouldSendBatch_WhenWindowCloses() {
+        batcher = batcher(20, 100);
+
+        CompletableFuture<Optional<BigDecimal>> first = batcher.lookup("Canada-Dollar", LocalDate.of(2025, 9, 15));
+        CompletableFuture<Optional<BigDecimal>> second = batcher.lookup("Canada-Dollar", LocalDate.of(2025, 7, 15));
+
+        assertEquals(new BigDecimal("1.37"), first.join().orElseThrow());
+        assertEquals(new BigDecimal("1.37"), second.join().orElseThrow());
+        assertEquals(1, loads.size());
+        assertEquals(Set.of("Canada-Dollar"), loads.get(0).currencies());
+    }
+
+    @Test
+    void lookup_ShouldSplitBatch_WhenDatesAreFarApart() {
+        batcher = batcher(60_000, 2);
+
+        CompletableFuture<Optional<BigDecimal>> recent = batcher.lookup("Canada-Dollar", LocalDate.of(2025, 9, 15));
+        CompletableFuture<Optional<BigDecimal>> old = batcher.lookup("Canada-Dollar", LocalDate.of(2010, 9, 15));
+
+        assertEquals(new BigDecimal("1.37"), recent.join().orElseThrow());
+        assertEquals(new BigDecimal("1.04"), old.join().orElseThrow());
+        assertEquals(2, loads.size());
+        assertTrue(loads.stream().allMatch(load -> load.from().plusDays(400).isAfter(load.to())));
+    }
+
+    @Test
+    void lookup_ShouldReturnEmpty_WhenCurrencyHasNoRateInRange() {
+        batcher = batcher(60_000, 2);
+
+        CompletableFuture<Optional<BigDecimal>> unknown = batcher.lookup("Atlantis-Coin", LocalDate.of(2025, 9, 15));
+        CompletableFuture<Optional<BigDecimal>> tooLate = batcher.lookup("Japan-Yen", LocalDate.of(2025, 12, 1));
+
+        assertTrue(unknown.join().isEmpty());
+        assertTrue(tooLate.join().isEmpty());
+    }
+
+    @Test
+    void lookup_ShouldFailEveryLookupOfBatch_WhenLoadFails() {
+        batcher = new RateLookupBatcher((currencies, from, to) -> {
+            throw new IllegalStateException("Treasury API unavailable");
+        }, meterRegistry, 60_000, 2, 400, 4);
+
+        CompletableFuture<Optional<BigDecimal>> canada = batcher.lookup("Canada-Dollar", LocalDate.of(2025, 9, 15));
+        CompletableFuture<Optional<BigDecimal>> mexico = batcher.lookup("Mexico-Peso", LocalDate.of(2025, 9, 15));
+
+        CompletionException error = assertThrows(CompletionException.class, canada::join);
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertThrows(CompletionException.class, mexico::join);
+    }
+
+    @Test
+    void lookup_ShouldLoadBatchOnCallingThread_WhenEveryDispatcherThreadIsBusy() {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        batcher = new RateLookupBatcher((currencies, from, to) -> {
+            threads.add(Thread.currentThread().getName());
+            if (currencies.contains("Canada-Dollar")) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return Map.of();
+        }, meterRegistry, 60_000, 1, 400, 1);
+
+        CompletableFuture<Optional<BigDecimal>> canada = batcher.lookup("Canada-Dollar", LocalDate.of(2025, 9, 15));
+        CompletableFuture<Optional<BigDecimal>> mexico = batcher.lookup("Mexico-Peso", LocalDate.of(2025, 9, 15));
+
+        assertTrue(mexico.isDone());
+        assertEquals(List.of(Thread.currentThread().getName()), threads.stream().filter(name -> !name.startsWith("rate-batch-")).toList());
+        release.countDown();
+        assertTrue(canada.join().isEmpty());
+    }
+
+    private RateLookupBatcher batcher(long windowMs, int maxBatchSize) {
+        return new RateLookupBatcher((currencies, from, to) -> {
+            loads.add(new Load(Set.copyOf(currencies), from, to));
+            Map<String, ExchangeRateSeries> loaded = new HashMap<>();
+            for (String currency : currencies) {
+                TreeMap<Integer, BigDecimal> rates = upstream.get(currency);
+                if (rates != null) {
+                    loaded.put(currency, ExchangeRateSeries.of(new TreeMap<>(
+                        rates.subMap((int) from.toEpochDay(), true, (int) to.toEpochDay(), true))));
+                }
+            }
+            return loaded;
+        }, meterRegistry, windowMs, maxBatchSize, 400, 4);
+    }
+
+    private void rate(String countryCurrency, String recordDate, String rate) {
+        upstream.computeIfAbsent(countryCurrency, key -> new TreeMap<>())
+            .put((int) LocalDate.parse(recordDate).toEpochDay(), new BigDecimal(rate));
+    }
+
+    private record Load(Set<String> currencies, LocalDate from, LocalDate to) {
+    }
+}
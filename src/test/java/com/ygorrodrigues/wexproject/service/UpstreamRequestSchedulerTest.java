@@ -0,0 +1,93 @@
+package com.ygorrodrigues.wexproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import com.ygorrodrigues.wexproject.exception.UpstreamRejectedException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UpstreamRequestSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void execute_ShouldRunImmediately_WhenLimitingIsDisabled() {
+        UpstreamRequestScheduler scheduler = new UpstreamRequestScheduler(meterRegistry, 0, 1, 10, 10, 10);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("ok", scheduler.execute(UpstreamPriority.INTERACTIVE, () -> "ok"));
+        }
+    }
+
+    @Test
+    void execute_ShouldWaitForToken_WhenBurstIsUsed() {
+        UpstreamRequestScheduler scheduler = new UpstreamRequestScheduler(meterRegistry, 5, 1, 2000, 2000, 2000);
+
+        long start = System.nanoTime();
+        scheduler.execute(UpstreamPriority.INTERACTIVE, () -> "first");
+        scheduler.execute(UpstreamPriority.INTERACTIVE, () -> "second");
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs >= 150, "second call should wait for a refill, waited " + elapsedMs + "ms");
+    }
+
+    @Test
+    void execute_ShouldAdmitInteractiveBeforeBulkSync() throws Exception {
+        UpstreamRequestScheduler scheduler = new UpstreamRequestScheduler(meterRegistry, 2, 1, 5000, 5000, 5000);
+        scheduler.execute(UpstreamPriority.INTERACTIVE, () -> "drain the bucket");
+        List<UpstreamPriority> admitted = new CopyOnWriteArrayList<>();
+
+        Thread bulk = new Thread(() -> scheduler.execute(UpstreamPriority.BULK_SYNC, () -> admitted.add(UpstreamPriority.BULK_SYNC)));
+        bulk.start();
+        awaitQueueDepth(scheduler, UpstreamPriority.BULK_SYNC, 1);
+        Thread interactive = new Thread(() -> scheduler.execute(UpstreamPriority.INTERACTIVE, () -> admitted.add(UpstreamPriority.INTERACTIVE)));
+        interactive.start();
+        bulk.join();
+        interactive.join();
+
+        assertEquals(List.of(UpstreamPriority.INTERACTIVE, UpstreamPriority.BULK_SYNC), admitted);
+    }
+
+    @Test
+    void execute_ShouldReject_WhenQueueTimeoutExpires() {
+        UpstreamRequestScheduler scheduler = new UpstreamRequestScheduler(meterRegistry, 0.5, 1, 50, 50, 50);
+        scheduler.execute(UpstreamPriority.INTERACTIVE, () -> "drain the bucket");
+
+        assertThrows(UpstreamRejectedException.class,
+            () -> scheduler.execute(UpstreamPriority.INTERACTIVE, () -> "too late"));
+        assertEquals(1.0, meterRegistry.get("upstream.queue.rejected").tag("lane", "interactive").counter().count());
+        assertEquals(0, scheduler.queueDepth(UpstreamPriority.INTERACTIVE));
+    }
+
+    @Test
+    void execute_ShouldCountInterruptedCallerAsCancelled() throws Exception {
+        UpstreamRequestScheduler scheduler = new UpstreamRequestScheduler(meterRegistry, 0.5, 1, 5000, 5000, 5000);
+        scheduler.execute(UpstreamPriority.INTERACTIVE, () -> "drain the bucket");
+
+        Thread waiting = new Thread(() -> assertThrows(UpstreamRejectedException.class,
+            () -> scheduler.execute(UpstreamPriority.INTERACTIVE, () -> "cancelled")));
+        waiting.start();
+        awaitQueueDepth(scheduler, UpstreamPriority.INTERACTIVE, 1);
+        waiting.interrupt();
+        waiting.join();
+
+        assertEquals(1.0, meterRegistry.get("upstream.queue.cancelled").tag("lane", "interactive").counter().count());
+        assertEquals(0.0, meterRegistry.get("upstream.queue.rejected").tag("lane", "interactive").counter().count());
+        assertEquals(0, scheduler.queueDepth(UpstreamPriority.INTERACTIVE));
+    }
+
+    private static void awaitQueueDepth(UpstreamRequestScheduler scheduler, UpstreamPriority priority, int depth)
+            throws InterruptedException {
+        for (int i = 0; i < 200 && scheduler.queueDepth(priority) < depth; i++) {
+            Thread.sleep(5);
+        }
+        assertEquals(depth, scheduler.queueDepth(priority));
+    }
+}
@@ -0,0 +1,116 @@
+package com.ygorrodrigues.wexproject.startup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ygorrodrigues.wexproject.repository.PurchaseReadRepository;
+import com.ygorrodrigues.wexproject.service.ExchangeRateService;
+import com.ygorrodrigues.wexproject.service.PurchaseService;
+import com.ygorrodrigues.wexproject.service.UpstreamPriority;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WarmupRunnerTest {
+
+    private ExchangeRateService exchangeRateService;
+    private PurchaseService purchaseService;
+    private PurchaseReadRepository purchaseReadRepository;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateService = mock(ExchangeRateService.class);
+        purchaseService = mock(PurchaseService.class);
+        purchaseReadRepository = mock(PurchaseReadRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void run_ShouldPreloadRates_AndExerciseHotPathsWithoutWriting() {
+        when(exchangeRateService.getExchangeRate(any(), any(), eq(UpstreamPriority.PREFETCH))).thenReturn(new BigDecimal("5.25"));
+
+        runner("Canada-Dollar, Brazil-Real", Duration.ofSeconds(30)).run(null);
+
+        verify(exchangeRateService).fetchRatesPage(any(LocalDate.class), eq(1), eq(1), any());
+        verify(exchangeRateService).getExchangeRateSeries(eq("Canada-Dollar"), any(), any(), eq(UpstreamPriority.PREFETCH));
+        verify(exchangeRateService).getExchangeRateSeries(eq("Brazil-Real"), any(), any(), eq(UpstreamPriority.PREFETCH));
+        verify(purchaseService, times(10)).findById(-1);
+        verify(purchaseService, times(10)).findViewById(-1);
+        verify(exchangeRateService, times(5)).getExchangeRate(eq("Canada-Dollar"), any(), eq(UpstreamPriority.PREFETCH));
+        verify(exchangeRateService, never()).tryConvert(any(), any());
+        verify(purchaseService, never()).processPurchase(any());
+        assertEquals(1, meterRegistry.get("warmup.duration").timer().count());
+    }
+
+    @Test
+    void run_ShouldSkipConversionsForCurrency_WhenItsRatesFailedToLoad() {
+        when(exchangeRateService.getExchangeRateSeries(eq("Brazil-Real"), any(), any(), any()))
+            .thenThrow(new IllegalStateException("upstream down"));
+        when(exchangeRateService.getExchangeRate(any(), any(), any())).thenReturn(BigDecimal.ONE);
+
+        runner("Brazil-Real,Canada-Dollar", Duration.ofSeconds(30)).run(null);
+
+        verify(exchangeRateService, times(10)).getExchangeRate(eq("Canada-Dollar"), any(), any());
+        verify(exchangeRateService, never()).getExchangeRate(eq("Brazil-Real"), any(), any());
+    }
+
+    @Test
+    void run_ShouldNotCallUpstream_WhenNoCurrenciesAreConfigured() {
+        runner("", Duration.ofSeconds(30)).run(null);
+
+        verify(exchangeRateService, never()).fetchRatesPage(any(), anyInt(), anyInt(), any());
+        verify(exchangeRateService, never()).getExchangeRateSeries(any(), any(), any(), any());
+        verify(exchangeRateService, never()).getExchangeRate(any(), any(), any());
+        verify(purchaseService, times(10)).findById(-1);
+    }
+
+    @Test
+    void run_ShouldSkipRemainingSteps_WhenMaxDurationIsReached() {
+        runner("Canada-Dollar", Duration.ZERO).run(null);
+
+        verify(exchangeRateService, never()).fetchRatesPage(any(), anyInt(), anyInt(), any());
+        verify(exchangeRateService, never()).getExchangeRateSeries(any(), any(), any(), any());
+        verify(purchaseService, never()).findById(any());
+        assertEquals(1, meterRegistry.get("warmup.duration").timer().count());
+    }
+
+    @Test
+    void run_ShouldReturnAtMaxDuration_WhenUpstreamNeverAnswers() {
+        CountDownLatch never = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            never.await();
+            return 0;
+        }).when(exchangeRateService).fetchRatesPage(any(LocalDate.class), anyInt(), anyInt(), any());
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> runner("Canada-Dollar", Duration.ofMillis(200)).run(null));
+
+        verify(exchangeRateService, never()).getExchangeRateSeries(any(), any(), any(), any());
+        verify(purchaseService, never()).findById(any());
+        assertEquals(1, meterRegistry.get("warmup.duration").timer().count());
+    }
+
+    private WarmupRunner runner(String currencies, Duration maxDuration) {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        return new WarmupRunner(exchangeRateService, purchaseService, purchaseReadRepository, objectMapper,
+            meterRegistry, currencies, 10, 30, maxDuration);
+    }
+}
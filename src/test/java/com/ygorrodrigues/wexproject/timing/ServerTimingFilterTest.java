@@ -0,0 +1,46 @@
+package com.ygorrodrigues.wexproject.timing;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ServerTimingFilterTest {
+
+    @Test
+    void doFilter_ShouldAddServerTimingHeader_WithRecordedStages() throws Exception {
+        ServerTimingFilter filter = new ServerTimingFilter(true, 500, 1.0);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/purchase/1/exchange"), response, (req, res) -> {
+            long start = RequestTimings.begin();
+            RequestTimings.end("db", start);
+            start = RequestTimings.begin();
+            RequestTimings.end("upstream", start);
+            RequestTimings.end("db", RequestTimings.begin());
+        });
+
+        String header = response.getHeader("Server-Timing");
+        assertTrue(header.matches("db;dur=\\d+\\.\\d, upstream;dur=\\d+\\.\\d, total;dur=\\d+\\.\\d"), header);
+        assertNull(RequestTimings.current());
+    }
+
+    @Test
+    void doFilter_ShouldNotAddHeader_WhenDisabled() throws Exception {
+        ServerTimingFilter filter = new ServerTimingFilter(false, 500, 1.0);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/ping"), response, (req, res) -> { });
+
+        assertNull(response.getHeader("Server-Timing"));
+    }
+
+    @Test
+    void end_ShouldBeNoOp_OutsideRequest() {
+        RequestTimings.end("db", RequestTimings.begin());
+
+        assertNull(RequestTimings.current());
+    }
+}